@@ -2,6 +2,7 @@ package com.temnenkov.mzctl;
 
 import com.temnenkov.mzctl.auth.RoleResolver;
 import com.temnenkov.mzctl.commands.GenerateMaze;
+import com.temnenkov.mzctl.commands.GenerateMazeBatch;
 import com.temnenkov.mzctl.commands.LoadMaze;
 import com.temnenkov.mzctl.commands.Login;
 import com.temnenkov.mzctl.commands.MoveForward;
@@ -10,6 +11,7 @@ import com.temnenkov.mzctl.commands.TurnBack;
 import com.temnenkov.mzctl.commands.TurnLeft;
 import com.temnenkov.mzctl.commands.TurnRight;
 import com.temnenkov.mzctl.commands.WhereAmI;
+import com.temnenkov.mzctl.commands.util.CommandCancellation;
 import com.temnenkov.mzctl.commands.util.CommandFactory;
 import com.temnenkov.mzctl.context.GameContext;
 import com.temnenkov.mzctl.context.SimpleGameContext;
@@ -27,6 +29,7 @@ import org.jline.reader.EndOfFileException;
 import org.jline.reader.LineReader;
 import org.jline.reader.LineReaderBuilder;
 import org.jline.reader.UserInterruptException;
+import org.jline.terminal.Terminal;
 import picocli.CommandLine;
 
 import java.io.IOException;
@@ -39,6 +42,7 @@ import java.util.concurrent.ThreadLocalRandom;
         mixinStandardHelpOptions = true,
         subcommands = {
                 GenerateMaze.class,
+                GenerateMazeBatch.class,
                 LoadMaze.class,
                 MoveForward.class,
                 TurnLeft.class,
@@ -77,6 +81,9 @@ public class MainCommand implements Runnable {
 
         container.registerBean(EnvironmentDescriberFactory.class, new RussianDescriberFactory());
 
+        final CommandCancellation cancellation = new CommandCancellation();
+        container.registerBean(CommandCancellation.class, cancellation);
+
         // Создаём GameEngine через контейнер (он разрешит зависимости автоматически)
         final GameEngine gameEngine = container.createBean(GameEngineImpl.class);
 
@@ -89,7 +96,7 @@ public class MainCommand implements Runnable {
         if (args.length > 0) {
             executeSingleCommand(cmd, args);
         } else {
-            startRepl(cmd);
+            startRepl(cmd, cancellation);
         }
     }
 
@@ -97,8 +104,14 @@ public class MainCommand implements Runnable {
         cmd.execute(args);
     }
 
-    private static void startRepl(CommandLine cmd) {
+    private static void startRepl(CommandLine cmd, @NotNull CommandCancellation cancellation) {
         final LineReader reader = LineReaderBuilder.builder().build();
+        // во время ввода Ctrl+C обрабатывает readLine, во время команды - отменяет ее
+        reader.getTerminal().handle(Terminal.Signal.INT, signal -> {
+            if (cancellation.cancel()) {
+                System.out.println("Отмена...");
+            }
+        });
         System.out.println("Welcome to Maze REPL. Type '/quit' to exit.");
 
         while (true) {
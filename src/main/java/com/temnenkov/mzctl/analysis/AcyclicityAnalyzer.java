@@ -1,17 +1,9 @@
 package com.temnenkov.mzctl.analysis;
 
-import com.temnenkov.mzctl.model.Cell;
 import com.temnenkov.mzctl.model.Maze;
-import org.jetbrains.annotations.Contract;
-import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.HashSet;
-import java.util.Set;
-
 public class AcyclicityAnalyzer {
     private static final Logger log = LoggerFactory.getLogger(AcyclicityAnalyzer.class);
     private final Maze maze;
@@ -25,56 +17,47 @@ public class AcyclicityAnalyzer {
      * @return true, если лабиринт не содержит циклов, false в противном случае
      */
     public boolean isAcyclic() {
-        final Set<Cell> visited = new HashSet<>();
-        for (Cell cell : maze) {
-            if (!visited.contains(cell) && hasCycle(cell, visited)) {
+        final int totalCells = maze.totalCellCount();
+        final boolean[] visited = new boolean[totalCells];
+        // родитель клетки в дереве обхода, -1 у корня
+        final int[] parents = new int[totalCells];
+        // каждая клетка попадает в стек не больше одного раза
+        final int[] stack = new int[totalCells];
+        final int[] neighbors = new int[maze.getIndexSpace().directionCount()];
+        for (int cell = 0; cell < totalCells; cell++) {
+            if (!visited[cell] && hasCycle(cell, visited, parents, stack, neighbors)) {
                 return false; // если нашли цикл, сразу возвращаем false
             }
         }
         return true; // циклов нет, возвращаем true
     }
 
-    private boolean hasCycle(@NotNull Cell cell, @NotNull Set<Cell> visited) {
-
-        final Deque<CellWithParent> stack = new ArrayDeque<>();
-        stack.push(new CellWithParent(cell, null, visited));
+    private boolean hasCycle(int cell, boolean[] visited, int[] parents, int[] stack, int[] neighbors) {
+        int stackSize = 0;
+        stack[stackSize++] = cell;
+        visited[cell] = true;
+        parents[cell] = -1;
 
-        while (!stack.isEmpty()) {
-            final CellWithParent cellWithParent = stack.pop();
-            cellWithParent.markCurrentAsVisited();
+        while (stackSize > 0) {
+            final int current = stack[--stackSize];
 
-            for (Cell neighbor : maze.getAvailableNeighbors(cellWithParent.current)) {
-                if (!cellWithParent.visited.contains(neighbor)) {
-                    stack.push(cellWithParent.advance(neighbor));
-                } else if (!neighbor.equals(cellWithParent.parent)) {
+            final int count = maze.getAvailableNeighbors(current, neighbors);
+            for (int i = 0; i < count; i++) {
+                final int neighbor = neighbors[i];
+                if (neighbor == parents[current]) {
+                    continue;
+                }
+                if (visited[neighbor]) {
                     // если сосед уже посещён и это не родитель, значит, нашли цикл
-                    log.trace("Обнаружен цикл! Текущая клетка={}, соседняя клетка={}", cellWithParent.current, neighbor);
+                    log.trace("Обнаружен цикл! Текущая клетка={}, соседняя клетка={}", current, neighbor);
                     return true;
                 }
+                visited[neighbor] = true;
+                parents[neighbor] = current;
+                stack[stackSize++] = neighbor;
             }
         }
         return false; // циклов не нашли
     }
 
-    private static class CellWithParent {
-        private final Cell current;
-        private final Cell parent;
-        private final Set<Cell> visited;
-
-        private CellWithParent(Cell current, Cell parent, Set<Cell> visited) {
-            this.current = current;
-            this.parent = parent;
-            this.visited = visited;
-        }
-
-        @Contract(value = "_ -> new", pure = true)
-        private @NotNull CellWithParent advance(@NotNull Cell next) {
-            return new CellWithParent(next, current, visited);
-        }
-
-        private void markCurrentAsVisited() {
-            visited.add(current);
-        }
-    }
-
 }
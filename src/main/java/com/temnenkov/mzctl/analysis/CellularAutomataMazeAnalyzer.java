@@ -1,20 +1,25 @@
 package com.temnenkov.mzctl.analysis;
 
-import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.model.CellIndexSpace;
 import com.temnenkov.mzctl.model.CellularAutomataMaze;
+import com.temnenkov.mzctl.util.SimpleMath;
 import com.temnenkov.mzctl.util.SimplePreconditions;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayDeque;
-import java.util.HashSet;
-import java.util.Queue;
-import java.util.Set;
+import java.util.Arrays;
 
+/**
+ * Анализатор лабиринта клеточного автомата.
+ *
+ * <p>Области пустых клеток (соседство по всем 3^D - 1 направлениям, включая диагонали) размечаются
+ * один раз за проход по лабиринту по Хошену-Копельману и кешируются. Лабиринт не должен меняться
+ * после первого запроса об областях.</p>
+ */
 public class CellularAutomataMazeAnalyzer {
 
     @NotNull
     private final CellularAutomataMaze maze;
-    private final Set<Cell> visited = new HashSet<>();
+    private AreaStats areaStats;
 
     public CellularAutomataMazeAnalyzer(@NotNull CellularAutomataMaze maze) {
         this.maze = maze;
@@ -28,7 +33,7 @@ public class CellularAutomataMazeAnalyzer {
     public double wallPercentage() {
         final long totalCells = maze.totalCells();
         SimplePreconditions.checkState(totalCells > 0, "Total cells must be greater than zero - programmer bug");
-        final long wallCells = maze.stream().filter(maze::isWall).count();
+        final long wallCells = maze.stream().parallel().filter(maze::isWall).count();
         SimplePreconditions.checkState(wallCells <= totalCells, "Wall cells must be less than total cells - programmer bug");
         return (double) wallCells / totalCells;
     }
@@ -39,17 +44,7 @@ public class CellularAutomataMazeAnalyzer {
      * @return количество изолированных областей
      */
     public int countIsolatedAreas() {
-        visited.clear();
-        int count = 0;
-
-        for (Cell cell : maze) {
-            if (!maze.isWall(cell) && !visited.contains(cell)) {
-                bfs(cell);
-                count++;
-            }
-        }
-
-        return count;
+        return areaStats().sizes.length;
     }
 
     /**
@@ -58,45 +53,191 @@ public class CellularAutomataMazeAnalyzer {
      * @return размер самой большой области
      */
     public int largestAreaSize() {
-        visited.clear();
-        int maxSize = 0;
+        final int[] sizes = areaStats().sizes;
+        return sizes.length == 0 ? 0 : sizes[0];
+    }
+
+    /**
+     * Возвращает размеры всех связных областей пустых клеток.
+     *
+     * @return размеры областей по убыванию
+     */
+    public int @NotNull [] areaSizes() {
+        return areaStats().sizes.clone();
+    }
+
+    private @NotNull AreaStats areaStats() {
+        if (areaStats == null) {
+            areaStats = labelAreas();
+        }
+        return areaStats;
+    }
 
-        for (Cell cell : maze) {
-            if (!maze.isWall(cell) && !visited.contains(cell)) {
-                final int size = bfs(cell);
-                maxSize = Math.max(maxSize, size);
+    /**
+     * Разметка областей за один проход в порядке линейных индексов. Каждая пустая клетка получает метку
+     * уже пройденного соседа (метки соседей объединяются) или новую метку. Метки хранятся только для
+     * последнего слоя клеток, на который могут ссылаться соседи, размеры областей - в корнях меток.
+     *
+     * @return статистика областей
+     */
+    private @NotNull AreaStats labelAreas() {
+        final CellIndexSpace indexSpace = new CellIndexSpace(maze.getDimensions());
+        final int dimensions = indexSpace.dimensions();
+        final int[][] offsets = backwardOffsets(dimensions);
+        final int[] deltas = new int[offsets.length];
+        int window = 1;
+        for (int k = 0; k < offsets.length; k++) {
+            for (int dim = 0; dim < dimensions; dim++) {
+                deltas[k] -= offsets[k][dim] * indexSpace.stride(dim);
             }
+            window = Math.max(window, deltas[k] + 1);
         }
 
-        return maxSize;
+        final int[] labelWindow = new int[window];
+        final AreaLabels labels = new AreaLabels();
+        final int[] coords = new int[dimensions];
+        for (int index = 0; index < indexSpace.size(); index++) {
+            int label = 0;
+            if (!maze.isWallAt(index)) {
+                for (int k = 0; k < offsets.length; k++) {
+                    if (!isInside(coords, offsets[k], indexSpace)) {
+                        continue;
+                    }
+                    final int neighborLabel = labelWindow[(index - deltas[k]) % window];
+                    if (neighborLabel != 0) {
+                        label = label == 0 ? labels.find(neighborLabel) : labels.union(label, neighborLabel);
+                    }
+                }
+                if (label == 0) {
+                    label = labels.newLabel();
+                }
+                labels.sizes[label]++;
+            }
+            labelWindow[index % window] = label;
+            advance(coords, indexSpace);
+        }
+
+        return new AreaStats(labels.rootSizes());
     }
 
     /**
-     * Алгоритм поиска в ширину (BFS) для обхода области.
-     *
-     * @param startCell начальная клетка
-     * @return размер области
+     * Смещения на соседей, которые при обходе по возрастанию индекса пройдены раньше клетки:
+     * первая ненулевая компонента смещения равна -1. Таких смещений (3^D - 1) / 2.
      */
-    private int bfs(Cell startCell) {
-        int areaSize = 0;
-        final Queue<Cell> queue = new ArrayDeque<>();
-        queue.add(startCell);
-        visited.add(startCell);
-
-        while (!queue.isEmpty()) {
-            final Cell current = queue.poll();
-            areaSize++;
-
-            current.neighbors()
-                    .filter(maze::isValid)
-                    .filter(neighbor -> !maze.isWall(neighbor))
-                    .filter(neighbor -> !visited.contains(neighbor))
-                    .forEach(neighbor -> {
-                        visited.add(neighbor);
-                        queue.add(neighbor);
-                    });
+    private static int @NotNull [] @NotNull [] backwardOffsets(int dimensions) {
+        final int total = SimpleMath.pow(3, dimensions);
+        final int[][] result = new int[(total - 1) / 2][];
+        int count = 0;
+        for (int combination = 0; combination < total; combination++) {
+            final int[] offset = new int[dimensions];
+            int rest = combination;
+            for (int dim = dimensions - 1; dim >= 0; dim--) {
+                offset[dim] = rest % 3 - 1;
+                rest /= 3;
+            }
+            if (isBackward(offset)) {
+                result[count++] = offset;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isBackward(int @NotNull [] offset) {
+        for (int value : offset) {
+            if (value != 0) {
+                return value < 0;
+            }
         }
+        return false;
+    }
+
+    private static boolean isInside(int @NotNull [] coords, int @NotNull [] offset, @NotNull CellIndexSpace indexSpace) {
+        for (int dim = 0; dim < coords.length; dim++) {
+            final int coord = coords[dim] + offset[dim];
+            if (coord < 0 || coord >= indexSpace.dimSize(dim)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void advance(int @NotNull [] coords, @NotNull CellIndexSpace indexSpace) {
+        for (int dim = coords.length - 1; dim >= 0; dim--) {
+            if (++coords[dim] < indexSpace.dimSize(dim)) {
+                return;
+            }
+            coords[dim] = 0;
+        }
+    }
+
+    /**
+     * Классы эквивалентности меток (union-find по размеру). Метка 0 не используется.
+     */
+    private static final class AreaLabels {
+        private int[] parents = new int[16];
+        private int[] sizes = new int[16];
+        private int count = 0;
+
+        private int newLabel() {
+            final int label = ++count;
+            if (label == parents.length) {
+                parents = Arrays.copyOf(parents, label * 2);
+                sizes = Arrays.copyOf(sizes, label * 2);
+            }
+            parents[label] = label;
+            return label;
+        }
+
+        private int find(int label) {
+            int current = label;
+            while (parents[current] != current) {
+                parents[current] = parents[parents[current]];
+                current = parents[current];
+            }
+            return current;
+        }
+
+        private int union(int label1, int label2) {
+            int root1 = find(label1);
+            int root2 = find(label2);
+            if (root1 == root2) {
+                return root1;
+            }
+            if (sizes[root1] < sizes[root2]) {
+                final int tmp = root1;
+                root1 = root2;
+                root2 = tmp;
+            }
+            parents[root2] = root1;
+            sizes[root1] += sizes[root2];
+            return root1;
+        }
+
+        private int @NotNull [] rootSizes() {
+            int roots = 0;
+            for (int label = 1; label <= count; label++) {
+                if (parents[label] == label) {
+                    roots++;
+                }
+            }
+            final int[] result = new int[roots];
+            int i = 0;
+            for (int label = 1; label <= count; label++) {
+                if (parents[label] == label) {
+                    result[i++] = sizes[label];
+                }
+            }
+            Arrays.sort(result);
+            // по убыванию
+            for (int left = 0, right = result.length - 1; left < right; left++, right--) {
+                final int tmp = result[left];
+                result[left] = result[right];
+                result[right] = tmp;
+            }
+            return result;
+        }
+    }
 
-        return areaSize;
+    private record AreaStats(int @NotNull [] sizes) {
     }
-}
\ No newline at end of file
+}
@@ -6,11 +6,7 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayDeque;
-import java.util.HashSet;
-import java.util.Queue;
 import java.util.Random;
-import java.util.Set;
 
 public class ConnectednessAnalyzer {
 
@@ -30,7 +26,7 @@ public class ConnectednessAnalyzer {
      * @return true, если лабиринт connected, false иначе
      */
     public boolean isConnected() {
-        return isConnected(maze.getRandomCell(random));
+        return isConnected(maze.getRandomIndex(random));
     }
 
     /**
@@ -40,36 +36,50 @@ public class ConnectednessAnalyzer {
      * @return true, если лабиринт connected, false иначе
      */
     public boolean isConnected(@NotNull Cell startCell) {
-        final Set<Cell> visited = new HashSet<>();
-        final Queue<Cell> queue = new ArrayDeque<>();
+        if (!maze.isValid(startCell)) {
+            return false;
+        }
+        return isConnected(maze.getIndexSpace().indexOf(startCell));
+    }
+
+    private boolean isConnected(int startCell) {
+        final boolean[] visited = new boolean[maze.totalCellCount()];
+        final int[] queue = new int[maze.totalCellCount()];
+        final int[] neighbors = new int[maze.getIndexSpace().directionCount()];
+        int head = 0;
+        int tail = 0;
 
-        queue.add(startCell);
-        visited.add(startCell);
+        queue[tail++] = startCell;
+        visited[startCell] = true;
 
         int steps = 0;
         long totalNeighborsCount = 0; // новая переменная для подсчета общего числа соседей
 
-        while (!queue.isEmpty()) {
-            Cell current = queue.poll();
+        while (head < tail) {
+            final int current = queue[head++];
             steps++;
 
-            final Set<Cell> neighbors = maze.getAvailableNeighbors(current);
-            totalNeighborsCount += neighbors.size(); // суммируем количество соседей
+            final int count = maze.getAvailableNeighbors(current, neighbors);
+            totalNeighborsCount += count; // суммируем количество соседей
 
-            for (Cell neighbor : neighbors) {
-                if (visited.add(neighbor)) {
-                    queue.add(neighbor);
+            for (int i = 0; i < count; i++) {
+                final int neighbor = neighbors[i];
+                if (!visited[neighbor]) {
+                    visited[neighbor] = true;
+                    queue[tail++] = neighbor;
                 }
             }
         }
 
-        final boolean connected = visited.size() == maze.totalCellCount();
+        // в очередь попадает каждая посещённая клетка ровно один раз
+        final int visitedCount = tail;
+        final boolean connected = visitedCount == maze.totalCellCount();
         final double averageNeighbors = steps != 0 ? (double) totalNeighborsCount / steps : -1d;
         final String averageNeighborsStr = steps != 0 ? String.format("%.4f", averageNeighbors) : "N/A";
 
         if (logger.isTraceEnabled()) {
             logger.trace("Maze connectivity check completed: connected={}, total steps={}, visited cells={}/{}, average neighbors per cell={}",
-                    connected, steps, visited.size(), maze.totalCellCount(), averageNeighborsStr);
+                    connected, steps, visitedCount, maze.totalCellCount(), averageNeighborsStr);
         }
         return connected;
     }
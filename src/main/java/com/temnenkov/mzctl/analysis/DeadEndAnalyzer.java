@@ -2,6 +2,8 @@ package com.temnenkov.mzctl.analysis;
 
 import com.temnenkov.mzctl.model.Maze;
 
+import java.util.stream.IntStream;
+
 public class DeadEndAnalyzer {
     private final Maze maze;
 
@@ -10,8 +12,9 @@ public class DeadEndAnalyzer {
     }
 
     public long deadEndCount() {
-        return maze.stream()
-                .filter(c -> maze.getAvailableNeighbors(c).size() == 1)
+        return IntStream.range(0, maze.totalCellCount())
+                .parallel()
+                .filter(index -> maze.availableNeighborCount(index) == 1)
                 .count();
     }
 
@@ -1,14 +1,8 @@
 package com.temnenkov.mzctl.analysis;
 
-import com.temnenkov.mzctl.model.Cell;
 import com.temnenkov.mzctl.model.Maze;
-import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayDeque;
-import java.util.HashSet;
-import java.util.Queue;
 import java.util.Random;
-import java.util.Set;
 
 public class DiameterAnalyzer {
     private final Maze maze;
@@ -22,33 +16,38 @@ public class DiameterAnalyzer {
     public int diameter() {
 
         // первый BFS от произвольной клетки
-        final Cell start = maze.getRandomCell(random);
-        Cell farthestA = bfsFarthestCell(start);
+        final int start = maze.getRandomIndex(random);
+        int farthestA = bfsFarthestCell(start);
 
         // второй BFS от найденной клетки farthestA
-        Cell farthestB = bfsFarthestCell(farthestA);
+        int farthestB = bfsFarthestCell(farthestA);
 
         // возвращаем расстояние между farthestA и farthestB
         return ShortestPathHelper.shortestDistance(maze, farthestA, farthestB);
     }
 
     // вспомогательный метод: BFS и поиск самой удалённой клетки от start
-    @NotNull
-    private Cell bfsFarthestCell(@NotNull Cell start) {
-        final Queue<Cell> queue = new ArrayDeque<>();
-        final Set<Cell> visited = new HashSet<>();
-        queue.add(start);
-        visited.add(start);
-
-        Cell farthest = start;
-
-        while (!queue.isEmpty()) {
-            final Cell current = queue.poll();
+    private int bfsFarthestCell(int start) {
+        final int[] queue = new int[maze.totalCellCount()];
+        final boolean[] visited = new boolean[maze.totalCellCount()];
+        final int[] neighbors = new int[maze.getIndexSpace().directionCount()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        visited[start] = true;
+
+        int farthest = start;
+
+        while (head < tail) {
+            final int current = queue[head++];
             farthest = current; // последняя обработанная клетка будет самой дальней
 
-            for (Cell neighbor : maze.getAvailableNeighbors(current)) {
-                if (visited.add(neighbor)) { // add возвращает true, если клетка ещё не была посещена
-                    queue.add(neighbor);
+            final int count = maze.getAvailableNeighbors(current, neighbors);
+            for (int i = 0; i < count; i++) {
+                final int neighbor = neighbors[i];
+                if (!visited[neighbor]) {
+                    visited[neighbor] = true;
+                    queue[tail++] = neighbor;
                 }
             }
         }
@@ -2,6 +2,8 @@ package com.temnenkov.mzctl.analysis;
 
 import com.temnenkov.mzctl.model.Maze;
 
+import java.util.stream.IntStream;
+
 /**
  * Анализатор количества перекрёстков в лабиринте.
  * Перекрёсток — это комната, у которой три или более проходов.
@@ -18,8 +20,9 @@ public class IntersectionAnalyzer {
      * @return количество комнат с тремя или более проходами
      */
     public long intersectionCount() {
-        return (int) maze.stream()
-                .filter(c -> maze.getAvailableNeighbors(c).size() >= 3)
+        return IntStream.range(0, maze.totalCellCount())
+                .parallel()
+                .filter(index -> maze.availableNeighborCount(index) >= 3)
                 .count();
     }
 }
@@ -1,13 +1,11 @@
 package com.temnenkov.mzctl.analysis;
 
 import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.model.CellIndexSpace;
 import com.temnenkov.mzctl.model.Maze;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayDeque;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Queue;
+import java.util.Arrays;
 
 /**
  * Вспомогательный класс для поиска кратчайшего расстояния между двумя ячейками в лабиринте.
@@ -29,24 +27,50 @@ public final class ShortestPathHelper {
         if (start.equals(end)) {
             return 0;
         }
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        if (!indexSpace.contains(start) || !indexSpace.contains(end)) {
+            return -1;
+        }
+        return shortestDistance(maze, indexSpace.indexOf(start), indexSpace.indexOf(end));
+    }
+
+    /**
+     * Вычисляет кратчайшее расстояние (количество шагов) между двумя ячейками в лабиринте.
+     *
+     * @param maze  лабиринт, в котором вычисляется расстояние
+     * @param start индекс начальной ячейки
+     * @param end   индекс конечной ячейки
+     * @return кратчайшее расстояние между ячейками, или -1, если путь недостижим
+     */
+    public static int shortestDistance(@NotNull Maze maze, int start, int end) {
+        if (start == end) {
+            return 0;
+        }
 
-        final Queue<Cell> queue = new ArrayDeque<>();
-        final Map<Cell, Integer> distances = new HashMap<>();
-        queue.add(start);
-        distances.put(start, 0);
+        // каждая ячейка попадает в очередь не больше одного раза
+        final int[] queue = new int[maze.totalCellCount()];
+        final int[] distances = new int[maze.totalCellCount()];
+        final int[] neighbors = new int[maze.getIndexSpace().directionCount()];
+        Arrays.fill(distances, -1);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        distances[start] = 0;
 
-        while (!queue.isEmpty()) {
-            final Cell current = queue.poll();
-            if (current.equals(end)) {
-                return distances.get(current);
+        while (head < tail) {
+            final int current = queue[head++];
+            if (current == end) {
+                return distances[current];
             }
-            for (Cell neighbor : maze.getAvailableNeighbors(current)) {
-                if (!distances.containsKey(neighbor)) {
-                    distances.put(neighbor, distances.get(current) + 1);
-                    queue.add(neighbor);
+            final int count = maze.getAvailableNeighbors(current, neighbors);
+            for (int i = 0; i < count; i++) {
+                final int neighbor = neighbors[i];
+                if (distances[neighbor] < 0) {
+                    distances[neighbor] = distances[current] + 1;
+                    queue[tail++] = neighbor;
                 }
             }
         }
         return -1; // Недостижимый путь (лабиринт несвязный)
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,19 @@
 package com.temnenkov.mzctl.commands;
 
+import com.temnenkov.mzctl.commands.util.CommandCancellation;
 import com.temnenkov.mzctl.gameengine.GameEngine;
+import com.temnenkov.mzctl.generation.CancellationToken;
+import com.temnenkov.mzctl.generation.GenerationMonitor;
+import com.temnenkov.mzctl.generation.GenerationProgress;
 import com.temnenkov.mzctl.generation.MazeGeneratorFactory;
 import com.temnenkov.mzctl.model.UserId;
+import com.temnenkov.mzctl.util.SeededRandomProvider;
+import org.jetbrains.annotations.NotNull;
 import picocli.CommandLine;
 
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
 @CommandLine.Command(name = "generate-maze", description = "Генерирует и сохраняет лабиринт")
 public class GenerateMaze implements Runnable {
     @CommandLine.Option(names = {"-n", "--name"}, required = true)
@@ -17,16 +26,37 @@ public class GenerateMaze implements Runnable {
     MazeGeneratorFactory.Algo algo;
     @CommandLine.Option(names = {"-u", "--user"}, required = false, defaultValue = "tester")
     String userId;
+    @CommandLine.Option(names = {"-s", "--seed"}, required = false, description = "Зерно генератора, по умолчанию случайное")
+    Long seed;
+
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(1);
 
     private final GameEngine gameEngine;
+    private final CommandCancellation cancellation;
 
-    public GenerateMaze(GameEngine gameEngine) {
+    public GenerateMaze(GameEngine gameEngine, CommandCancellation cancellation) {
         this.gameEngine = gameEngine;
+        this.cancellation = cancellation;
     }
 
     @Override
     public void run() {
-        gameEngine.generateMaze(new UserId(userId), name, width, height, algo);
-        System.out.println("Лабиринт '" + name + "' создан и сохранён.");
+        final long actualSeed = seed != null ? seed : SeededRandomProvider.newSeed();
+        final CancellationToken token = cancellation.start();
+        try {
+            gameEngine.generateMaze(new UserId(userId), name, width, height, algo, actualSeed,
+                    new GenerationMonitor(token, GenerateMaze::printProgress, PROGRESS_INTERVAL));
+            System.out.println("Лабиринт '" + name + "' создан и сохранён (зерно " + actualSeed + ").");
+        } catch (CancellationException e) {
+            System.out.println("Генерация лабиринта '" + name + "' отменена.");
+        } finally {
+            cancellation.finish(token);
+        }
+    }
+
+    private static void printProgress(@NotNull GenerationProgress progress) {
+        if (!progress.finished()) {
+            System.out.printf("Построено %.0f%%, %.0f комнат/с%n", progress.fraction() * 100, progress.cellsPerSecond());
+        }
     }
 }
@@ -0,0 +1,115 @@
+package com.temnenkov.mzctl.commands;
+
+import com.temnenkov.mzctl.commands.util.CommandCancellation;
+import com.temnenkov.mzctl.game.MazeManager;
+import com.temnenkov.mzctl.game.batch.BatchMazeGenerationService;
+import com.temnenkov.mzctl.game.batch.BatchProgressListener;
+import com.temnenkov.mzctl.game.batch.BatchStats;
+import com.temnenkov.mzctl.game.batch.MazeSpec;
+import com.temnenkov.mzctl.generation.CancellationToken;
+import com.temnenkov.mzctl.generation.GenerationProgress;
+import com.temnenkov.mzctl.model.UserId;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
+
+@CommandLine.Command(name = "generate-maze-batch",
+        description = "Генерирует и сохраняет пакет лабиринтов по файлу заданий (строки 'имя 20x30 WILSON зерно')")
+public class GenerateMazeBatch implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(GenerateMazeBatch.class);
+
+    @CommandLine.Option(names = {"-f", "--file"}, required = true, description = "Файл заданий")
+    Path specFile;
+    @CommandLine.Option(names = {"-t", "--threads"}, required = false, description = "Количество потоков")
+    int threads = Runtime.getRuntime().availableProcessors();
+    @CommandLine.Option(names = {"-u", "--user"}, required = false, defaultValue = "tester")
+    String userId;
+
+    private final MazeManager mazeManager;
+    private final CommandCancellation cancellation;
+
+    public GenerateMazeBatch(MazeManager mazeManager, CommandCancellation cancellation) {
+        this.mazeManager = mazeManager;
+        this.cancellation = cancellation;
+    }
+
+    @Override
+    public void run() {
+        if (threads <= 0) {
+            System.out.println("Ошибка: количество потоков должно быть положительным: " + threads);
+            return;
+        }
+        final List<MazeSpec> specs;
+        try {
+            specs = readSpecs(specFile);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Fail read batch", e);
+            System.out.println("Ошибка: не удалось прочитать файл заданий: " + e.getMessage());
+            return;
+        }
+        final CancellationToken token = cancellation.start();
+        try {
+            final BatchStats stats = new BatchMazeGenerationService(mazeManager, threads)
+                    .generate(new UserId(userId), specs, new ConsoleProgress(specs.size()), token);
+            if (token.isCancelled()) {
+                System.out.println("Пакет отменён.");
+            }
+            System.out.printf("Создано лабиринтов: %d, ошибок: %d, %.1f лабиринтов/с, %.0f комнат/с%n",
+                    stats.succeeded(), stats.failed(), stats.mazesPerSecond(), stats.cellsPerSecond());
+        } finally {
+            cancellation.finish(token);
+        }
+    }
+
+    /**
+     * Вывод хода пакета: каждая десятая часть заданий, ошибки и ход генерации долгих лабиринтов
+     */
+    private static final class ConsoleProgress implements BatchProgressListener {
+        private final int reportEvery;
+
+        ConsoleProgress(int total) {
+            this.reportEvery = Math.max(1, total / 10);
+        }
+
+        @Override
+        public void mazeCompleted(@NotNull MazeSpec spec, @Nullable Throwable error, int completed, int total) {
+            if (error instanceof CancellationException) {
+                System.out.println("Лабиринт '" + spec.name() + "' отменён");
+            } else if (error != null) {
+                System.out.println("Ошибка: лабиринт '" + spec.name() + "' не создан: " + error.getMessage());
+            }
+            if (completed % reportEvery == 0 || completed == total) {
+                System.out.println("Готово " + completed + " из " + total);
+            }
+        }
+
+        @Override
+        public void mazeProgress(@NotNull MazeSpec spec, @NotNull GenerationProgress progress) {
+            if (!progress.finished()) {
+                System.out.printf("Лабиринт '%s': построено %.0f%%, %.0f комнат/с%n",
+                        spec.name(), progress.fraction() * 100, progress.cellsPerSecond());
+            }
+        }
+    }
+
+    /**
+     * Читает задания из файла, пустые строки и строки, начинающиеся с #, пропускаются
+     */
+    static List<MazeSpec> readSpecs(Path file) throws IOException {
+        try (Stream<String> lines = Files.lines(file)) {
+            return lines.map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .map(MazeSpec::parse)
+                    .toList();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.temnenkov.mzctl.commands;
 
 import com.temnenkov.mzctl.di.SimpleDIContainer;
+import com.temnenkov.mzctl.game.MazeManager;
+import com.temnenkov.mzctl.game.MazePool;
 import com.temnenkov.mzctl.telegram.TelegramBotAdapter;
 import com.temnenkov.mzctl.telegram.TelegramBotConfig;
 import com.temnenkov.mzctl.telegram.TelegramHttpClient;
@@ -30,6 +32,9 @@ public class TelegramBotCommand implements Runnable {
             final TelegramBotConfig config = new TelegramBotConfig(configPath);
             container.registerBean(TelegramBotConfig.class, config);
 
+            container.getBean(MazeManager.class).setMazePool(new MazePool(config.getMazePoolSize(),
+                    config.getMazePoolLowWatermark(), config.getMazePoolThreads()));
+
             final TelegramHttpClient telegramHttpClient = new TelegramHttpClient(config);
             container.registerBean(TelegramHttpClient.class, telegramHttpClient);
 
@@ -0,0 +1,49 @@
+package com.temnenkov.mzctl.commands.util;
+
+import com.temnenkov.mzctl.generation.CancellationToken;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Отмена долгой команды по Ctrl+C. Команда на время работы заводит свой признак отмены,
+ * REPL по сигналу прерывания отменяет признак текущей команды.
+ */
+public class CommandCancellation {
+
+    private final AtomicReference<CancellationToken> current = new AtomicReference<>();
+
+    /**
+     * Начало отменяемой команды
+     *
+     * @return признак отмены команды
+     */
+    public @NotNull CancellationToken start() {
+        final CancellationToken token = new CancellationToken();
+        current.set(token);
+        return token;
+    }
+
+    /**
+     * Конец отменяемой команды
+     *
+     * @param token признак отмены, полученный в {@link #start()}
+     */
+    public void finish(@NotNull CancellationToken token) {
+        current.compareAndSet(token, null);
+    }
+
+    /**
+     * Отменяет текущую команду
+     *
+     * @return true, если было что отменять
+     */
+    public boolean cancel() {
+        final CancellationToken token = current.get();
+        if (token == null) {
+            return false;
+        }
+        token.cancel();
+        return true;
+    }
+}
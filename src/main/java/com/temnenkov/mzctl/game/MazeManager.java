@@ -1,16 +1,17 @@
 package com.temnenkov.mzctl.game;
 
+import com.temnenkov.mzctl.generation.GenerationMonitor;
 import com.temnenkov.mzctl.generation.MazeGeneratorFactory;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.UserId;
 import com.temnenkov.mzctl.model.serialize.SerializationHelper;
+import com.temnenkov.mzctl.util.SeededRandomProvider;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Управляет генерацией, сохранением и загрузкой лабиринтов.
@@ -20,6 +21,7 @@ import java.util.concurrent.ThreadLocalRandom;
 public class MazeManager {
 
     private final Path mazeDirectory;
+    private volatile MazePool mazePool = MazePool.disabled();
 
     public Path getMazeDirectory() {
         return mazeDirectory;
@@ -39,7 +41,7 @@ public class MazeManager {
     }
 
     /**
-     * Генерирует двумерный лабиринт.
+     * Генерирует двумерный лабиринт со случайным зерном (оно запоминается в лабиринте).
      *
      * @param width ширина лабиринта
      * @param height высота лабиринта
@@ -47,8 +49,122 @@ public class MazeManager {
      * @return сгенерированный лабиринт
      */
     public Maze generateMaze2D(int width, int height, MazeGeneratorFactory.Algo algo) {
-        final MazeDim dim = MazeDim.of(width, height);
-        return new MazeGeneratorFactory(getLocalRandom()).create(algo, dim).generateMaze();
+        return generateMaze2D(width, height, algo, SeededRandomProvider.newSeed());
+    }
+
+    /**
+     * Генерирует двумерный лабиринт из заданного зерна.
+     *
+     * @param width ширина лабиринта
+     * @param height высота лабиринта
+     * @param algo алгоритм генерации
+     * @param seed зерно генератора случайных чисел
+     * @return сгенерированный лабиринт
+     */
+    public Maze generateMaze2D(int width, int height, MazeGeneratorFactory.Algo algo, long seed) {
+        return generateMaze(MazeDim.of(width, height), algo, seed);
+    }
+
+    /**
+     * Генерирует лабиринт любой размерности из заданного зерна: одно и то же зерно дает один и тот же лабиринт.
+     * Зерно запоминается в лабиринте и сохраняется вместе с ним. Можно вызывать из нескольких потоков.
+     *
+     * @param dim  размерность лабиринта
+     * @param algo алгоритм генерации
+     * @param seed зерно генератора случайных чисел
+     * @return сгенерированный лабиринт
+     */
+    public Maze generateMaze(@NotNull MazeDim dim, @NotNull MazeGeneratorFactory.Algo algo, long seed) {
+        return generateMaze(dim, algo, seed, GenerationMonitor.none());
+    }
+
+    /**
+     * Генерирует лабиринт из заданного зерна под наблюдением монитора: генерацию можно отменить
+     * и следить за ее ходом.
+     *
+     * @param dim     размерность лабиринта
+     * @param algo    алгоритм генерации
+     * @param seed    зерно генератора случайных чисел
+     * @param monitor монитор генерации
+     * @return сгенерированный лабиринт
+     * @throws java.util.concurrent.CancellationException если генерация отменена
+     */
+    public Maze generateMaze(@NotNull MazeDim dim, @NotNull MazeGeneratorFactory.Algo algo, long seed,
+            @NotNull GenerationMonitor monitor) {
+        return generateMaze(dim, algo, seed, Runtime.getRuntime().availableProcessors(), monitor);
+    }
+
+    /**
+     * Генерирует лабиринт из заданного зерна не больше чем в threads потоков.
+     * Когда лабиринты и так строятся в нескольких потоках, каждому хватит одного.
+     *
+     * @param dim     размерность лабиринта
+     * @param algo    алгоритм генерации
+     * @param seed    зерно генератора случайных чисел
+     * @param threads количество потоков для одного лабиринта
+     * @return сгенерированный лабиринт
+     */
+    public Maze generateMaze(@NotNull MazeDim dim, @NotNull MazeGeneratorFactory.Algo algo, long seed, int threads) {
+        return generateMaze(dim, algo, seed, threads, GenerationMonitor.none());
+    }
+
+    /**
+     * Генерирует лабиринт из заданного зерна не больше чем в threads потоков под наблюдением монитора.
+     *
+     * @param dim     размерность лабиринта
+     * @param algo    алгоритм генерации
+     * @param seed    зерно генератора случайных чисел
+     * @param threads количество потоков для одного лабиринта
+     * @param monitor монитор генерации
+     * @return сгенерированный лабиринт
+     * @throws java.util.concurrent.CancellationException если генерация отменена
+     */
+    public Maze generateMaze(@NotNull MazeDim dim, @NotNull MazeGeneratorFactory.Algo algo, long seed, int threads,
+            @NotNull GenerationMonitor monitor) {
+        final Maze maze = new MazeGeneratorFactory(new SeededRandomProvider(seed).getRandom(), threads)
+                .create(algo, dim).generateMaze(monitor);
+        maze.setSeed(seed);
+        return maze;
+    }
+
+    /**
+     * Берёт готовый лабиринт из пула {@link #getMazePool()}, без пула - генерирует.
+     *
+     * @param dim  размерность лабиринта
+     * @param algo алгоритм генерации
+     * @return лабиринт
+     */
+    public Maze takeMaze(@NotNull MazeDim dim, @NotNull MazeGeneratorFactory.Algo algo) {
+        return mazePool.take(dim, algo);
+    }
+
+    /**
+     * Берёт готовый лабиринт из пула, при промахе генерирует под наблюдением монитора.
+     *
+     * @param dim     размерность лабиринта
+     * @param algo    алгоритм генерации
+     * @param monitor монитор генерации при промахе
+     * @return лабиринт
+     * @throws java.util.concurrent.CancellationException если генерация отменена
+     */
+    public Maze takeMaze(@NotNull MazeDim dim, @NotNull MazeGeneratorFactory.Algo algo,
+            @NotNull GenerationMonitor monitor) {
+        return mazePool.take(dim, algo, monitor);
+    }
+
+    public MazePool getMazePool() {
+        return mazePool;
+    }
+
+    /**
+     * Устанавливает пул готовых лабиринтов. Старый пул закрывается.
+     *
+     * @param mazePool пул
+     */
+    public void setMazePool(@NotNull MazePool mazePool) {
+        final MazePool previous = this.mazePool;
+        this.mazePool = mazePool;
+        previous.close();
     }
 
     /**
@@ -96,8 +212,4 @@ public class MazeManager {
         final String filename = userMazeDir.resolve(mazeName + ".mzpack").toString();
         return SerializationHelper.loadMazeFromFile(filename);
     }
-
-    private static ThreadLocalRandom getLocalRandom() {
-        return ThreadLocalRandom.current();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+package com.temnenkov.mzctl.game;
+
+import com.temnenkov.mzctl.generation.CancellationToken;
+import com.temnenkov.mzctl.generation.GenerationMonitor;
+import com.temnenkov.mzctl.generation.MazeGeneratorFactory;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import com.temnenkov.mzctl.util.SeededRandomProvider;
+import com.temnenkov.mzctl.util.SimplePreconditions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пул заранее сгенерированных лабиринтов, отдельный для каждой пары (размерность, алгоритм).
+ *
+ * <p>Пул хранит только лабиринты видов, заранее заданных через {@link #prefill}: набор видов ограничен,
+ * и пул не растёт от случайных запросов. Лабиринт берётся из пула мгновенно. Когда в пуле остаётся
+ * не больше lowWatermark лабиринтов, фоновые потоки достраивают его до capacity. Если пул пуст или вид
+ * не задан, лабиринт строится в вызывающем потоке (промах). Пул ёмкостью 0 ничего не хранит и фоновых
+ * потоков не создаёт.</p>
+ */
+public class MazePool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MazePool.class);
+
+    private final int capacity;
+    private final int lowWatermark;
+    private final ConcurrentMap<Key, Shelf> shelves = new ConcurrentHashMap<>();
+    @Nullable
+    private final ExecutorService executor;
+    /**
+     * Отменяется при закрытии пула и останавливает фоновые генерации, которые уже идут
+     */
+    private final CancellationToken closed = new CancellationToken();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Создает пул.
+     *
+     * @param capacity     сколько готовых лабиринтов держать для каждой пары (размерность, алгоритм), 0 - без пула
+     * @param lowWatermark при каком остатке начинать достраивать, меньше capacity
+     * @param threads      количество фоновых потоков
+     */
+    public MazePool(int capacity, int lowWatermark, int threads) {
+        SimplePreconditions.checkArgument(capacity >= 0, "capacity must be non-negative");
+        SimplePreconditions.checkArgument(lowWatermark >= 0 && (capacity == 0 || lowWatermark < capacity),
+                "lowWatermark must be in [0, capacity)");
+        SimplePreconditions.checkArgument(threads > 0, "threads must be positive");
+        this.capacity = capacity;
+        this.lowWatermark = lowWatermark;
+        this.executor = capacity == 0 ? null : Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "maze-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Пул без запаса: каждый лабиринт строится в момент запроса
+     *
+     * @return пустой пул
+     */
+    public static @NotNull MazePool disabled() {
+        return new MazePool(0, 0, 1);
+    }
+
+    /**
+     * Берёт готовый лабиринт из пула или, если его нет, строит в вызывающем потоке.
+     * Лабиринты видов, не заданных через {@link #prefill}, всегда строятся в вызывающем потоке.
+     * Полученный лабиринт принадлежит вызывающему, пул его больше не отдаст.
+     *
+     * @param mazeDim размерность лабиринта
+     * @param algo    алгоритм генерации
+     * @return лабиринт
+     */
+    public @NotNull Maze take(@NotNull MazeDim mazeDim, @NotNull MazeGeneratorFactory.Algo algo) {
+        return take(mazeDim, algo, GenerationMonitor.none());
+    }
+
+    /**
+     * Берёт готовый лабиринт из пула или, если его нет, строит в вызывающем потоке под наблюдением монитора.
+     *
+     * @param mazeDim размерность лабиринта
+     * @param algo    алгоритм генерации
+     * @param monitor монитор генерации при промахе
+     * @return лабиринт
+     * @throws java.util.concurrent.CancellationException если генерация при промахе отменена
+     */
+    public @NotNull Maze take(@NotNull MazeDim mazeDim, @NotNull MazeGeneratorFactory.Algo algo,
+            @NotNull GenerationMonitor monitor) {
+        final Key key = new Key(mazeDim, algo);
+        final Shelf shelf = shelves.get(key);
+        if (shelf == null) {
+            misses.incrementAndGet();
+            return generate(mazeDim, algo, monitor);
+        }
+        final Maze maze = shelf.mazes.poll();
+        if (shelf.mazes.size() <= lowWatermark) {
+            scheduleRefill(key, shelf);
+        }
+        if (maze != null) {
+            hits.incrementAndGet();
+            return maze;
+        }
+        misses.incrementAndGet();
+        return generate(mazeDim, algo, monitor);
+    }
+
+    /**
+     * Добавляет в пул лабиринты заданного вида и сразу заполняет его, не дожидаясь первого запроса
+     *
+     * @param mazeDim размерность лабиринта
+     * @param algo    алгоритм генерации
+     */
+    public void prefill(@NotNull MazeDim mazeDim, @NotNull MazeGeneratorFactory.Algo algo) {
+        if (executor != null) {
+            final Key key = new Key(mazeDim, algo);
+            scheduleRefill(key, shelves.computeIfAbsent(key, k -> new Shelf()));
+        }
+    }
+
+    /**
+     * Счётчики пула
+     *
+     * @return попадания, промахи и количество готовых лабиринтов
+     */
+    public @NotNull Stats stats() {
+        final int ready = shelves.values().stream().mapToInt(shelf -> shelf.mazes.size()).sum();
+        return new Stats(hits.get(), misses.get(), ready);
+    }
+
+    /**
+     * Останавливает фоновые потоки и прерывает недостроенные лабиринты, не дожидаясь их
+     */
+    @Override
+    public void close() {
+        closed.cancel();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void scheduleRefill(@NotNull Key key, @NotNull Shelf shelf) {
+        if (!shelf.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> refill(key, shelf));
+        } catch (RejectedExecutionException e) {
+            // пул закрыт, достраивать некому
+            shelf.refilling.set(false);
+        }
+    }
+
+    private void refill(@NotNull Key key, @NotNull Shelf shelf) {
+        try {
+            while (shelf.mazes.size() < capacity && !Thread.currentThread().isInterrupted()) {
+                shelf.mazes.add(generate(key.mazeDim(), key.algo(), new GenerationMonitor(closed)));
+            }
+        } catch (CancellationException e) {
+            // пул закрыт
+            shelf.refilling.set(false);
+            return;
+        } catch (RuntimeException e) {
+            logger.error("Fail refill maze pool {}", key, e);
+            shelf.refilling.set(false);
+            return;
+        }
+        shelf.refilling.set(false);
+        // пока флаг был поднят, take мог опустошить пул и не запустить достройку
+        if (shelf.mazes.size() <= lowWatermark && !Thread.currentThread().isInterrupted()) {
+            scheduleRefill(key, shelf);
+        }
+    }
+
+    private static @NotNull Maze generate(@NotNull MazeDim mazeDim, @NotNull MazeGeneratorFactory.Algo algo,
+            @NotNull GenerationMonitor monitor) {
+        // у каждого лабиринта своё зерно, по нему лабиринт можно воспроизвести;
+        // лабиринты строятся в нескольких потоках пула и вызывающих, каждому достаточно одного
+        final SeededRandomProvider randomProvider = SeededRandomProvider.withRandomSeed();
+        final Maze maze = new MazeGeneratorFactory(randomProvider.getRandom(), 1).create(algo, mazeDim)
+                .generateMaze(monitor);
+        maze.setSeed(randomProvider.getSeed());
+        return maze;
+    }
+
+    /**
+     * Счётчики пула
+     *
+     * @param hits   сколько лабиринтов выдано из запаса
+     * @param misses сколько лабиринтов пришлось строить в момент запроса
+     * @param ready  сколько готовых лабиринтов в пуле сейчас
+     */
+    public record Stats(long hits, long misses, int ready) {
+        /**
+         * Доля попаданий
+         *
+         * @return от 0.0 до 1.0, 0.0 - если запросов не было
+         */
+        public double hitRate() {
+            final long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private record Key(@NotNull MazeDim mazeDim, @NotNull MazeGeneratorFactory.Algo algo) {
+    }
+
+    private static final class Shelf {
+        private final BlockingQueue<Maze> mazes = new LinkedBlockingQueue<>();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,154 @@
+package com.temnenkov.mzctl.game.batch;
+
+import com.temnenkov.mzctl.game.MazeManager;
+import com.temnenkov.mzctl.generation.CancellationToken;
+import com.temnenkov.mzctl.generation.GenerationMonitor;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.UserId;
+import com.temnenkov.mzctl.util.SimplePreconditions;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Пакетная генерация лабиринтов: задания раздаются фиксированному пулу потоков, каждый лабиринт
+ * сохраняется на диск в рабочем потоке сразу после построения и больше не держится в памяти.
+ *
+ * <p>В работе одновременно не больше двух заданий на поток, поэтому память не зависит от размера пакета.
+ * Ошибка в одном задании не останавливает пакет: она передаётся слушателю и учитывается в итогах.</p>
+ */
+public class BatchMazeGenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchMazeGenerationService.class);
+    private static final int TASKS_PER_THREAD = 2;
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(1);
+
+    private final MazeManager mazeManager;
+    private final int threads;
+
+    /**
+     * Создает сервис.
+     *
+     * @param mazeManager куда сохраняются лабиринты
+     * @param threads     количество рабочих потоков
+     */
+    public BatchMazeGenerationService(@NotNull MazeManager mazeManager, int threads) {
+        SimplePreconditions.checkArgument(threads > 0, "threads must be positive");
+        this.mazeManager = SimplePreconditions.checkNotNull(mazeManager, "mazeManager", ".ctor");
+        this.threads = threads;
+    }
+
+    /**
+     * Строит и сохраняет лабиринты пользователя по списку заданий. Возвращает управление, когда завершены все задания.
+     *
+     * @param userId   пользователь, в чьи лабиринты сохраняется пакет
+     * @param specs    задания
+     * @param listener слушатель хода генерации
+     * @return итоги пакета
+     * @throws IllegalStateException если поток прерван, незавершённые задания при этом отменяются
+     */
+    public @NotNull BatchStats generate(@NotNull UserId userId, @NotNull List<MazeSpec> specs,
+            @NotNull BatchProgressListener listener) {
+        return generate(userId, specs, listener, new CancellationToken());
+    }
+
+    /**
+     * Строит и сохраняет лабиринты пользователя по списку заданий с возможностью отмены. После отмены новые
+     * задания не начинаются, начатые прерываются и завершаются ошибкой {@link java.util.concurrent.CancellationException}.
+     * Возвращает управление, когда завершены все начатые задания.
+     *
+     * @param userId   пользователь, в чьи лабиринты сохраняется пакет
+     * @param specs    задания
+     * @param listener слушатель хода генерации
+     * @param token    признак отмены пакета
+     * @return итоги пакета
+     * @throws IllegalStateException если поток прерван, незавершённые задания при этом отменяются
+     */
+    public @NotNull BatchStats generate(@NotNull UserId userId, @NotNull List<MazeSpec> specs,
+            @NotNull BatchProgressListener listener, @NotNull CancellationToken token) {
+        SimplePreconditions.checkNotNull(userId, "userId", "generate");
+        SimplePreconditions.checkNotNull(specs, "specs", "generate");
+        SimplePreconditions.checkNotNull(listener, "listener", "generate");
+        SimplePreconditions.checkNotNull(token, "token", "generate");
+
+        final long start = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CompletionService<TaskResult> completionService = new ExecutorCompletionService<>(executor);
+            final int total = specs.size();
+            final int maxInFlight = threads * TASKS_PER_THREAD;
+            int submitted = 0;
+            int completed = 0;
+            int failed = 0;
+            long totalCells = 0;
+            while (completed < total) {
+                while (submitted < total && submitted - completed < maxInFlight && !token.isCancelled()) {
+                    final MazeSpec spec = specs.get(submitted++);
+                    completionService.submit(() -> generateAndSave(userId, spec, listener, token));
+                }
+                if (completed == submitted) {
+                    // пакет отменен, начатые задания завершены
+                    break;
+                }
+                final TaskResult result = takeResult(completionService);
+                completed++;
+                if (result.error() == null) {
+                    totalCells += result.cells();
+                } else {
+                    failed++;
+                    if (result.error() instanceof CancellationException) {
+                        logger.info("Maze generation cancelled {}", result.spec());
+                    } else {
+                        logger.error("Fail generate maze {}", result.spec(), result.error());
+                    }
+                }
+                listener.mazeCompleted(result.spec(), result.error(), completed, total);
+            }
+            final BatchStats stats = new BatchStats(total, completed - failed, failed, totalCells,
+                    System.nanoTime() - start);
+            logger.info("Batch generated: {}", stats);
+            return stats;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private @NotNull TaskResult generateAndSave(@NotNull UserId userId, @NotNull MazeSpec spec,
+            @NotNull BatchProgressListener listener, @NotNull CancellationToken token) {
+        try {
+            final GenerationMonitor monitor = new GenerationMonitor(token,
+                    progress -> listener.mazeProgress(spec, progress), PROGRESS_INTERVAL);
+            // параллельность - между лабиринтами пакета, каждый строится в своем рабочем потоке
+            final Maze maze = mazeManager.generateMaze(spec.mazeDim(), spec.algo(), spec.seed(), 1, monitor);
+            mazeManager.saveUserMaze(userId, spec.name(), maze);
+            return new TaskResult(spec, maze.totalCellCount(), null);
+        } catch (Exception e) {
+            return new TaskResult(spec, 0, e);
+        }
+    }
+
+    private static @NotNull TaskResult takeResult(@NotNull CompletionService<TaskResult> completionService) {
+        try {
+            return completionService.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch generation interrupted", e);
+        } catch (ExecutionException e) {
+            // исключения заданий перехватываются в generateAndSave, сюда доходят только Error
+            throw new IllegalStateException("Batch generation failed", e.getCause());
+        }
+    }
+
+    private record TaskResult(@NotNull MazeSpec spec, long cells, @Nullable Exception error) {
+    }
+}
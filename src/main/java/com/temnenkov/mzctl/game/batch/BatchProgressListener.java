@@ -0,0 +1,33 @@
+package com.temnenkov.mzctl.game.batch;
+
+import com.temnenkov.mzctl.generation.GenerationProgress;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Получатель сообщений о ходе пакетной генерации. О завершении заданий сообщается из одного потока - того,
+ * который запустил пакет, - по мере завершения (не в порядке списка). О ходе генерации отдельного
+ * лабиринта сообщается из рабочих потоков.
+ */
+@FunctionalInterface
+public interface BatchProgressListener {
+
+    /**
+     * Задание завершено.
+     *
+     * @param spec      задание
+     * @param error     ошибка, если лабиринт не удалось построить или сохранить, иначе null
+     * @param completed сколько заданий завершено, включая это
+     * @param total     всего заданий
+     */
+    void mazeCompleted(@NotNull MazeSpec spec, @Nullable Throwable error, int completed, int total);
+
+    /**
+     * Ход генерации лабиринта задания, не чаще раза в секунду на лабиринт. Вызывается из рабочего потока.
+     *
+     * @param spec     задание
+     * @param progress ход генерации
+     */
+    default void mazeProgress(@NotNull MazeSpec spec, @NotNull GenerationProgress progress) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.temnenkov.mzctl.game.batch;
+
+/**
+ * Итоги пакетной генерации.
+ *
+ * @param total        количество заданий; если пакет отменен, succeeded + failed может быть меньше
+ * @param succeeded    количество сохранённых лабиринтов
+ * @param failed       количество заданий, завершившихся ошибкой
+ * @param totalCells   общее количество комнат в сохранённых лабиринтах
+ * @param elapsedNanos время работы пакета
+ */
+public record BatchStats(int total, int succeeded, int failed, long totalCells, long elapsedNanos) {
+
+    /**
+     * Пропускная способность в лабиринтах
+     *
+     * @return сохранённых лабиринтов в секунду
+     */
+    public double mazesPerSecond() {
+        return perSecond(succeeded);
+    }
+
+    /**
+     * Пропускная способность в комнатах
+     *
+     * @return комнат в секунду
+     */
+    public double cellsPerSecond() {
+        return perSecond(totalCells);
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0 : count * 1_000_000_000.0 / elapsedNanos;
+    }
+}
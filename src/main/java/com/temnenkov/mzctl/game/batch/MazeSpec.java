@@ -0,0 +1,49 @@
+package com.temnenkov.mzctl.game.batch;
+
+import com.temnenkov.mzctl.generation.MazeGeneratorFactory;
+import com.temnenkov.mzctl.model.MazeDim;
+import com.temnenkov.mzctl.util.SimplePreconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Задание на генерацию одного лабиринта в пакете.
+ *
+ * @param name    имя лабиринта (имя файла без расширения)
+ * @param mazeDim размерность лабиринта
+ * @param algo    алгоритм генерации
+ * @param seed    зерно генератора случайных чисел, одно и то же зерно дает один и тот же лабиринт
+ */
+public record MazeSpec(@NotNull String name, @NotNull MazeDim mazeDim, @NotNull MazeGeneratorFactory.Algo algo,
+                       long seed) {
+
+    private static final String CTOR = ".ctor";
+
+    public MazeSpec {
+        SimplePreconditions.checkNotNull(name, "name", CTOR);
+        SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR);
+        SimplePreconditions.checkNotNull(algo, "algo", CTOR);
+        SimplePreconditions.checkArgument(!name.isBlank(), "Maze name must not be blank");
+    }
+
+    /**
+     * Разбирает задание из строки вида {@code level-001 20x30 WILSON 42}:
+     * имя, размеры через x, алгоритм, зерно.
+     *
+     * @param line строка задания
+     * @return задание
+     * @throws IllegalArgumentException если строка не в этом формате
+     */
+    public static @NotNull MazeSpec parse(@NotNull String line) {
+        final String[] parts = line.trim().split("\\s+");
+        SimplePreconditions.checkArgument(parts.length == 4, "Expected 'name dims algo seed', got: " + line);
+        try {
+            final int[] dimensions = Arrays.stream(parts[1].split("x")).mapToInt(Integer::parseInt).toArray();
+            return new MazeSpec(parts[0], MazeDim.of(dimensions), MazeGeneratorFactory.Algo.valueOf(parts[2]),
+                    Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid maze spec: " + line, e);
+        }
+    }
+}
@@ -8,7 +8,7 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public final class Facing {
 
@@ -196,7 +196,7 @@ public final class Facing {
 
 
     @NotNull
-    public static Facing randomFacing(@NotNull Random random) {
+    public static Facing randomFacing(@NotNull RandomGenerator random) {
         return DIRECTIONS[random.nextInt(DIRECTIONS.length)];
     }
 }
\ No newline at end of file
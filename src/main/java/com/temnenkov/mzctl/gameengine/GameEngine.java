@@ -1,11 +1,16 @@
 package com.temnenkov.mzctl.gameengine;
 
+import com.temnenkov.mzctl.generation.GenerationMonitor;
 import com.temnenkov.mzctl.generation.MazeGeneratorFactory;
 import com.temnenkov.mzctl.model.UserId;
 
 public interface GameEngine {
     void generateMaze(UserId userId, String mazeName, int width, int height, MazeGeneratorFactory.Algo algo);
+    void generateMaze(UserId userId, String mazeName, int width, int height, MazeGeneratorFactory.Algo algo, long seed);
+    void generateMaze(UserId userId, String mazeName, int width, int height, MazeGeneratorFactory.Algo algo, long seed,
+            GenerationMonitor monitor);
     void loadMaze(UserId userId, String mazeName);
+    void startNewGame(UserId userId, int width, int height, MazeGeneratorFactory.Algo algo);
     void moveForward(UserId userId);
     void turnLeft(UserId userId);
     void turnRight(UserId userId);
@@ -8,9 +8,11 @@ import com.temnenkov.mzctl.game.model.EnvironmentDescriber;
 import com.temnenkov.mzctl.game.model.Facing;
 import com.temnenkov.mzctl.game.model.PlayerSession;
 import com.temnenkov.mzctl.game.model.PlayerStateND;
+import com.temnenkov.mzctl.generation.GenerationMonitor;
 import com.temnenkov.mzctl.generation.MazeGeneratorFactory;
 import com.temnenkov.mzctl.model.Cell;
 import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.UserId;
 import com.temnenkov.mzctl.model.serialize.MazeSerializationException;
 import com.temnenkov.mzctl.visualization.MazeAsciiVisualizer;
@@ -35,7 +37,28 @@ public class GameEngineImpl implements GameEngine {
 
     @Override
     public void generateMaze(@NotNull UserId userId, String mazeName, int width, int height, MazeGeneratorFactory.Algo algo) {
-        Maze maze = context.getMazeManager().generateMaze2D(width, height, algo);
+        saveUserMaze(userId, mazeName, context.getMazeManager().generateMaze2D(width, height, algo));
+    }
+
+    @Override
+    public void generateMaze(@NotNull UserId userId, String mazeName, int width, int height,
+            MazeGeneratorFactory.Algo algo, long seed) {
+        saveUserMaze(userId, mazeName, context.getMazeManager().generateMaze2D(width, height, algo, seed));
+    }
+
+    /**
+     * Генерирует и сохраняет лабиринт под наблюдением монитора. Отмененный лабиринт не сохраняется.
+     *
+     * @throws java.util.concurrent.CancellationException если генерация отменена
+     */
+    @Override
+    public void generateMaze(@NotNull UserId userId, String mazeName, int width, int height,
+            MazeGeneratorFactory.Algo algo, long seed, @NotNull GenerationMonitor monitor) {
+        saveUserMaze(userId, mazeName,
+                context.getMazeManager().generateMaze(MazeDim.of(width, height), algo, seed, monitor));
+    }
+
+    private void saveUserMaze(@NotNull UserId userId, String mazeName, Maze maze) {
         try {
             context.getMazeManager().saveUserMaze(userId, mazeName, maze);
         } catch (IOException | MazeSerializationException e) {
@@ -47,16 +70,30 @@ public class GameEngineImpl implements GameEngine {
     public void loadMaze(@NotNull UserId userId, String mazeName) {
         try {
             final Maze maze = context.getMazeManager().loadUserMaze(userId, mazeName);
-            final PlayerStateND playerState = positionProvider.createPlayerPosition(maze);
-            final EnvironmentDescriber describer = describerFactory.create(maze);
-            final Role role = roleResolver.roleByUserId(userId);
-            PlayerSession playerSession = new PlayerSession(userId.getValue(), maze, describer, playerState, role, null);
-            context.createPlayerSession(playerSession);
+            createPlayerSession(userId, maze);
         } catch (IOException | MazeSerializationException e) {
             throw new MzCtlRecoverableException("Не удалось загрузить лабиринт '" + mazeName + "' для пользователя " + userId, e);
         }
     }
 
+    /**
+     * Начинает игру в новом лабиринте из пула готовых лабиринтов. Лабиринт не сохраняется в файлы
+     * пользователя, поэтому ни генерация (при попадании в пул), ни запись и чтение файла не задерживают ответ.
+     */
+    @Override
+    public void startNewGame(@NotNull UserId userId, int width, int height, MazeGeneratorFactory.Algo algo) {
+        final Maze maze = context.getMazeManager().takeMaze(MazeDim.of(width, height), algo);
+        createPlayerSession(userId, maze);
+    }
+
+    private void createPlayerSession(@NotNull UserId userId, @NotNull Maze maze) {
+        final PlayerStateND playerState = positionProvider.createPlayerPosition(maze);
+        final EnvironmentDescriber describer = describerFactory.create(maze);
+        final Role role = roleResolver.roleByUserId(userId);
+        PlayerSession playerSession = new PlayerSession(userId.getValue(), maze, describer, playerState, role, null);
+        context.createPlayerSession(playerSession);
+    }
+
     @Override
     public void moveForward(@NotNull UserId userId) {
         final PlayerSession session = context.getPlayerSession(userId);
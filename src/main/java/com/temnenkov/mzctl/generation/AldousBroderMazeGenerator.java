@@ -1,16 +1,12 @@
 package com.temnenkov.mzctl.generation;
 
-import com.temnenkov.mzctl.model.Cell;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.MazeFactory;
 import com.temnenkov.mzctl.util.SimplePreconditions;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
+import java.util.random.RandomGenerator;
 
 /**
  * Генератор лабиринтов по алгоритму Aldous-Broder.
@@ -21,9 +17,8 @@ public class AldousBroderMazeGenerator implements MazeGenerator {
     private static final String CTOR = ".ctor";
 
     private final Maze maze;
-    private final Random random;
+    private final RandomGenerator random;
     private boolean generated = false;
-    private final Set<Cell> visited = new HashSet<>();
 
     /**
      * Конструктор генератора Aldous-Broder.
@@ -31,31 +26,41 @@ public class AldousBroderMazeGenerator implements MazeGenerator {
      * @param mazeDim размерность лабиринта
      * @param random  источник случайности
      */
-    public AldousBroderMazeGenerator(@NotNull MazeDim mazeDim, @NotNull Random random) {
+    public AldousBroderMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
         this.maze = MazeFactory.createNotConnectedMaze(SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR));
         this.random = SimplePreconditions.checkNotNull(random, "random", CTOR);
     }
 
     @Override
-    public Maze generateMaze() {
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
         checkAlreadyGenerated();
 
         final int totalCells = maze.totalCellCount();
-        Cell currentCell = maze.getRandomCell(random);
-        visited.add(currentCell);
+        monitor.start(totalCells);
+        final boolean[] visited = new boolean[totalCells];
+        final int[] neighbors = new int[maze.getIndexSpace().directionCount()];
+        int currentCell = maze.getRandomIndex(random);
+        visited[currentCell] = true;
+        int visitedCount = 1;
+        monitor.cellCarved();
 
-        while (visited.size() < totalCells) {
-            final List<Cell> neighbors = maze.getAllNeighbors(currentCell).toList();
-            final Cell neighbor = neighbors.get(random.nextInt(neighbors.size()));
+        while (visitedCount < totalCells) {
+            final int neighborCount = maze.getAllNeighbors(currentCell, neighbors);
+            final int neighbor = neighbors[random.nextInt(neighborCount)];
 
-            if (!visited.contains(neighbor)) {
+            if (!visited[neighbor]) {
                 maze.addPass(currentCell, neighbor);
-                visited.add(neighbor);
+                visited[neighbor] = true;
+                visitedCount++;
+                monitor.cellCarved();
+            } else {
+                monitor.step();
             }
 
             currentCell = neighbor;
         }
 
+        monitor.finish();
         return maze;
     }
 
@@ -0,0 +1,118 @@
+package com.temnenkov.mzctl.generation;
+
+import com.temnenkov.mzctl.model.CellIndexSpace;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import com.temnenkov.mzctl.model.MazeFactory;
+import com.temnenkov.mzctl.util.SimplePreconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Гибрид Aldous-Broder и Уилсона: равномерно случайное остовное дерево без медленных фаз обоих алгоритмов.
+ *
+ * <p>Aldous-Broder быстро растит дерево, пока почти каждый шаг приходит в новую комнату, но долго добирает
+ * последние комнаты. Уилсон наоборот: пока дерево маленькое, блуждания длинные. Поэтому сначала идёт
+ * Aldous-Broder, пока дерево не покроет заданную долю комнат, а остальные комнаты присоединяются
+ * блужданиями Уилсона к уже построенному дереву. Распределение лабиринтов остаётся равномерным.</p>
+ *
+ * <p>Количество шагов блуждания в каждой фазе - {@link #stats()}.</p>
+ */
+public class AldousBroderWilsonMazeGenerator implements MazeGenerator {
+
+    /**
+     * Доля комнат, после которой генератор переходит к блужданиям Уилсона
+     */
+    public static final double DEFAULT_COVERAGE = 0.3;
+
+    private static final String CTOR = ".ctor";
+
+    private final Maze maze;
+    private final RandomGenerator random;
+    private final double coverage;
+    private boolean generated = false;
+    private long aldousBroderSteps;
+    private long wilsonSteps;
+
+    /**
+     * Шаги блуждания по фазам
+     *
+     * @param aldousBroderSteps шаги фазы Aldous-Broder
+     * @param wilsonSteps       шаги блужданий Уилсона
+     */
+    public record Stats(long aldousBroderSteps, long wilsonSteps) {
+        public long totalSteps() {
+            return aldousBroderSteps + wilsonSteps;
+        }
+    }
+
+    public AldousBroderWilsonMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
+        this(mazeDim, random, DEFAULT_COVERAGE);
+    }
+
+    /**
+     * Конструктор генератора.
+     *
+     * @param mazeDim  размерность лабиринта
+     * @param random   источник случайности
+     * @param coverage доля комнат (от 0 до 1), которую покрывает фаза Aldous-Broder;
+     *                 0 - чистый Уилсон, 1 - чистый Aldous-Broder
+     */
+    public AldousBroderWilsonMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random, double coverage) {
+        SimplePreconditions.checkArgument(coverage >= 0.0 && coverage <= 1.0, "coverage must be between 0 and 1");
+        this.maze = MazeFactory.createNotConnectedMaze(SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR));
+        this.random = SimplePreconditions.checkNotNull(random, "random", CTOR);
+        this.coverage = coverage;
+    }
+
+    @Override
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
+        checkAlreadyGenerated();
+
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int directionCount = indexSpace.directionCount();
+        final int totalCells = maze.totalCellCount();
+        final long[] inTree = new long[(totalCells + Long.SIZE - 1) / Long.SIZE];
+        final int switchOver = Math.max(1, (int) Math.ceil(coverage * totalCells));
+        monitor.start(totalCells);
+
+        int currentCell = maze.getRandomIndex(random);
+        WilsonMazeGenerator.markInTree(inTree, currentCell);
+        int treeSize = 1;
+        monitor.cellCarved();
+        while (treeSize < switchOver) {
+            final int neighbor = WilsonMazeGenerator.randomNeighbor(indexSpace, random, directionCount, currentCell);
+            if (!WilsonMazeGenerator.isInTree(inTree, neighbor)) {
+                maze.addPass(currentCell, neighbor);
+                WilsonMazeGenerator.markInTree(inTree, neighbor);
+                treeSize++;
+                monitor.cellCarved();
+            } else {
+                monitor.step();
+            }
+            currentCell = neighbor;
+            aldousBroderSteps++;
+        }
+
+        wilsonSteps = WilsonMazeGenerator.connectByLoopErasedWalks(maze, random, inTree, monitor);
+        monitor.finish();
+        return maze;
+    }
+
+    /**
+     * Шаги блуждания по фазам; до генерации - нули
+     *
+     * @return статистика генерации
+     */
+    public @NotNull Stats stats() {
+        return new Stats(aldousBroderSteps, wilsonSteps);
+    }
+
+    private void checkAlreadyGenerated() {
+        if (generated) {
+            throw new IllegalStateException("Maze already generated");
+        }
+        generated = true;
+    }
+}
@@ -1,50 +1,77 @@
 package com.temnenkov.mzctl.generation;
 
-import com.temnenkov.mzctl.model.Cell;
-import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.CellIndexSpace;
 import com.temnenkov.mzctl.model.MazeDim;
-import com.temnenkov.mzctl.model.MazeFactory;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Генератор лабиринта с использованием алгоритма Binary Tree.
  * Алгоритм очень прост: для каждой ячейки выбирает случайного соседа
  * в положительном направлении и делает проход.
+ *
+ * <p>Ячейки независимы, поэтому ряды строятся параллельно, см. {@link RowParallelMazeGenerator}.
+ * Когда у ячейки два варианта (обычный случай для 2D), на выбор тратится один бит случайного long.</p>
  */
-public class BinaryTreeMazeGenerator implements MazeGenerator  {
-    private final MazeDim mazeDim;
-    private final Random random;
+public class BinaryTreeMazeGenerator extends RowParallelMazeGenerator {
 
-    public BinaryTreeMazeGenerator(@NotNull MazeDim mazeDim, @NotNull Random random) {
-        this.mazeDim = mazeDim;
-        this.random = random;
+    public BinaryTreeMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
+        this(mazeDim, random, Runtime.getRuntime().availableProcessors());
     }
 
-    @Override
-    public Maze generateMaze() {
-       final Maze maze = MazeFactory.createNotConnectedMaze(mazeDim);
+    /**
+     * Конструктор генератора.
+     *
+     * @param mazeDim размерность лабиринта
+     * @param random  источник зёрен для потоков случайных чисел
+     * @param threads количество потоков; результат от него не зависит
+     */
+    public BinaryTreeMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random, int threads) {
+        super(mazeDim, random, threads);
+    }
 
-        for (Cell cell : maze) {
-            final List<Cell> neighbors = new ArrayList<>();
+    @Override
+    protected void carveRow(@NotNull CellIndexSpace indexSpace, int rowStart,
+            @NotNull SplittableRandom random, @NotNull PackedPasses carved) {
+        final int rowDim = indexSpace.dimensions() - 1;
+        final int rowLength = indexSpace.dimSize(rowDim);
+        final int alongRow = CellIndexSpace.direction(rowDim, true);
 
-            // проходим по измерениям и добавляем соседей в "положительном" направлении
-            for (int dim = 0; dim < mazeDim.size(); dim++) {
-                final Cell neighbor = cell.plusOne(dim);
-                if (maze.isValid(neighbor, dim)) {
-                    neighbors.add(neighbor);
-                }
+        // проходы в положительном направлении по остальным измерениям одинаковы для всего ряда
+        final int[] options = new int[indexSpace.dimensions()];
+        int crossCount = 0;
+        for (int dim = 0; dim < rowDim; dim++) {
+            if (indexSpace.coord(rowStart, dim) < indexSpace.dimSize(dim) - 1) {
+                options[crossCount++] = CellIndexSpace.direction(dim, true);
             }
+        }
 
-            if (!neighbors.isEmpty()) {
-                final Cell chosenNeighbor = neighbors.get(random.nextInt(neighbors.size()));
-                maze.addPass(cell, chosenNeighbor);
+        long bits = 0;
+        int bitsLeft = 0;
+        for (int position = 0; position < rowLength - 1; position++) {
+            final int direction;
+            if (crossCount == 1) {
+                if (bitsLeft == 0) {
+                    bits = random.nextLong();
+                    bitsLeft = Long.SIZE;
+                }
+                direction = (bits & 1) == 0 ? alongRow : options[0];
+                bits >>>= 1;
+                bitsLeft--;
+            } else if (crossCount == 0) {
+                direction = alongRow;
+            } else {
+                final int pick = random.nextInt(crossCount + 1);
+                direction = pick == crossCount ? alongRow : options[pick];
             }
+            carved.mark(rowStart + position, direction);
         }
 
-        return maze;
+        // последняя ячейка ряда может идти только поперек ряда
+        if (crossCount > 0) {
+            carved.mark(rowStart + rowLength - 1, options[random.nextInt(crossCount)]);
+        }
     }
 }
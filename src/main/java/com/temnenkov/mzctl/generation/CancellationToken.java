@@ -0,0 +1,34 @@
+package com.temnenkov.mzctl.generation;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Признак отмены генерации. Отменить можно из любого потока, генератор проверяет признак
+ * через {@link GenerationMonitor} и прерывает работу исключением {@link CancellationException}.
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * Отменить генерацию. Повторный вызов ничего не меняет.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Прервать работу, если генерация отменена.
+     *
+     * @throws CancellationException если генерация отменена
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Maze generation cancelled");
+        }
+    }
+}
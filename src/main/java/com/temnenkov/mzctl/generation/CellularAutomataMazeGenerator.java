@@ -1,7 +1,7 @@
 package com.temnenkov.mzctl.generation;
 
+import com.temnenkov.mzctl.model.BitSetCellularAutomataMaze;
 import com.temnenkov.mzctl.model.CellularAutomataMaze;
-import com.temnenkov.mzctl.model.CellularAutomataMazeImpl;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.util.SimpleMath;
 import com.temnenkov.mzctl.util.SimplePreconditions;
@@ -9,7 +9,8 @@ import com.temnenkov.mzctl.visualization.MazeVisualizer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Random;
+import java.util.concurrent.RecursiveAction;
+import java.util.random.RandomGenerator;
 
 public class CellularAutomataMazeGenerator {
 
@@ -18,11 +19,16 @@ public class CellularAutomataMazeGenerator {
     private final int iterations;
     private final double wallKeepThreshold;
     private final double emptyToWallThreshold;
-    private final Random random;
+    private final RandomGenerator random;
     private final MazeVisualizer visualizer;
+    private final int threads;
 
     private static final double DEFAULT_WALL_KEEP_THRESHOLD = 0.5;
     private static final double DEFAULT_EMPTY_TO_WALL_THRESHOLD = 0.625;
+    /**
+     * Размер участка (в клетках), который обрабатывается одной задачей при параллельном шаге. Кратен 64.
+     */
+    private static final int TILE_CELLS = 1 << 14;
 
     /**
      * Конструктор генератора лабиринтов на основе клеточных автоматов (с указанием всех параметров).
@@ -36,7 +42,28 @@ public class CellularAutomataMazeGenerator {
      */
     public CellularAutomataMazeGenerator(double fillProbability, int iterations,
             double wallKeepThreshold, double emptyToWallThreshold,
-            @NotNull Random random, @Nullable MazeVisualizer visualizer) {
+            @NotNull RandomGenerator random, @Nullable MazeVisualizer visualizer) {
+        this(fillProbability, iterations, wallKeepThreshold, emptyToWallThreshold, random, visualizer, 1);
+    }
+
+    /**
+     * Конструктор генератора лабиринтов на основе клеточных автоматов с параллельным шагом симуляции.
+     *
+     * <p>Случайна только начальная заливка, поэтому при одном и том же random результат не зависит
+     * от количества потоков.</p>
+     *
+     * @param fillProbability вероятность того, что клетка будет стеной при инициализации (обычно 0.4-0.45)
+     * @param iterations      количество итераций клеточного автомата (обычно 4-5)
+     * @param wallKeepThreshold порог для сохранения стены
+     * @param emptyToWallThreshold порог для превращения пустой клетки в стену
+     * @param random          генератор случайных чисел
+     * @param visualizer      опциональный визуализатор лабиринта (может быть null)
+     * @param threads         количество потоков для шага симуляции, 1 - без параллельности,
+     *                        больше 1 - на общем для генераторов пуле из стольких потоков
+     */
+    public CellularAutomataMazeGenerator(double fillProbability, int iterations,
+            double wallKeepThreshold, double emptyToWallThreshold,
+            @NotNull RandomGenerator random, @Nullable MazeVisualizer visualizer, int threads) {
         SimplePreconditions.checkState(fillProbability >= 0 && fillProbability <= 1,
                 "fillProbability must be in [0, 1]");
         SimplePreconditions.checkState(iterations > 0,
@@ -45,6 +72,8 @@ public class CellularAutomataMazeGenerator {
                 "wallKeepThreshold must be in [0, 1]");
         SimplePreconditions.checkState(emptyToWallThreshold >= 0 && emptyToWallThreshold <= 1,
                 "emptyToWallThreshold must be in [0, 1]");
+        SimplePreconditions.checkState(threads > 0,
+                "threads must be positive");
 
         this.fillProbability = fillProbability;
         this.iterations = iterations;
@@ -52,6 +81,7 @@ public class CellularAutomataMazeGenerator {
         this.emptyToWallThreshold = emptyToWallThreshold;
         this.random = SimplePreconditions.checkNotNull(random, "random", CTOR);
         this.visualizer = visualizer;
+        this.threads = threads;
     }
 
     /**
@@ -61,7 +91,7 @@ public class CellularAutomataMazeGenerator {
      * @param iterations      количество итераций клеточного автомата
      * @param random          генератор случайных чисел
      */
-    public CellularAutomataMazeGenerator(double fillProbability, int iterations, @NotNull Random random) {
+    public CellularAutomataMazeGenerator(double fillProbability, int iterations, @NotNull RandomGenerator random) {
         this(fillProbability, iterations,
                 DEFAULT_WALL_KEEP_THRESHOLD, DEFAULT_EMPTY_TO_WALL_THRESHOLD,
                 random, null);
@@ -70,52 +100,149 @@ public class CellularAutomataMazeGenerator {
     /**
      * Генерирует лабиринт с помощью клеточных автоматов.
      *
+     * <p>Поколения считаются в двух заранее выделенных битовых лабиринтах, которые меняются местами
+     * после каждого шага, так что память не растёт с числом итераций.</p>
+     *
      * @param dim размерность лабиринта
      * @return сгенерированный лабиринт
      */
     public CellularAutomataMaze generate(@NotNull MazeDim dim) {
+        return generate(dim, GenerationMonitor.none());
+    }
+
+    /**
+     * Генерирует лабиринт с помощью клеточных автоматов, сообщая о ходе генерации и проверяя отмену.
+     * Работа - клетки всех шагов симуляции, отмена проверяется после каждого участка {@link #TILE_CELLS}.
+     *
+     * @param dim     размерность лабиринта
+     * @param monitor монитор генерации
+     * @return сгенерированный лабиринт
+     * @throws java.util.concurrent.CancellationException если генерация отменена
+     */
+    public CellularAutomataMaze generate(@NotNull MazeDim dim, @NotNull GenerationMonitor monitor) {
         SimplePreconditions.checkNotNull(dim, "dim", "generate");
+        SimplePreconditions.checkNotNull(monitor, "monitor", "generate");
 
-        CellularAutomataMaze maze = new CellularAutomataMazeImpl(dim, random)
-                .initialize(fillProbability);
+        BitSetCellularAutomataMaze maze = new BitSetCellularAutomataMaze(dim, random);
+        monitor.start((long) maze.totalCells() * iterations);
+        maze.initialize(fillProbability);
 
         if (visualizer != null) {
             visualizer.visualize(maze, 0);
         }
 
+        final int totalNeighbors = SimpleMath.pow(3, dim.size()) - 1;
+        final boolean[] wallIfWall = thresholdTable(totalNeighbors, wallKeepThreshold);
+        final boolean[] wallIfEmpty = thresholdTable(totalNeighbors, emptyToWallThreshold);
+
+        BitSetCellularAutomataMaze nextMaze = new BitSetCellularAutomataMaze(dim, random);
         for (int i = 0; i < iterations; i++) {
-            maze = simulationStep(maze);
+            if (threads == 1) {
+                for (int from = 0; from < maze.totalCells(); from += TILE_CELLS) {
+                    final int to = (int) Math.min(maze.totalCells(), (long) from + TILE_CELLS);
+                    simulationStep(maze, nextMaze, wallIfWall, wallIfEmpty, from, to);
+                    monitor.cellsCarved(to - from);
+                }
+            } else {
+                ChunkTask.pool(threads).invoke(new SimulationStepTask(maze, nextMaze, wallIfWall, wallIfEmpty,
+                        0, maze.totalCells(), monitor));
+            }
+            final BitSetCellularAutomataMaze previous = maze;
+            maze = nextMaze;
+            nextMaze = previous;
 
             if (visualizer != null) {
                 visualizer.visualize(maze, i + 1);
             }
         }
 
+        monitor.finish();
         return maze;
     }
 
     /**
-     * Выполняет один шаг симуляции клеточного автомата.
+     * Таблица решений по количеству соседей-стен: станет ли клетка стеной.
      *
-     * @param maze текущий лабиринт
-     * @return лабиринт на следующем шаге
+     * @param totalNeighbors общее количество соседей клетки
+     * @param threshold      порог доли соседей-стен
+     * @return для каждого количества соседей-стен - true, если клетка будет стеной
      */
-    private @NotNull CellularAutomataMaze simulationStep(@NotNull CellularAutomataMaze maze) {
-        final CellularAutomataMaze nextMaze = new CellularAutomataMazeImpl(maze.getDimensions(), random);
+    private static boolean @NotNull [] thresholdTable(int totalNeighbors, double threshold) {
+        final boolean[] table = new boolean[totalNeighbors + 1];
+        for (int wallCount = 0; wallCount <= totalNeighbors; wallCount++) {
+            table[wallCount] = (double) wallCount / totalNeighbors >= threshold;
+        }
+        return table;
+    }
 
-        final int totalNeighbors = SimpleMath.pow(3, maze.getDimensions().size()) - 1;
+    /**
+     * Выполняет один шаг симуляции клеточного автомата для клеток с индексами из [from, to).
+     *
+     * @param maze        текущий лабиринт, только читается
+     * @param nextMaze    лабиринт для следующего шага, перезаписываются клетки из [from, to)
+     * @param wallIfWall  решение для клетки-стены по количеству соседей-стен
+     * @param wallIfEmpty решение для пустой клетки по количеству соседей-стен
+     * @param from        индекс первой клетки (включительно)
+     * @param to          индекс последней клетки (исключительно)
+     */
+    private static void simulationStep(@NotNull BitSetCellularAutomataMaze maze,
+            @NotNull BitSetCellularAutomataMaze nextMaze,
+            boolean @NotNull [] wallIfWall, boolean @NotNull [] wallIfEmpty, int from, int to) {
+        final int rowLength = maze.rowLength();
+        final int[] wallCounts = new int[rowLength];
+        int index = from;
+        while (index < to) {
+            // участок может начинаться и заканчиваться в середине ряда
+            final int rowStart = index - index % rowLength;
+            final int fromColumn = index - rowStart;
+            final int toColumn = Math.min(rowLength, to - rowStart);
+            maze.countWallNeighborsInRow(rowStart, fromColumn, toColumn, wallCounts);
+            for (int column = fromColumn; column < toColumn; column++) {
+                final int cell = rowStart + column;
+                final int wallCount = wallCounts[column];
+                nextMaze.setWallAt(cell, maze.isWallAt(cell) ? wallIfWall[wallCount] : wallIfEmpty[wallCount]);
+            }
+            index = rowStart + toColumn;
+        }
+    }
 
-        maze.stream().forEach(cell -> {
-            final int wallCount = maze.countWallNeighbors(cell);
-            final double wallRatio = (double) wallCount / totalNeighbors;
+    /**
+     * Шаг симуляции для участка клеток [from, to), делится пополам до размера {@link #TILE_CELLS}.
+     * Границы участков кратны 64, поэтому разные задачи пишут в разные слова nextMaze,
+     * а соседей за границей участка читают из неизменяемого на этом шаге maze.
+     */
+    private static final class SimulationStepTask extends RecursiveAction {
+        private final transient BitSetCellularAutomataMaze maze;
+        private final transient BitSetCellularAutomataMaze nextMaze;
+        private final boolean[] wallIfWall;
+        private final boolean[] wallIfEmpty;
+        private final int from;
+        private final int to;
+        private final transient GenerationMonitor monitor;
+
+        private SimulationStepTask(@NotNull BitSetCellularAutomataMaze maze,
+                @NotNull BitSetCellularAutomataMaze nextMaze,
+                boolean @NotNull [] wallIfWall, boolean @NotNull [] wallIfEmpty, int from, int to,
+                @NotNull GenerationMonitor monitor) {
+            this.maze = maze;
+            this.nextMaze = nextMaze;
+            this.wallIfWall = wallIfWall;
+            this.wallIfEmpty = wallIfEmpty;
+            this.from = from;
+            this.to = to;
+            this.monitor = monitor;
+        }
 
-            if (maze.isWall(cell)) {
-                nextMaze.setWall(wallRatio >= wallKeepThreshold, cell);
-            } else {
-                nextMaze.setWall(wallRatio >= emptyToWallThreshold, cell);
+        @Override
+        protected void compute() {
+            final int mid = (from + (to - from) / 2) & -Long.SIZE;
+            if (to - from <= TILE_CELLS || mid <= from) {
+                simulationStep(maze, nextMaze, wallIfWall, wallIfEmpty, from, to);
+                monitor.cellsCarved(to - from);
+                return;
             }
-        });
-
-        return nextMaze;
+            invokeAll(new SimulationStepTask(maze, nextMaze, wallIfWall, wallIfEmpty, from, mid, monitor),
+                    new SimulationStepTask(maze, nextMaze, wallIfWall, wallIfEmpty, mid, to, monitor));
+        }
     }
-}
\ No newline at end of file
+}
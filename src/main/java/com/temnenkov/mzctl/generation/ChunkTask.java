@@ -0,0 +1,77 @@
+package com.temnenkov.mzctl.generation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Обработка порций [from, to) на {@link ForkJoinPool}, делится пополам до одной порции
+ */
+final class ChunkTask extends RecursiveAction {
+
+    /**
+     * Действие над порциями [fromChunk, toChunk)
+     */
+    @FunctionalInterface
+    interface Action {
+        void run(int fromChunk, int toChunk);
+    }
+
+    /**
+     * Пулы по количеству потоков, общие для всех генераторов
+     */
+    private static final ConcurrentMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private final transient Action action;
+    private final int from;
+    private final int to;
+
+    ChunkTask(@NotNull Action action, int from, int to) {
+        this.action = action;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Пул ровно на threads потоков. Создается при первом запросе и дальше общий для всех генераторов
+     * с тем же количеством потоков, поэтому лабиринты, которые строятся одновременно, делят одни и те же потоки,
+     * а не заводят пул на каждый лабиринт. Потоки пула - демоны.
+     *
+     * @param threads количество потоков, больше 1
+     * @return пул
+     */
+    static @NotNull ForkJoinPool pool(int threads) {
+        return POOLS.computeIfAbsent(threads, ForkJoinPool::new);
+    }
+
+    /**
+     * Выполняет действие над порциями [0, chunkCount): в одном потоке по одной порции
+     * или на общем пуле {@link #pool(int)} из threads потоков.
+     *
+     * @param action     действие
+     * @param chunkCount количество порций
+     * @param threads    количество потоков, 1 - в вызывающем потоке
+     */
+    static void forEachChunk(@NotNull Action action, int chunkCount, int threads) {
+        if (threads == 1 || chunkCount <= 1) {
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                action.run(chunk, chunk + 1);
+            }
+            return;
+        }
+        pool(threads).invoke(new ChunkTask(action, 0, chunkCount));
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from == 1) {
+            action.run(from, to);
+            return;
+        }
+        final int mid = from + (to - from) / 2;
+        invokeAll(new ChunkTask(action, from, mid), new ChunkTask(action, mid, to));
+    }
+}
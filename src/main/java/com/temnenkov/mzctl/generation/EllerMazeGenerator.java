@@ -1,111 +1,195 @@
 package com.temnenkov.mzctl.generation;
 
-import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.model.CellIndexSpace;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.MazeFactory;
-import com.temnenkov.mzctl.util.DisjointSet;
+import com.temnenkov.mzctl.util.IntDisjointSet;
 import com.temnenkov.mzctl.util.SimplePreconditions;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
-
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Генератор по алгоритму Эллера. Лабиринт строится слой за слоем (слой - комнаты с одинаковой первой
+ * координатой), в памяти хранится только состояние текущего слоя.
+ *
+ * <p>Кроме обычной генерации {@link #generateMaze()} есть потоковая {@link #generateLayers(MazeLayerSink)}:
+ * готовые слои отдаются получателю и забываются, лабиринт целиком не создаётся. Так можно строить лабиринты
+ * с миллионами слоёв в памяти, пропорциональной размеру одного слоя.</p>
+ */
 public class EllerMazeGenerator implements MazeGenerator {
 
     private static final String CTOR = ".ctor";
     private static final Logger log = LoggerFactory.getLogger(EllerMazeGenerator.class);
 
-    private final Maze maze;
-    private final Random random;
+    private final MazeDim mazeDim;
+    private final RandomGenerator random;
+    private final int layers;
+    private final int layerSize;
+    /**
+     * Размеры слоя и шаги индекса в слое по измерениям; измерение 0 - между слоями, не используется
+     */
+    private final int[] layerDimSizes;
+    private final int[] layerStrides;
     private boolean generated = false;
 
-    public EllerMazeGenerator(@NotNull MazeDim mazeDim, @NotNull Random random) {
-        this.maze = MazeFactory.createNotConnectedMaze(SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR));
+    public EllerMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
+        this.mazeDim = SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR);
         this.random = SimplePreconditions.checkNotNull(random, "random", CTOR);
+        SimplePreconditions.checkArgument(mazeDim.size() <= Integer.SIZE, "Maze dimension count must not exceed " + Integer.SIZE);
+        this.layers = mazeDim.dimSize(0);
+        this.layerDimSizes = new int[mazeDim.size()];
+        this.layerStrides = new int[mazeDim.size()];
+        int stride = 1;
+        for (int dim = mazeDim.size() - 1; dim >= 1; dim--) {
+            layerDimSizes[dim] = mazeDim.dimSize(dim);
+            layerStrides[dim] = stride;
+            stride = Math.multiplyExact(stride, layerDimSizes[dim]);
+        }
+        this.layerSize = stride;
     }
 
     @Override
-    public Maze generateMaze() {
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
         checkAlreadyGenerated();
+        final Maze maze = MazeFactory.createNotConnectedMaze(mazeDim);
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        emitLayers(monitor, (layer, passMasks) -> {
+            final int layerStart = layer * layerSize;
+            for (int position = 0; position < layerSize; position++) {
+                final int cell = layerStart + position;
+                for (int mask = passMasks[position]; mask != 0; mask &= mask - 1) {
+                    final int dim = Integer.numberOfTrailingZeros(mask);
+                    maze.addPass(cell, cell + indexSpace.stride(dim));
+                }
+            }
+        });
+        return maze;
+    }
 
-        final int layers = maze.getMazeDimension().dimSize(0);
-        final List<Integer> dims = maze.getMazeDimension().dimensions();
+    /**
+     * Потоковая генерация: каждый готовый слой отдаётся получателю, начиная с нулевого.
+     * Можно вызвать только один раз и только вместо {@link #generateMaze()}.
+     *
+     * @param sink получатель слоёв
+     */
+    public void generateLayers(@NotNull MazeLayerSink sink) {
+        generateLayers(sink, GenerationMonitor.none());
+    }
+
+    /**
+     * Потоковая генерация с сообщениями о ходе и отменой; отмена проверяется после каждого слоя.
+     *
+     * @param sink    получатель слоёв
+     * @param monitor монитор генерации
+     */
+    public void generateLayers(@NotNull MazeLayerSink sink, @NotNull GenerationMonitor monitor) {
+        SimplePreconditions.checkNotNull(sink, "sink", "generateLayers");
+        SimplePreconditions.checkNotNull(monitor, "monitor", "generateLayers");
+        checkAlreadyGenerated();
+        emitLayers(monitor, sink);
+    }
 
-        DisjointSet<Cell> disjointSet = new DisjointSet<>();
+    private void emitLayers(@NotNull GenerationMonitor monitor, @NotNull MazeLayerSink sink) {
+        monitor.start((long) layers * layerSize);
+        final int[] passMasks = new int[layerSize];
+        // множество каждой комнаты предыдущего слоя (корень в его системе множеств)
+        final int[] previousSets = new int[layerSize];
+        // первая комната текущего слоя, спустившаяся из множества предыдущего слоя
+        final int[] firstFromSet = new int[layerSize];
+        // пары (множество, комната) текущего слоя, чтобы сгруппировать комнаты по множествам
+        final long[] setAndCell = new long[layerSize];
+        final IntDisjointSet disjointSet = new IntDisjointSet(layerSize);
 
         for (int layer = 0; layer < layers; layer++) {
-            final int finalLayer = layer;
-            final List<Cell> currentLayerCells = maze.stream()
-                    .filter(cell -> cell.getCoordinates()[0] == finalLayer)
-                    .toList();
-
-            // Добавляем ячейки текущего слоя в disjointSet (если еще не добавлены)
-            currentLayerCells.forEach(cell -> {
-                if (!disjointSet.contains(cell)) {
-                    disjointSet.makeSet(cell);
+            final boolean lastLayer = layer == layers - 1;
+            disjointSet.reset();
+
+            // Комнаты, соединённые с предыдущим слоем, остаются в его множествах
+            if (layer > 0) {
+                Arrays.fill(firstFromSet, -1);
+                for (int position = 0; position < layerSize; position++) {
+                    if ((passMasks[position] & 1) != 0) {
+                        final int set = previousSets[position];
+                        if (firstFromSet[set] < 0) {
+                            firstFromSet[set] = position;
+                        } else {
+                            disjointSet.union(firstFromSet[set], position);
+                        }
+                    }
                 }
-            });
+            }
+            Arrays.fill(passMasks, 0);
 
             // Горизонтальные соединения текущего слоя
-            for (Cell cell : currentLayerCells) {
-                for (int dim = 1; dim < dims.size(); dim++) {
-                    final Cell neighbor = cell.plusOne(dim);
-                    if (contains(neighbor)
-                            && !disjointSet.find(cell).equals(disjointSet.find(neighbor))
-                            && (layer == layers - 1 || random.nextBoolean())) {
-                        maze.addPass(cell, neighbor);
-                        disjointSet.union(cell, neighbor);
-                        log.trace("Горизонтальное соединение слоя {}: {} <-> {}", layer, cell, neighbor);
+            for (int position = 0; position < layerSize; position++) {
+                for (int dim = 1; dim < layerDimSizes.length; dim++) {
+                    final int stride = layerStrides[dim];
+                    if ((position / stride) % layerDimSizes[dim] == layerDimSizes[dim] - 1) {
+                        continue;
+                    }
+                    final int neighbor = position + stride;
+                    if (!disjointSet.sameSet(position, neighbor) && (lastLayer || random.nextBoolean())) {
+                        passMasks[position] |= 1 << dim;
+                        disjointSet.union(position, neighbor);
+                        log.trace("Горизонтальное соединение слоя {}: {} <-> {}", layer, position, neighbor);
                     }
                 }
             }
 
-            if (layer == layers - 1) {
-                break; // последний слой, вертикальные соединения вниз не нужны
-            }
-
-            // Вертикальные соединения вниз
-            final Map<Cell, List<Cell>> sets = new HashMap<>();
-            for (Cell cell : currentLayerCells) {
-                final Cell setId = disjointSet.find(cell);
-                sets.computeIfAbsent(setId, k -> new ArrayList<>()).add(cell);
-            }
-
-            for (List<Cell> setCells : sets.values()) {
-                Collections.shuffle(setCells, random);
-                int connections = 1 + random.nextInt(setCells.size()); // хотя бы одно соединение вниз
-                for (int i = 0; i < connections; i++) {
-                    Cell cell = setCells.get(i);
-                    Cell belowCell = cell.plusOne(0);
-                    if (contains(belowCell)) {
-                        if (!disjointSet.contains(belowCell)) {
-                            disjointSet.makeSet(belowCell);
-                        }
-                        maze.addPass(cell, belowCell);
-                        disjointSet.union(cell, belowCell);
-                        log.trace("Вертикальное соединение слоя {} вниз: {} <-> {}", layer, cell, belowCell);
+            // Вертикальные соединения вниз, последний слой соединять некуда
+            if (!lastLayer) {
+                for (int position = 0; position < layerSize; position++) {
+                    previousSets[position] = disjointSet.find(position);
+                    setAndCell[position] = ((long) previousSets[position] << 32) | position;
+                }
+                Arrays.sort(setAndCell);
+
+                int groupStart = 0;
+                while (groupStart < layerSize) {
+                    final int setId = (int) (setAndCell[groupStart] >>> 32);
+                    int groupEnd = groupStart + 1;
+                    while (groupEnd < layerSize && (int) (setAndCell[groupEnd] >>> 32) == setId) {
+                        groupEnd++;
                     }
+                    connectDown(setAndCell, groupStart, groupEnd, passMasks, layer);
+                    groupStart = groupEnd;
                 }
             }
-        }
 
-        return maze;
+            sink.acceptLayer(layer, passMasks);
+            monitor.cellsCarved(layerSize);
+        }
+        monitor.finish();
     }
 
-    private boolean contains(@NotNull Cell cell) {
-        for (int dim = 0; dim < maze.getMazeDimension().size(); dim++) {
-            if (!maze.isValid(cell, dim)) {
-                return false;
-            }
+    /**
+     * Соединяет вниз случайные комнаты одного множества, хотя бы одну
+     *
+     * @param setAndCell пары (множество, комната), комнаты множества лежат в [from, to)
+     * @param from       начало множества
+     * @param to         конец множества
+     * @param passMasks  маски проходов слоя, сюда отмечаются проходы вниз
+     * @param layer      номер текущего слоя (для лога)
+     */
+    private void connectDown(long @NotNull [] setAndCell, int from, int to, int @NotNull [] passMasks, int layer) {
+        final int size = to - from;
+        final int connections = 1 + random.nextInt(size); // хотя бы одно соединение вниз
+        // частичная перетасовка Фишера-Йетса: первые connections комнат - случайные
+        for (int i = 0; i < connections; i++) {
+            final int j = i + random.nextInt(size - i);
+            final long tmp = setAndCell[from + i];
+            setAndCell[from + i] = setAndCell[from + j];
+            setAndCell[from + j] = tmp;
+
+            final int position = (int) setAndCell[from + i];
+            passMasks[position] |= 1;
+            log.trace("Вертикальное соединение слоя {} вниз: {}", layer, position);
         }
-        return true;
     }
 
     private void checkAlreadyGenerated() {
@@ -114,4 +198,4 @@ public class EllerMazeGenerator implements MazeGenerator {
         }
         generated = true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.temnenkov.mzctl.generation;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Получатель сведений о ходе генерации лабиринта, см. {@link GenerationMonitor}.
+ *
+ * <p>Вызывается из потока генерации (у параллельных генераторов - из любого из них, но не одновременно),
+ * поэтому должен работать быстро и не бросать исключений.</p>
+ */
+@FunctionalInterface
+public interface GenerationListener {
+
+    /**
+     * Принять сведения о ходе генерации.
+     *
+     * @param progress сколько сделано к этому моменту
+     */
+    void onProgress(@NotNull GenerationProgress progress);
+}
@@ -0,0 +1,159 @@
+package com.temnenkov.mzctl.generation;
+
+import com.temnenkov.mzctl.util.SimplePreconditions;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Наблюдение за одной генерацией лабиринта: отмена через {@link CancellationToken} и сообщения
+ * о ходе генерации {@link GenerationListener} не чаще, чем раз в заданный интервал.
+ *
+ * <p>Генератор сообщает монитору о каждой присоединенной комнате ({@link #cellCarved()}) и о шагах,
+ * которые ничего не присоединяют ({@link #step()}), - это дешевые счетчики потока генерации. Раз в
+ * {@link #CHECK_INTERVAL} вызовов монитор проверяет отмену и время следующего сообщения. Параллельные
+ * генераторы сообщают о сделанном порциями через потокобезопасный {@link #cellsCarved(long)}.</p>
+ *
+ * <p>Монитор рассчитан на одну генерацию.</p>
+ */
+public final class GenerationMonitor {
+
+    /**
+     * Через столько вызовов {@link #cellCarved()} и {@link #step()} проверяется отмена
+     */
+    static final int CHECK_INTERVAL = 1 << 12;
+
+    private final CancellationToken token;
+    private final GenerationListener listener;
+    private final long throttleNanos;
+    private final AtomicLong carved = new AtomicLong();
+    private long totalCells;
+    private long startNanos;
+    private volatile long lastReportNanos;
+    /**
+     * Счетчики потока генерации, в {@link #carved} переносятся раз в {@link #CHECK_INTERVAL} вызовов
+     */
+    private long pendingCells;
+    private int steps;
+
+    /**
+     * Создает монитор.
+     *
+     * @param token    признак отмены
+     * @param listener получатель сообщений о ходе генерации
+     * @param throttle наименьший интервал между сообщениями
+     */
+    public GenerationMonitor(@NotNull CancellationToken token, @NotNull GenerationListener listener,
+            @NotNull Duration throttle) {
+        this.token = SimplePreconditions.checkNotNull(token, "token", ".ctor");
+        this.listener = SimplePreconditions.checkNotNull(listener, "listener", ".ctor");
+        SimplePreconditions.checkNotNull(throttle, "throttle", ".ctor");
+        SimplePreconditions.checkArgument(!throttle.isNegative(), "throttle must not be negative");
+        this.throttleNanos = throttle.toNanos();
+    }
+
+    /**
+     * Создает монитор только с отменой, без сообщений о ходе генерации.
+     *
+     * @param token признак отмены
+     */
+    public GenerationMonitor(@NotNull CancellationToken token) {
+        this(token, progress -> { }, Duration.ofNanos(Long.MAX_VALUE));
+    }
+
+    /**
+     * Монитор генерации, которую никто не отменяет и не наблюдает.
+     *
+     * @return новый монитор
+     */
+    @Contract(" -> new")
+    public static @NotNull GenerationMonitor none() {
+        return new GenerationMonitor(new CancellationToken());
+    }
+
+    /**
+     * Монитор для генератора, который строит часть лабиринта по заданию этого: та же отмена,
+     * без сообщений о ходе генерации.
+     *
+     * @return новый монитор
+     */
+    @NotNull GenerationMonitor part() {
+        return new GenerationMonitor(token);
+    }
+
+    /**
+     * Начало генерации.
+     *
+     * @param totalCells сколько комнат в лабиринте
+     * @throws CancellationException если генерация уже отменена
+     */
+    void start(long totalCells) {
+        this.totalCells = totalCells;
+        this.startNanos = System.nanoTime();
+        this.lastReportNanos = startNanos;
+        token.throwIfCancelled();
+    }
+
+    /**
+     * Комната присоединена к лабиринту. Вызывать только из одного потока.
+     *
+     * @throws CancellationException если генерация отменена
+     */
+    void cellCarved() {
+        pendingCells++;
+        step();
+    }
+
+    /**
+     * Шаг генерации без присоединения комнат, например, шаг случайного блуждания.
+     * Вызывать только из одного потока.
+     *
+     * @throws CancellationException если генерация отменена
+     */
+    void step() {
+        if (++steps == CHECK_INTERVAL) {
+            steps = 0;
+            carved.addAndGet(pendingCells);
+            pendingCells = 0;
+            checkpoint();
+        }
+    }
+
+    /**
+     * Обработано еще count комнат. Можно вызывать из разных потоков.
+     *
+     * @throws CancellationException если генерация отменена
+     */
+    void cellsCarved(long count) {
+        carved.addAndGet(count);
+        checkpoint();
+    }
+
+    /**
+     * Конец генерации: последнее сообщение о ходе генерации отправляется без учета интервала
+     */
+    void finish() {
+        carved.addAndGet(pendingCells);
+        pendingCells = 0;
+        report(System.nanoTime(), true);
+    }
+
+    private void checkpoint() {
+        token.throwIfCancelled();
+        final long now = System.nanoTime();
+        if (now - lastReportNanos >= throttleNanos) {
+            report(now, false);
+        }
+    }
+
+    private synchronized void report(long now, boolean finished) {
+        if (!finished && now - lastReportNanos < throttleNanos) {
+            return;
+        }
+        lastReportNanos = now;
+        listener.onProgress(new GenerationProgress(carved.get(), totalCells, Duration.ofNanos(now - startNanos), finished));
+    }
+}
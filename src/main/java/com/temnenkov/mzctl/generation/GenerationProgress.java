@@ -0,0 +1,51 @@
+package com.temnenkov.mzctl.generation;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+
+/**
+ * Ход генерации лабиринта.
+ *
+ * @param cellsCarved сколько комнат уже обработано: присоединено к лабиринту или, у алгоритмов
+ *                    без роста дерева, разобрано
+ * @param totalCells  сколько комнат в лабиринте
+ * @param elapsed     время с начала генерации
+ * @param finished    true для последнего сообщения об успешно законченной генерации
+ */
+public record GenerationProgress(long cellsCarved, long totalCells, @NotNull Duration elapsed, boolean finished) {
+
+    /**
+     * Скорость генерации.
+     *
+     * @return комнат в секунду, 0 в самом начале
+     */
+    public double cellsPerSecond() {
+        final long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : cellsCarved * 1e9 / nanos;
+    }
+
+    /**
+     * Доля сделанной работы.
+     *
+     * @return число от 0 до 1
+     */
+    public double fraction() {
+        return totalCells == 0 ? 1 : Math.min(1.0, (double) cellsCarved / totalCells);
+    }
+
+    /**
+     * Оценка оставшегося времени при текущей средней скорости. Для алгоритмов со случайным
+     * блужданием (Aldous-Broder) скорость к концу падает, и оценка получается оптимистичной.
+     *
+     * @return оставшееся время или null, если скорость пока неизвестна
+     */
+    public @Nullable Duration eta() {
+        final double rate = cellsPerSecond();
+        if (rate == 0) {
+            return null;
+        }
+        return Duration.ofNanos((long) (Math.max(0, totalCells - cellsCarved) / rate * 1e9));
+    }
+}
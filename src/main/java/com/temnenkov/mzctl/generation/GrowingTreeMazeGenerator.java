@@ -1,25 +1,29 @@
 package com.temnenkov.mzctl.generation;
 
-import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.model.CellIndexSpace;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.MazeFactory;
-import com.temnenkov.mzctl.util.IndexedHashSet;
 import com.temnenkov.mzctl.util.SimplePreconditions;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
+import java.util.random.RandomGenerator;
 
 /**
  * Генератор лабиринтов, реализующий алгоритм Growing Tree.
  * Поддерживает различные стратегии выбора следующей ячейки.
+ *
+ * <p>Каждая комната попадает в список активных ровно один раз, поэтому список - массив int размером
+ * с лабиринт, а удаляется из него всегда только что выбранная ячейка. Для каждой стратегии выбор и удаление
+ * устроены по-своему: NEWEST - стек, OLDEST - очередь (голова только движется вперед), RANDOM - мешок
+ * с заменой удаленной ячейки последней, MIXED - список в порядке добавления с пустыми слотами
+ * и уплотнением, в котором доступны и последняя, и случайная ячейка. Посещённые комнаты - битовая маска,
+ * соседи вычисляются по шагам индекса {@link CellIndexSpace}.</p>
  */
 public class GrowingTreeMazeGenerator implements MazeGenerator {
 
     private static final String CTOR = ".ctor";
+    private static final int EMPTY = -1;
 
     /**
      * Стратегия выбора следующей ячейки из списка активных ячеек.
@@ -39,11 +43,21 @@ public class GrowingTreeMazeGenerator implements MazeGenerator {
     }
 
     private final Maze maze;
-    private final Random random;
+    private final CellIndexSpace indexSpace;
+    private final RandomGenerator random;
     private final Strategy strategy;
     private final double mixedProbability;
     private boolean generated = false;
-    private final Set<Cell> visited = new HashSet<>();
+    private final long[] visited;
+    private final int[] neighbors;
+
+    /**
+     * Активные ячейки: в слотах [head, tail), в режиме MIXED среди них бывают пустые слоты
+     */
+    private int[] activeCells;
+    private int head;
+    private int tail;
+    private int activeCount;
 
     /**
      * Конструктор генератора Growing Tree.
@@ -54,13 +68,16 @@ public class GrowingTreeMazeGenerator implements MazeGenerator {
      * @param mixedProbability вероятность выбора NEWEST в MIXED стратегии (от 0 до 1)
      */
     public GrowingTreeMazeGenerator(@NotNull MazeDim mazeDim,
-            @NotNull Random random,
+            @NotNull RandomGenerator random,
             @NotNull Strategy strategy,
             double mixedProbability) {
         this.maze = MazeFactory.createNotConnectedMaze(SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR));
+        this.indexSpace = maze.getIndexSpace();
         this.random = SimplePreconditions.checkNotNull(random, "random", CTOR);
         this.strategy = SimplePreconditions.checkNotNull(strategy, "strategy", CTOR);
         this.mixedProbability = mixedProbability;
+        this.visited = new long[(maze.totalCellCount() + Long.SIZE - 1) / Long.SIZE];
+        this.neighbors = new int[indexSpace.directionCount()];
 
         if (strategy == Strategy.MIXED) {
             SimplePreconditions.checkState(
@@ -72,33 +89,42 @@ public class GrowingTreeMazeGenerator implements MazeGenerator {
     /**
      * Генерирует лабиринт согласно выбранной стратегии.
      *
+     * @param monitor монитор генерации
      * @return сгенерированный лабиринт
      */
     @Override
-    public Maze generateMaze() {
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
         checkAlreadyGenerated();
+        monitor.start(maze.totalCellCount());
 
-        final IndexedHashSet<Cell> activeCells = new IndexedHashSet<>();
+        activeCells = new int[maze.totalCellCount()];
 
         // Начинаем с произвольной стартовой ячейки
-        final Cell start = maze.getRandomCell(random);
-        activeCells.add(start);
-        visited.add(start);
-
-        while (!activeCells.isEmpty()) {
-            final Cell current = selectNextCell(activeCells);
-            final List<Cell> unvisitedNeighbors = getUnvisitedNeighbors(current);
-
-            if (!unvisitedNeighbors.isEmpty()) {
-                final Cell neighbor = unvisitedNeighbors.get(random.nextInt(unvisitedNeighbors.size()));
+        final int start = maze.getRandomIndex(random);
+        RecursiveBacktracker.markVisited(visited, start);
+        addActive(start);
+        monitor.cellCarved();
+
+        while (activeCount > 0) {
+            final int slot = selectNextSlot();
+            final int current = activeCells[slot];
+            final int unvisitedCount =
+                    RecursiveBacktracker.collectUnvisitedNeighbors(indexSpace, visited, current, neighbors);
+
+            if (unvisitedCount > 0) {
+                final int neighbor = neighbors[random.nextInt(unvisitedCount)];
                 maze.addPass(current, neighbor);
-                visited.add(neighbor);
-                activeCells.add(neighbor);
+                RecursiveBacktracker.markVisited(visited, neighbor);
+                addActive(neighbor);
+                monitor.cellCarved();
             } else {
-                activeCells.remove(current);
+                removeActive(slot);
+                monitor.step();
             }
         }
 
+        activeCells = null;
+        monitor.finish();
         return maze;
     }
 
@@ -113,32 +139,76 @@ public class GrowingTreeMazeGenerator implements MazeGenerator {
         generated = true;
     }
 
+    private void addActive(int cell) {
+        activeCells[tail++] = cell;
+        activeCount++;
+    }
+
     /**
-     * Выбирает следующую ячейку из активного набора согласно текущей стратегии.
+     * Выбирает слот следующей ячейки из активных согласно текущей стратегии.
      *
-     * @param activeCells активный набор ячеек
-     * @return выбранная ячейка
+     * @return слот выбранной ячейки
      */
-    private Cell selectNextCell(@NotNull IndexedHashSet<Cell> activeCells) {
+    private int selectNextSlot() {
         return switch (strategy) {
-            case NEWEST -> activeCells.getLast();
-            case OLDEST -> activeCells.getFirst();
-            case RANDOM -> activeCells.getRandom(random);
+            case NEWEST -> tail - 1;
+            case OLDEST -> head;
+            case RANDOM -> random.nextInt(tail);
             case MIXED -> random.nextDouble() < mixedProbability
-                    ? activeCells.getLast()
-                    : activeCells.getRandom(random);
+                    ? tail - 1
+                    : randomOccupiedSlot();
         };
     }
 
     /**
-     * Возвращает список непосещённых соседей для данной ячейки.
+     * Случайный непустой слот: пустых слотов не больше, чем ячеек, поэтому в среднем хватает двух попыток
+     */
+    private int randomOccupiedSlot() {
+        while (true) {
+            final int slot = head + random.nextInt(tail - head);
+            if (activeCells[slot] != EMPTY) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Удаляет выбранную ячейку из активных.
      *
-     * @param cell текущая ячейка
-     * @return список непосещённых соседей
+     * @param slot слот, возвращенный {@link #selectNextSlot()}
+     */
+    private void removeActive(int slot) {
+        activeCount--;
+        switch (strategy) {
+            case NEWEST -> tail--;
+            case OLDEST -> head++;
+            case RANDOM -> activeCells[slot] = activeCells[--tail];
+            case MIXED -> {
+                activeCells[slot] = EMPTY;
+                while (head < tail && activeCells[head] == EMPTY) {
+                    head++;
+                }
+                while (tail > head && activeCells[tail - 1] == EMPTY) {
+                    tail--;
+                }
+                if (tail - head > 2 * activeCount) {
+                    compactActive();
+                }
+            }
+        }
+    }
+
+    /**
+     * Сдвигает активные ячейки в начало массива, выбрасывая пустые слоты. Порядок ячеек сохраняется.
      */
-    private List<Cell> getUnvisitedNeighbors(@NotNull Cell cell) {
-        return maze.getAllNeighbors(cell)
-                .filter(c -> !visited.contains(c))
-                .toList();
+    private void compactActive() {
+        int target = 0;
+        for (int slot = head; slot < tail; slot++) {
+            if (activeCells[slot] != EMPTY) {
+                activeCells[target++] = activeCells[slot];
+            }
+        }
+        head = 0;
+        tail = target;
     }
-}
\ No newline at end of file
+}
@@ -1,52 +1,85 @@
 package com.temnenkov.mzctl.generation;
 
-import com.temnenkov.mzctl.model.Cell;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.MazeFactory;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Optional;
-import java.util.Random;
-import java.util.Set;
+import java.util.random.RandomGenerator;
 
+/**
+ * Генератор лабиринта по алгоритму Hunt-and-Kill.
+ *
+ * <p>Охота берёт непосещённую комнату с наименьшим индексом среди тех, у кого есть посещённый сосед.
+ * Такие комнаты (граница) хранятся битовой маской с двухуровневой сводкой: бит сводки - есть ли граница
+ * в слове маски. Курсор {@link #firstUnvisitedWord} только растёт: всё до него уже посещено. Поэтому охота
+ * не пересматривает лабиринт с начала и генерация почти линейна.</p>
+ */
 public class HuntAndKillMazeGenerator implements MazeGenerator {
 
     private final Maze maze;
-    private final Random random;
-    private final Set<Cell> visited = new HashSet<>();
+    private final RandomGenerator random;
+    private final boolean[] visited;
+    private final int[] neighbors;
+    /**
+     * Непосещённые комнаты, у которых есть посещённый сосед
+     */
+    private final long[] frontier;
+    /**
+     * Бит w - в слове frontier[w] есть комнаты
+     */
+    private final long[] frontierSummary;
+    /**
+     * Количество посещённых комнат в каждой группе из 64 комнат (слове frontier)
+     */
+    private final int[] visitedWords;
+    /**
+     * Все группы до этой посещены полностью
+     */
+    private int firstUnvisitedWord = 0;
+    private final int[] adjacent;
+    private int visitedCount = 0;
     private boolean generated = false;
 
-    public HuntAndKillMazeGenerator(@NotNull MazeDim mazeDim, @NotNull Random random) {
+    public HuntAndKillMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
         this.maze = MazeFactory.createNotConnectedMaze(mazeDim);
         this.random = random;
+        this.visited = new boolean[maze.totalCellCount()];
+        this.neighbors = new int[maze.getIndexSpace().directionCount()];
+        this.adjacent = new int[maze.getIndexSpace().directionCount()];
+        final int words = (maze.totalCellCount() + Long.SIZE - 1) / Long.SIZE;
+        this.frontier = new long[words];
+        this.frontierSummary = new long[(words + Long.SIZE - 1) / Long.SIZE];
+        this.visitedWords = new int[words];
     }
 
     @Override
-    public Maze generateMaze() {
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
         if (generated) {
             throw new IllegalStateException("Maze already generated");
         }
         generated = true;
 
-        Cell current = maze.getRandomCell(random);
-        visited.add(current);
+        monitor.start(maze.totalCellCount());
+        int current = maze.getRandomIndex(random);
+        visit(current);
+        monitor.cellCarved();
 
-        while (visited.size() < maze.totalCellCount()) {
+        while (visitedCount < maze.totalCellCount()) {
             // Kill phase
-            final List<Cell> unvisitedNeighbors = unvisitedNeighbors(current);
-            if (!unvisitedNeighbors.isEmpty()) {
-                final Cell neighbor = unvisitedNeighbors.get(random.nextInt(unvisitedNeighbors.size()));
+            final int unvisitedCount = collectNeighbors(current, false);
+            if (unvisitedCount > 0) {
+                final int neighbor = neighbors[random.nextInt(unvisitedCount)];
                 maze.addPass(current, neighbor);
-                visited.add(neighbor);
+                visit(neighbor);
+                monitor.cellCarved();
                 current = neighbor;
             } else {
                 // Hunt phase
-                Optional<Cell> nextCell = hunt();
-                if (nextCell.isPresent()) {
-                    current = nextCell.get();
+                final int nextCell = hunt();
+                if (nextCell >= 0) {
+                    monitor.cellCarved();
+                    current = nextCell;
                 } else {
                     // Все ячейки посещены
                     break;
@@ -54,41 +87,79 @@ public class HuntAndKillMazeGenerator implements MazeGenerator {
             }
         }
 
+        monitor.finish();
         return maze;
     }
 
+    private void visit(int cell) {
+        visited[cell] = true;
+        visitedCount++;
+        visitedWords[cell >>> 6]++;
+        removeFromFrontier(cell);
+        final int count = maze.getAllNeighbors(cell, adjacent);
+        for (int i = 0; i < count; i++) {
+            if (!visited[adjacent[i]]) {
+                addToFrontier(adjacent[i]);
+            }
+        }
+    }
+
+    private void addToFrontier(int cell) {
+        final int word = cell >>> 6;
+        frontier[word] |= 1L << cell;
+        frontierSummary[word >>> 6] |= 1L << word;
+    }
+
+    private void removeFromFrontier(int cell) {
+        final int word = cell >>> 6;
+        frontier[word] &= ~(1L << cell);
+        if (frontier[word] == 0) {
+            frontierSummary[word >>> 6] &= ~(1L << word);
+        }
+    }
+
     /**
-     * Возвращает список непосещенных соседей указанной ячейки.
+     * Собирает в начало буфера neighbors посещенных или непосещенных соседей указанной ячейки.
      *
-     * @param cell текущая ячейка
-     * @return список непосещенных соседей
+     * @param cell    индекс текущей ячейки
+     * @param wantVisited true - собрать посещенных соседей, false - непосещенных
+     * @return количество собранных соседей
      */
-    private List<Cell> unvisitedNeighbors(Cell cell) {
-        return maze.getAllNeighbors(cell)
-                .filter(neighbor -> !visited.contains(neighbor))
-                .toList();
+    private int collectNeighbors(int cell, boolean wantVisited) {
+        final int count = maze.getAllNeighbors(cell, neighbors);
+        int collected = 0;
+        for (int i = 0; i < count; i++) {
+            if (visited[neighbors[i]] == wantVisited) {
+                neighbors[collected++] = neighbors[i];
+            }
+        }
+        return collected;
     }
 
     /**
      * Выполняет фазу "охоты" — ищет непосещенную ячейку, у которой есть хотя бы один посещенный сосед,
      * и соединяет ее с этим соседом.
      *
-     * @return найденную ячейку, если такая есть, иначе Optional.empty()
+     * @return индекс найденной ячейки, если такая есть, иначе -1
      */
-    private Optional<Cell> hunt() {
-        // Ищем первую непосещенную ячейку с посещенным соседом
-        return maze.stream()
-                .filter(cell -> !visited.contains(cell))
-                .filter(cell -> maze.getAllNeighbors(cell).anyMatch(visited::contains))
-                .findAny()
-                .map(cell -> {
-                    final List<Cell> visitedNeighbors = maze.getAllNeighbors(cell)
-                            .filter(visited::contains)
-                            .toList();
-                    final Cell neighbor = visitedNeighbors.get(random.nextInt(visitedNeighbors.size()));
-                    maze.addPass(cell, neighbor);
-                    visited.add(cell);
-                    return cell;
-                });
+    private int hunt() {
+        // комнаты в полностью посещённых словах нас уже не интересуют
+        while (firstUnvisitedWord < visitedWords.length
+                && visitedWords[firstUnvisitedWord] == Math.min(Long.SIZE, visited.length - firstUnvisitedWord * Long.SIZE)) {
+            firstUnvisitedWord++;
+        }
+        // первая комната границы - в первом непустом слове по сводке
+        for (int summaryWord = firstUnvisitedWord >>> 6; summaryWord < frontierSummary.length; summaryWord++) {
+            if (frontierSummary[summaryWord] != 0) {
+                final int word = (summaryWord << 6) + Long.numberOfTrailingZeros(frontierSummary[summaryWord]);
+                final int cell = (word << 6) + Long.numberOfTrailingZeros(frontier[word]);
+                final int visitedNeighborCount = collectNeighbors(cell, true);
+                final int neighbor = neighbors[random.nextInt(visitedNeighborCount)];
+                maze.addPass(cell, neighbor);
+                visit(cell);
+                return cell;
+            }
+        }
+        return -1;
     }
-}
\ No newline at end of file
+}
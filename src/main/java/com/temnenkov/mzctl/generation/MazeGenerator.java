@@ -1,7 +1,23 @@
 package com.temnenkov.mzctl.generation;
 
 import com.temnenkov.mzctl.model.Maze;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CancellationException;
 
 public interface MazeGenerator {
-    Maze generateMaze();
+
+    default Maze generateMaze() {
+        return generateMaze(GenerationMonitor.none());
+    }
+
+    /**
+     * Генерирует лабиринт, сообщая о ходе генерации и проверяя отмену через монитор.
+     * После отмены генератор больше не нужен: вся его память освобождается вместе с ним.
+     *
+     * @param monitor монитор этой генерации
+     * @return сгенерированный лабиринт
+     * @throws CancellationException если генерация отменена
+     */
+    Maze generateMaze(@NotNull GenerationMonitor monitor);
 }
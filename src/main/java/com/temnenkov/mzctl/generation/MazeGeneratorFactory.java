@@ -1,26 +1,40 @@
 package com.temnenkov.mzctl.generation;
 
 import com.temnenkov.mzctl.model.MazeDim;
+import com.temnenkov.mzctl.util.SimplePreconditions;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * Фабрика для создания генераторов лабиринтов.
  */
 public class MazeGeneratorFactory {
         private static final Logger logger = LoggerFactory.getLogger(MazeGeneratorFactory.class);
-        private final Random random;
+        private final RandomGenerator random;
+        private final int threads;
 
     /**
-     * Создает фабрику с заданным генератором случайных чисел.
+     * Создает фабрику с заданным генератором случайных чисел. Параллельные генераторы используют все процессоры.
      *
      * @param random генератор случайных чисел
      */
-    public MazeGeneratorFactory(Random random) {
+    public MazeGeneratorFactory(RandomGenerator random) {
+        this(random, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Создает фабрику с заданным генератором случайных чисел и количеством потоков.
+     *
+     * @param random  генератор случайных чисел
+     * @param threads количество потоков для одного лабиринта, 1 - если лабиринты и так строятся в нескольких потоках
+     */
+    public MazeGeneratorFactory(RandomGenerator random, int threads) {
+        SimplePreconditions.checkArgument(threads > 0, "threads must be positive");
         this.random = random;
+        this.threads = threads;
     }
 
     /**
@@ -34,16 +48,32 @@ public class MazeGeneratorFactory {
     @NotNull
     public MazeGenerator create(@NotNull Algo algo, @NotNull MazeDim mazeDim) {
         logger.info("Creating maze generator: {} by parameter {}", algo, mazeDim);
+        return create(algo, mazeDim, random, threads);
+    }
+
+    /**
+     * Создает генератор без записи в лог - для генераторов, которые строят много маленьких лабиринтов.
+     *
+     * @param algo    алгоритм генерации
+     * @param mazeDim размерность лабиринта
+     * @param random  генератор случайных чисел
+     * @param threads количество потоков для параллельных генераторов
+     * @return генератор лабиринтов
+     */
+    @NotNull
+    static MazeGenerator create(@NotNull Algo algo, @NotNull MazeDim mazeDim, @NotNull RandomGenerator random,
+            int threads) {
         return switch (algo) {
             case RECURSIVE_BACKTRACKER -> new RecursiveBacktracker(mazeDim, random);
-            case RECURSIVE_DIVISION -> new RecursiveDivision(mazeDim, random);
-            case BINARY_TREE -> new BinaryTreeMazeGenerator(mazeDim, random);
-            case SIDEWINDER -> new SidewinderMazeGenerator(mazeDim, random);
+            case RECURSIVE_DIVISION -> new RecursiveDivision(mazeDim, random, threads);
+            case BINARY_TREE -> new BinaryTreeMazeGenerator(mazeDim, random, threads);
+            case SIDEWINDER -> new SidewinderMazeGenerator(mazeDim, random, threads);
             case RANDOMIZED_PRIM -> new RandomizedPrimMazeGenerator(mazeDim, random);
             case RANDOMIZED_KRUSKAL -> new RandomizedKruskalMazeGenerator(mazeDim, random);
             case HUNT_AND_KILL -> new HuntAndKillMazeGenerator(mazeDim, random);
             case ALDOUS_BRODER -> new AldousBroderMazeGenerator(mazeDim, random);
             case WILSON -> new WilsonMazeGenerator(mazeDim, random);
+            case ALDOUS_BRODER_WILSON -> new AldousBroderWilsonMazeGenerator(mazeDim, random);
             case ELLER -> new EllerMazeGenerator(mazeDim, random);
         };
     }
@@ -65,6 +95,49 @@ public class MazeGeneratorFactory {
             return new GrowingTreeMazeGenerator(mazeDim, random, strategy, mixedProbability);
         }
 
+        /**
+         * Создает генератор Randomized Prim с заданным способом выбора следующей ячейки.
+         *
+         * @param mazeDim размерность лабиринта
+         * @param mode    {@link RandomizedPrimMazeGenerator.Mode#FRONTIER} - быстрый упрощённый вариант,
+         *                {@link RandomizedPrimMazeGenerator.Mode#WEIGHTED} - настоящий Прим на случайных весах
+         * @return генератор лабиринтов
+         */
+        @NotNull
+        public MazeGenerator createRandomizedPrim(@NotNull MazeDim mazeDim, @NotNull RandomizedPrimMazeGenerator.Mode mode) {
+            logger.info("Creating Randomized Prim maze generator: mode={}, mazeDim={}", mode, mazeDim);
+            return new RandomizedPrimMazeGenerator(mazeDim, random, mode);
+        }
+
+        /**
+         * Создает гибридный генератор Aldous-Broder/Уилсона с заданной долей покрытия первой фазы.
+         *
+         * @param mazeDim  размерность лабиринта
+         * @param coverage доля комнат, после которой генератор переходит к блужданиям Уилсона
+         * @return генератор лабиринтов
+         */
+        @NotNull
+        public AldousBroderWilsonMazeGenerator createAldousBroderWilson(@NotNull MazeDim mazeDim, double coverage) {
+            logger.info("Creating Aldous-Broder/Wilson maze generator: coverage={}, mazeDim={}", coverage, mazeDim);
+            return new AldousBroderWilsonMazeGenerator(mazeDim, random, coverage);
+        }
+
+        /**
+         * Создает генератор, который строит лабиринт по участкам параллельно и сшивает их.
+         *
+         * @param algo     алгоритм генерации участков
+         * @param mazeDim  размерность лабиринта
+         * @param tileSize желаемый размер участка по каждому измерению
+         * @param threads  количество потоков
+         * @return генератор лабиринтов
+         */
+        @NotNull
+        public MazeGenerator createTiled(@NotNull Algo algo, @NotNull MazeDim mazeDim, int tileSize, int threads) {
+            logger.info("Creating tiled maze generator: {} by parameter {}, tileSize={}, threads={}",
+                    algo, mazeDim, tileSize, threads);
+            return new TiledMazeGenerator(mazeDim, random, algo, tileSize, threads);
+        }
+
         public enum Algo {
             RECURSIVE_BACKTRACKER,
             RECURSIVE_DIVISION,
@@ -75,6 +148,7 @@ public class MazeGeneratorFactory {
             HUNT_AND_KILL,
             ALDOUS_BRODER,
             WILSON,
+            ALDOUS_BRODER_WILSON,
             ELLER
         }
 }
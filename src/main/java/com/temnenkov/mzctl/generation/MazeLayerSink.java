@@ -0,0 +1,25 @@
+package com.temnenkov.mzctl.generation;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Получатель готовых слоёв лабиринта при потоковой генерации.
+ *
+ * <p>Слой - все комнаты с одинаковой первой координатой. Комнаты слоя нумеруются так же, как в
+ * {@link com.temnenkov.mzctl.model.CellIndexSpace} по остальным измерениям (быстрее всего меняется
+ * последняя координата). Для каждой комнаты передаётся маска проходов в сторону увеличения координат:
+ * бит {@code d} установлен, если есть проход к соседу по измерению {@code d} с координатой на единицу больше.
+ * Бит 0 - проход в следующий слой. Проходы в сторону уменьшения координат уже переданы с предыдущими
+ * комнатами и слоями.</p>
+ */
+@FunctionalInterface
+public interface MazeLayerSink {
+
+    /**
+     * Принять готовый слой. Массив переиспользуется генератором, сохранять его нельзя.
+     *
+     * @param layer      номер слоя (первая координата)
+     * @param passMasks  маски проходов комнат слоя
+     */
+    void acceptLayer(int layer, int @NotNull [] passMasks);
+}
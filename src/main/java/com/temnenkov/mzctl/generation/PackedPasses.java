@@ -0,0 +1,143 @@
+package com.temnenkov.mzctl.generation;
+
+import com.temnenkov.mzctl.model.CellIndexSpace;
+import com.temnenkov.mzctl.model.Maze;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Проходы комнат [fromCell, toCell), отмеченные только с одной стороны, в упакованном виде {@link Maze#setPassMasks}:
+ * 2·D бит на комнату, бит (n - fromCell)·2D + e - проход из комнаты n в направлении e.
+ *
+ * <p>Генератор отмечает каждый проход у одной из двух комнат, а {@link #writeTo} достраивает встречные биты
+ * по слову за раз. Встречный бит - у соседа n + delta(e) в направлении opposite(e), то есть на
+ * shift(e) = delta(e)·2D + opposite(e) - e бит дальше. Поэтому встречные биты - это маска, в которой оставлены
+ * биты направления e, сдвинутая на shift(e). Проходы за край лабиринта отмечать нельзя. Так достраиваются
+ * только встречные биты внутри диапазона, проходы через его границу достраивает {@link #linkAcross}.</p>
+ *
+ * <p>fromCell кратен {@link Maze#PASS_MASK_BLOCK}, поэтому раскладка бит по словам та же, что у всего лабиринта.</p>
+ */
+final class PackedPasses {
+
+    private final int directionCount;
+    private final int fromCell;
+    private final int toCell;
+    private final long[] words;
+    /**
+     * Биты направления e в слове word - patterns[e][word % patterns[e].length]
+     */
+    private final long[][] patterns;
+    private final long[] wordShifts;
+    private final int[] bitShifts;
+
+    /**
+     * Конструктор.
+     *
+     * @param indexSpace нумерация комнат
+     * @param fromCell   первая комната, кратно {@link Maze#PASS_MASK_BLOCK}
+     * @param toCell     комната после последней
+     */
+    PackedPasses(@NotNull CellIndexSpace indexSpace, int fromCell, int toCell) {
+        this.directionCount = indexSpace.directionCount();
+        this.fromCell = fromCell;
+        this.toCell = toCell;
+        this.words = new long[Math.toIntExact(((long) (toCell - fromCell) * directionCount + Long.SIZE - 1) / Long.SIZE)];
+
+        // раскладка бит по словам повторяется через 2D / gcd(64, 2D) слов
+        final int period = directionCount / gcd(Long.SIZE, directionCount);
+        this.patterns = new long[directionCount][period];
+        this.wordShifts = new long[directionCount];
+        this.bitShifts = new int[directionCount];
+        for (int direction = 0; direction < directionCount; direction++) {
+            for (long bit = 0; bit < (long) period * Long.SIZE; bit++) {
+                if (bit % directionCount == direction) {
+                    patterns[direction][(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+            final long delta = CellIndexSpace.isPlus(direction)
+                    ? indexSpace.stride(CellIndexSpace.dimensionOf(direction))
+                    : -indexSpace.stride(CellIndexSpace.dimensionOf(direction));
+            final long shift = delta * directionCount + CellIndexSpace.opposite(direction) - direction;
+            wordShifts[direction] = Math.floorDiv(shift, Long.SIZE);
+            bitShifts[direction] = Math.floorMod(shift, Long.SIZE);
+        }
+    }
+
+    /**
+     * Отметить проход из комнаты cell диапазона в направлении direction
+     */
+    void mark(int cell, int direction) {
+        final long bit = (long) (cell - fromCell) * directionCount + direction;
+        words[(int) (bit >>> 6)] |= 1L << bit;
+    }
+
+    /**
+     * Записывает в лабиринт проходы диапазона вместе со встречными внутри него, заменяя прежние проходы диапазона.
+     *
+     * @param maze лабиринт той же размерности
+     */
+    void writeTo(@NotNull Maze maze) {
+        final long[] passMasks = new long[words.length];
+        for (int word = 0; word < words.length; word++) {
+            passMasks[word] = withReverse(word);
+        }
+        maze.setPassMasks(fromCell, toCell - fromCell, passMasks);
+    }
+
+    /**
+     * Достраивает атомарно встречные биты проходов через границы диапазона [fromCell, toCell).
+     * Вызывается, когда все диапазоны уже записаны {@link #writeTo}: тогда запись соседнего
+     * диапазона не затрет встречный бит.
+     *
+     * @param maze     лабиринт
+     * @param fromCell первая комната диапазона
+     * @param toCell   комната после последней
+     */
+    static void linkAcross(@NotNull Maze maze, int fromCell, int toCell) {
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        for (int dim = 0; dim < indexSpace.dimensions(); dim++) {
+            final int stride = indexSpace.stride(dim);
+            // сосед за границей только у комнат ближе stride к ней; проход есть только к существующему соседу
+            final int minus = CellIndexSpace.direction(dim, false);
+            final int minusEnd = (int) Math.min(toCell, (long) fromCell + stride);
+            for (int cell = fromCell; cell < minusEnd; cell++) {
+                if (maze.hasPass(cell, minus)) {
+                    maze.addPassAtomic(cell, minus);
+                }
+            }
+            final int plus = CellIndexSpace.direction(dim, true);
+            for (int cell = Math.max(fromCell, toCell - stride); cell < toCell; cell++) {
+                if (maze.hasPass(cell, plus)) {
+                    maze.addPassAtomic(cell, plus);
+                }
+            }
+        }
+    }
+
+    /**
+     * Слово маски вместе со встречными битами
+     */
+    private long withReverse(int word) {
+        long result = words[word];
+        for (int direction = 0; direction < directionCount; direction++) {
+            final long source = word - wordShifts[direction];
+            final int bitShift = bitShifts[direction];
+            result |= masked(source, direction) << bitShift;
+            if (bitShift != 0) {
+                result |= masked(source - 1, direction) >>> (Long.SIZE - bitShift);
+            }
+        }
+        return result;
+    }
+
+    private long masked(long word, int direction) {
+        if (word < 0 || word >= words.length) {
+            return 0;
+        }
+        final long[] pattern = patterns[direction];
+        return words[(int) word] & pattern[(int) (word % pattern.length)];
+    }
+
+    static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
@@ -1,70 +1,101 @@
 package com.temnenkov.mzctl.generation;
 
-import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.model.CellIndexSpace;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.MazeFactory;
-import com.temnenkov.mzctl.util.DisjointSet;
-import com.temnenkov.mzctl.util.IndexedHashSet;
-import org.jetbrains.annotations.Contract;
+import com.temnenkov.mzctl.util.IntDisjointSet;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
+/**
+ * Генератор лабиринта по рандомизированному алгоритму Краскала.
+ *
+ * <p>Стена - одно число long: индекс комнаты * количество направлений + направление в сторону соседа
+ * (всегда в сторону увеличения координаты, поэтому каждая стена записана один раз). Все стены лежат
+ * в массиве long[], перемешиваются на месте алгоритмом Фишера-Йетса и объединяют комнаты через
+ * {@link IntDisjointSet}. На стену приходится 8 байт.</p>
+ */
 public class RandomizedKruskalMazeGenerator implements MazeGenerator {
 
     private final Maze maze;
-    private final Random random;
+    private final RandomGenerator random;
     private boolean generated = false;
 
-    public RandomizedKruskalMazeGenerator(@NotNull MazeDim mazeDim, @NotNull Random random) {
+    public RandomizedKruskalMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
         this.maze = MazeFactory.createNotConnectedMaze(mazeDim);
         this.random = random;
     }
 
     @Override
-    public Maze generateMaze() {
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
         if (generated) {
             throw new IllegalStateException("Maze already generated");
         }
         generated = true;
+        monitor.start(maze.totalCellCount());
 
-        final DisjointSet<Cell> disjointSet = new DisjointSet<>();
-        maze.forEach(disjointSet::makeSet);
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int directionCount = indexSpace.directionCount();
+        final IntDisjointSet disjointSet = new IntDisjointSet(maze.totalCellCount());
 
-        final IndexedHashSet<Wall> walls = getAllWalls();
-        walls.shuffle(random);  // теперь просто вызываем shuffle
+        final long[] walls = getAllWalls();
+        shuffle(walls, monitor);
+        // первая комната - начало дерева, остальные присоединяются объединениями
+        monitor.cellCarved();
 
-        for (Wall wall : walls) { // теперь просто перебираем элементы набора
-            Cell cell1 = wall.cell1();
-            Cell cell2 = wall.cell2();
+        for (long wall : walls) {
+            final int cell1 = (int) (wall / directionCount);
+            final int cell2 = indexSpace.neighbor(cell1, (int) (wall % directionCount));
 
-            if (disjointSet.find(cell1) != disjointSet.find(cell2)) {
+            if (disjointSet.union(cell1, cell2)) {
                 maze.addPass(cell1, cell2);
-                disjointSet.union(cell1, cell2);
+                monitor.cellCarved();
+            } else {
+                monitor.step();
             }
         }
 
+        monitor.finish();
         return maze;
     }
 
-    private @NotNull IndexedHashSet<Wall> getAllWalls() {
-        final IndexedHashSet<Wall> walls = new IndexedHashSet<>();
+    private long @NotNull [] getAllWalls() {
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int directionCount = indexSpace.directionCount();
 
-        maze.forEach(cell -> maze.getAllNeighbors(cell)
-                .forEach(neighbor -> walls.add(createWall(cell, neighbor))));
+        // по измерению dim стен на одну меньше, чем комнат в ряду
+        long wallCount = 0;
+        for (int dim = 0; dim < indexSpace.dimensions(); dim++) {
+            wallCount += (long) maze.totalCellCount() / indexSpace.dimSize(dim) * (indexSpace.dimSize(dim) - 1);
+        }
+        if (wallCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Maze is too large: " + wallCount + " walls");
+        }
+
+        final long[] walls = new long[(int) wallCount];
+        int count = 0;
+        for (int cell = 0; cell < maze.totalCellCount(); cell++) {
+            for (int dim = 0; dim < indexSpace.dimensions(); dim++) {
+                // каждую стену добавляем один раз - со стороны комнаты с меньшим индексом
+                final int direction = CellIndexSpace.direction(dim, true);
+                if (indexSpace.neighbor(cell, direction) >= 0) {
+                    walls[count++] = (long) cell * directionCount + direction;
+                }
+            }
+        }
 
         return walls;
     }
 
-    private record Wall(Cell cell1, Cell cell2) {}
-
-    @Contract("_, _ -> new")
-    private @NotNull Wall createWall(@NotNull Cell cell1, @NotNull Cell cell2) {
-        if (cell1.hashCode() <= cell2.hashCode()) {
-            return new Wall(cell1, cell2);
-        } else {
-            return new Wall(cell2, cell1);
+    private void shuffle(long @NotNull [] walls, @NotNull GenerationMonitor monitor) {
+        for (int i = walls.length - 1; i > 0; i--) {
+            monitor.step();
+            final int j = random.nextInt(i + 1);
+            final long tmp = walls[i];
+            walls[i] = walls[j];
+            walls[j] = tmp;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,13 @@
 package com.temnenkov.mzctl.generation;
 
-import com.temnenkov.mzctl.model.Cell;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.MazeFactory;
-import com.temnenkov.mzctl.util.IndexedHashSet;
+import com.temnenkov.mzctl.util.LongMinHeap;
+import com.temnenkov.mzctl.util.SimplePreconditions;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
-import java.util.Random;
-import java.util.Set;
-import java.util.stream.Stream;
+import java.util.random.RandomGenerator;
 
 /**
 Начинаем с лабиринта, в котором все ячейки изолированы друг от друга
@@ -21,74 +18,160 @@ import java.util.stream.Stream;
 - Случайным образом выбираем одну из этих стен и удаляем её, соединяя посещенную и непосещенную ячейки.
 - Добавляем новую ячейку в множество посещенных.
 - Продолжаем до тех пор, пока не будут посещены все ячейки.
+
+<p>Режим {@link Mode#FRONTIER}: граница - массив int непосещённых ячеек, соседних с посещёнными; случайная ячейка
+границы извлекается за O(1) обменом с последней и соединяется со случайным посещённым соседом.
+Режим {@link Mode#WEIGHTED} - настоящий алгоритм Прима на случайных весах стен, стены в примитивной
+двоичной куче. Состояние ячейки (вне лабиринта / на границе / в лабиринте) - один байт.</p>
  */
 public class RandomizedPrimMazeGenerator implements MazeGenerator {
 
-    private final @NotNull Random random;
+    /**
+     * Способ выбора следующей ячейки
+     */
+    public enum Mode {
+        /** Случайная ячейка границы (упрощённый Прим) - быстро, много коротких тупиков. */
+        FRONTIER,
+
+        /** Стена с наименьшим случайным весом (настоящий Прим) - медленнее, распределение как у классики. */
+        WEIGHTED
+    }
+
+    private static final String CTOR = ".ctor";
+    private static final byte OUTSIDE = 0;
+    private static final byte FRONTIER = 1;
+    private static final byte IN_MAZE = 2;
+
+    private final @NotNull RandomGenerator random;
     private final @NotNull Maze maze;
+    private final @NotNull Mode mode;
     private boolean generated = false;
-    private final Set<Cell> visited = new HashSet<>();
-    private final IndexedHashSet<Wall> walls = new IndexedHashSet<>();
+    private final byte[] states;
+    private final int[] neighbors;
 
-    public RandomizedPrimMazeGenerator(@NotNull MazeDim mazeDim, @NotNull Random random) {
-        this.random = random;
-        this.maze = MazeFactory.createNotConnectedMaze(mazeDim);
+    public RandomizedPrimMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
+        this(mazeDim, random, Mode.FRONTIER);
+    }
+
+    /**
+     * Конструктор генератора.
+     *
+     * @param mazeDim размерность лабиринта
+     * @param random  источник случайности
+     * @param mode    способ выбора следующей ячейки
+     */
+    public RandomizedPrimMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random, @NotNull Mode mode) {
+        this.random = SimplePreconditions.checkNotNull(random, "random", CTOR);
+        this.mode = SimplePreconditions.checkNotNull(mode, "mode", CTOR);
+        this.maze = MazeFactory.createNotConnectedMaze(SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR));
+        if (mode == Mode.WEIGHTED) {
+            // номер стены (комната * количество направлений + направление) должен уместиться в 32 бита
+            SimplePreconditions.checkArgument(
+                    (long) maze.totalCellCount() * maze.getIndexSpace().directionCount() <= 0xFFFFFFFFL,
+                    "Maze is too large for WEIGHTED mode");
+        }
+        this.states = new byte[maze.totalCellCount()];
+        this.neighbors = new int[maze.getIndexSpace().directionCount()];
     }
 
     /**
      * Генерирует лабиринт с использованием Randomized Prim's algorithm.
      *
+     * @param monitor монитор генерации
      * @return сгенерированный лабиринт
      * @throws IllegalStateException если метод был вызван повторно
      */
     @Override
-    public Maze generateMaze() {
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
         if (generated) {
             throw new IllegalStateException("Maze already generated");
         }
         generated = true;
+        monitor.start(maze.totalCellCount());
+
+        // Выбираем случайную стартовую ячейку
+        final int start = maze.getRandomIndex(random);
+        monitor.cellCarved();
+        if (mode == Mode.WEIGHTED) {
+            generateWeighted(start, monitor);
+        } else {
+            generateFrontier(start, monitor);
+        }
+        monitor.finish();
+        return maze;
+    }
 
-        // Выбираем случайную стартовую ячейку и добавляем ее в множество посещенных
-        final Cell start = maze.getRandomCell(random);
-        visited.add(start);
+    private void generateFrontier(int start, @NotNull GenerationMonitor monitor) {
+        // каждая ячейка попадает на границу не больше одного раза
+        final int[] frontier = new int[maze.totalCellCount()];
+        int frontierSize = 0;
+        states[start] = IN_MAZE;
+        frontierSize = addToFrontier(start, frontier, frontierSize);
 
-        // Добавляем стены стартовой ячейки в список стен
-        getNeighborsWithWall(start).forEach(neighbor -> walls.add(new Wall(start, neighbor)));
+        while (frontierSize > 0) {
+            final int pick = random.nextInt(frontierSize);
+            final int cell = frontier[pick];
+            frontier[pick] = frontier[--frontierSize];
 
-        // Пока есть стены, которые можно удалить
-        while (!walls.isEmpty()) {
-            // Выбираем случайную стену из множества стен
-            final Wall wall = walls.getRandom(random);
-            walls.remove(wall);
-
-            final Cell cell1 = wall.cell1();
-            final Cell cell2 = wall.cell2();
-
-            // Проверяем, что ровно одна из ячеек уже посещена
-            if (visited.contains(cell1) && !visited.contains(cell2)) {
-                visitCell(cell1, cell2);
-            } else if (!visited.contains(cell1) && visited.contains(cell2)) {
-                visitCell(cell2, cell1);
+            // соединяем со случайным соседом, уже находящимся в лабиринте
+            final int count = maze.getAllNeighbors(cell, neighbors);
+            int inMaze = 0;
+            for (int i = 0; i < count; i++) {
+                if (states[neighbors[i]] == IN_MAZE) {
+                    neighbors[inMaze++] = neighbors[i];
+                }
             }
-            // Если обе ячейки уже посещены или обе не посещены, мы просто пропускаем эту стену
+            maze.addPass(neighbors[random.nextInt(inMaze)], cell);
+            states[cell] = IN_MAZE;
+            frontierSize = addToFrontier(cell, frontier, frontierSize);
+            monitor.cellCarved();
         }
-
-        return maze;
     }
 
-    private void visitCell(Cell from, Cell to) {
-        maze.addPass(from, to);
-        visited.add(to);
-        getNeighborsWithWall(to).forEach(neighbor -> {
-            if (!visited.contains(neighbor)) {
-                walls.add(new Wall(to, neighbor));
+    private int addToFrontier(int cell, int @NotNull [] frontier, int frontierSize) {
+        final int count = maze.getAllNeighbors(cell, neighbors);
+        int size = frontierSize;
+        for (int i = 0; i < count; i++) {
+            final int neighbor = neighbors[i];
+            if (states[neighbor] == OUTSIDE) {
+                states[neighbor] = FRONTIER;
+                frontier[size++] = neighbor;
             }
-        });
+        }
+        return size;
     }
 
-    private Stream<Cell> getNeighborsWithWall(@NotNull Cell cell) {
-       return maze.getAllNeighbors(cell).filter(neighbor -> !maze.canPass(cell, neighbor));
+    private void generateWeighted(int start, @NotNull GenerationMonitor monitor) {
+        // в куче: случайный вес в старших 32 битах, номер стены - в младших
+        final LongMinHeap walls = new LongMinHeap(maze.totalCellCount());
+        final int directionCount = maze.getIndexSpace().directionCount();
+        states[start] = IN_MAZE;
+        addWalls(start, walls, directionCount);
+
+        while (!walls.isEmpty()) {
+            final long wall = walls.poll() & 0xFFFFFFFFL;
+            final int from = (int) (wall / directionCount);
+            final int to = maze.getIndexSpace().neighbor(from, (int) (wall % directionCount));
+            // стена могла устареть: ячейка за ней уже в лабиринте
+            if (states[to] != IN_MAZE) {
+                maze.addPass(from, to);
+                states[to] = IN_MAZE;
+                addWalls(to, walls, directionCount);
+                monitor.cellCarved();
+            } else {
+                monitor.step();
+            }
+        }
     }
 
-    private record Wall(@NotNull Cell cell1, @NotNull Cell cell2) {}
+    private void addWalls(int cell, @NotNull LongMinHeap walls, int directionCount) {
+        for (int direction = 0; direction < directionCount; direction++) {
+            final int neighbor = maze.getIndexSpace().neighbor(cell, direction);
+            // каждая стена попадает в кучу один раз, поэтому вес можно выбирать при добавлении
+            if (neighbor >= 0 && states[neighbor] != IN_MAZE) {
+                final long wall = (long) cell * directionCount + direction;
+                walls.add(((long) random.nextInt() << 32) | wall);
+            }
+        }
+    }
 }
@@ -1,18 +1,12 @@
 package com.temnenkov.mzctl.generation;
 
-import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.model.CellIndexSpace;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.MazeFactory;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Deque;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
+import java.util.random.RandomGenerator;
 
 /**
  * Генератор лабиринта на основе алгоритма Recursive Backtracker (Depth-First Search).
@@ -20,14 +14,20 @@ import java.util.Set;
  * <p>Класс предназначен для однократного использования: создаётся объект, вызывается метод
  * {@link #generateMaze()}, после чего объект не должен использоваться повторно.</p>
  *
+ * <p>Обход итеративный: стек - массив индексов комнат размером с лабиринт, посещённые комнаты - битовая
+ * маска, соседи вычисляются по шагам индекса {@link CellIndexSpace}. Объекты {@link com.temnenkov.mzctl.model.Cell}
+ * не создаются, поэтому лабиринт 4096x4096 строится за секунды.</p>
+ *
  * <p>Выбор генератора случайных чисел (например, {@link java.util.Random}, {@link java.security.SecureRandom},
  * {@link java.util.concurrent.ThreadLocalRandom}) полностью лежит на вызывающей стороне.</p>
  */
 public class RecursiveBacktracker implements MazeGenerator {
 
-    private final @NotNull Random random;
-    private final @NotNull Set<Cell> visited = new HashSet<>();
+    private final @NotNull RandomGenerator random;
     private final @NotNull Maze maze;
+    private final @NotNull CellIndexSpace indexSpace;
+    private final long @NotNull [] visited;
+    private final int @NotNull [] neighbors;
     private boolean generated = false;
 
     /**
@@ -37,56 +37,97 @@ public class RecursiveBacktracker implements MazeGenerator {
      * @param random  генератор случайных чисел, ответственность за корректность и потокобезопасность
      *                которого лежит на вызывающей стороне
      */
-    public RecursiveBacktracker(@NotNull MazeDim mazeDim, @NotNull Random random) {
+    public RecursiveBacktracker(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
         if (mazeDim.size() == 0) {
             throw new IllegalArgumentException("Maze dimension must not be empty");
         }
         maze = MazeFactory.createNotConnectedMaze(mazeDim);
         this.random = random;
+        this.indexSpace = maze.getIndexSpace();
+        this.visited = new long[(maze.totalCellCount() + Long.SIZE - 1) / Long.SIZE];
+        this.neighbors = new int[indexSpace.directionCount()];
     }
 
     /**
      * Генерирует лабиринт и возвращает его.
      *
+     * @param monitor монитор генерации
      * @return сгенерированный лабиринт
      * @throws IllegalStateException при повторном вызове метода
      */
     @Override
     @NotNull
-    public Maze generateMaze() {
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
         if (generated) {
             throw new IllegalStateException("Maze already generated");
         }
         generated = true;
 
-        final Cell startCell = maze.getRandomCell(random);
-        generateMazeFrom(startCell);
+        monitor.start(maze.totalCellCount());
+        final int startCell = maze.getRandomIndex(random);
+        generateMazeFrom(startCell, monitor);
+        monitor.finish();
         return maze;
     }
 
-    private void generateMazeFrom(@NotNull Cell startCell) {
-        final Deque<Cell> stack = new ArrayDeque<>();
-        visited.add(startCell);
-        stack.push(startCell);
+    private void generateMazeFrom(int startCell, @NotNull GenerationMonitor monitor) {
+        // в стеке не больше, чем комнат в лабиринте
+        final int[] stack = new int[maze.totalCellCount()];
+        int stackSize = 0;
+        markVisited(visited, startCell);
+        stack[stackSize++] = startCell;
+        monitor.cellCarved();
 
-        while (!stack.isEmpty()) {
-            final Cell currentCell = stack.peek();
+        while (stackSize > 0) {
+            final int currentCell = stack[stackSize - 1];
 
-            final List<Cell> unvisitedNeighbors = new ArrayList<>(getUnvisitedNeighbors(currentCell));
+            final int unvisitedCount = collectUnvisitedNeighbors(indexSpace, visited, currentCell, neighbors);
 
-            if (!unvisitedNeighbors.isEmpty()) {
+            if (unvisitedCount > 0) {
                 // сразу берем случайный элемент
-                final Cell neighbor = unvisitedNeighbors.get(random.nextInt(unvisitedNeighbors.size()));
-                maze.addPass(currentCell, Set.of(neighbor));
-                visited.add(neighbor);
-                stack.push(neighbor);
+                final int neighbor = neighbors[random.nextInt(unvisitedCount)];
+                maze.addPass(currentCell, neighbor);
+                markVisited(visited, neighbor);
+                stack[stackSize++] = neighbor;
+                monitor.cellCarved();
             } else {
-                stack.pop();
+                stackSize--;
+                monitor.step();
             }
         }
     }
 
-    private List<Cell> getUnvisitedNeighbors(@NotNull Cell cell) {
-        return maze.getAllNeighbors(cell).filter(c -> !visited.contains(c)).toList();
+    /**
+     * Записать в neighbors непосещённых соседей комнаты в том же порядке, что и
+     * {@link CellIndexSpace#adjacent(int, int[])}
+     *
+     * @param indexSpace нумерация комнат
+     * @param visited    посещённые комнаты, бит на комнату
+     * @param cell       индекс комнаты
+     * @param neighbors  буфер длиной не меньше {@link CellIndexSpace#directionCount()}
+     * @return количество непосещённых соседей
+     */
+    static int collectUnvisitedNeighbors(@NotNull CellIndexSpace indexSpace, long @NotNull [] visited, int cell,
+            int @NotNull [] neighbors) {
+        int unvisited = 0;
+        for (int dim = 0; dim < indexSpace.dimensions(); dim++) {
+            final int stride = indexSpace.stride(dim);
+            final int coord = (cell / stride) % indexSpace.dimSize(dim);
+            if (coord > 0 && !isVisited(visited, cell - stride)) {
+                neighbors[unvisited++] = cell - stride;
+            }
+            if (coord < indexSpace.dimSize(dim) - 1 && !isVisited(visited, cell + stride)) {
+                neighbors[unvisited++] = cell + stride;
+            }
+        }
+        return unvisited;
+    }
+
+    static boolean isVisited(long @NotNull [] visited, int cell) {
+        return (visited[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    static void markVisited(long @NotNull [] visited, int cell) {
+        visited[cell >>> 6] |= 1L << cell;
     }
 }
@@ -1,114 +1,309 @@
 package com.temnenkov.mzctl.generation;
 
-import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.model.CellIndexSpace;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.MazeFactory;
-import com.temnenkov.mzctl.model.Slice;
+import com.temnenkov.mzctl.util.SimplePreconditions;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.Queue;
-import java.util.Random;
-import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveAction;
+import java.util.random.RandomGenerator;
 
-public class RecursiveDivision  implements MazeGenerator {
+/**
+ * Генератор лабиринта с использованием алгоритма Recursive Division.
+ *
+ * <p>Стены строятся прямо в хранилище лабиринта: сначала все проходы записываются порциями
+ * через {@link Maze#setPassMasks}, затем стена убирает проходы вдоль своей линии, кроме одного,
+ * атомарно ({@link Maze#removePassAtomic}). Лишней памяти под проходы нет. Линия стены
+ * перебирается прямо по границам среза, сам срез - это только его границы.</p>
+ *
+ * <p>Большие срезы делятся на общем пуле из threads потоков: левая половина получает {@link SplittableRandom#split()},
+ * правая продолжает поток среза. Срезы меньше {@link #PARALLEL_THRESHOLD} комнат делятся в одном потоке,
+ * поэтому при фиксированном зерне лабиринт одинаков при любом количестве потоков.</p>
+ */
+public class RecursiveDivision implements MazeGenerator {
 
-    private final @NotNull Maze maze;
-    private final @NotNull Random random;
+    /**
+     * Срезы от стольких комнат делятся параллельно; порции начального заполнения такого же размера,
+     * кратны {@link Maze#PASS_MASK_BLOCK}
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final long NO_WALL = -1;
+
+    private final @NotNull MazeDim mazeDim;
+    private final @NotNull RandomGenerator random;
+    private final int threads;
     private boolean generated = false;
 
-    public RecursiveDivision(@NotNull MazeDim mazeDim, @NotNull Random random) {
-        this.maze = MazeFactory.createFullConnectedMaze(mazeDim);
-        this.random = random;
+    public RecursiveDivision(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
+        this(mazeDim, random, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Конструктор генератора.
+     *
+     * @param mazeDim размерность лабиринта
+     * @param random  источник зерна для потоков случайных чисел
+     * @param threads количество потоков; результат от него не зависит
+     */
+    public RecursiveDivision(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random, int threads) {
+        this.mazeDim = SimplePreconditions.checkNotNull(mazeDim, "mazeDim", ".ctor");
+        this.random = SimplePreconditions.checkNotNull(random, "random", ".ctor");
+        SimplePreconditions.checkArgument(threads > 0, "threads must be positive");
+        this.threads = threads;
     }
 
     /**
      * Генерирует лабиринт с помощью алгоритма Recursive Division.
      *
+     * @param monitor монитор генерации
      * @return сгенерированный лабиринт
      */
     @Override
     @NotNull
-    public Maze generateMaze() {
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
         if (generated) {
             throw new IllegalStateException("Maze already generated");
         }
         generated = true;
 
-        final int[] dimensions = maze.getMazeDimension().dimensions().stream().mapToInt(Integer::intValue).toArray();
+        final Maze maze = MazeFactory.createNotConnectedMaze(mazeDim);
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int size = indexSpace.size();
+        monitor.start(size);
+        final int chunkCount = (int) (((long) size + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD);
 
-        final Cell top = new Cell(new int[dimensions.length]);
-        final Cell bottom = new Cell(Arrays.stream(dimensions).map(i -> i - 1).toArray());
-        final Queue<Slice> queue = new ArrayDeque<>();
-        queue.add(new Slice(top, bottom));
+        ChunkTask.forEachChunk((from, to) -> {
+            for (int chunk = from; chunk < to; chunk++) {
+                connectAll(maze, chunk * PARALLEL_THRESHOLD,
+                        (int) Math.min(size, (long) (chunk + 1) * PARALLEL_THRESHOLD));
+            }
+        }, chunkCount, threads);
 
-        while(!queue.isEmpty()) {
-            final Slice slice = queue.remove();
+        final int[] first = new int[indexSpace.dimensions()];
+        final int[] last = new int[indexSpace.dimensions()];
+        for (int dim = 0; dim < last.length; dim++) {
+            last[dim] = indexSpace.dimSize(dim) - 1;
+        }
+        final boolean forkJoin = threads > 1 && size >= PARALLEL_THRESHOLD;
+        final DivisionTask root = new DivisionTask(maze, first, last,
+                new SplittableRandom(random.nextLong()), forkJoin, monitor);
+        if (forkJoin) {
+            ChunkTask.pool(threads).invoke(root);
+        } else {
+            root.compute();
+        }
+        monitor.finish();
+        return maze;
+    }
 
-            final Wall wall = createRandomWallInSlice(slice);
-            if (wall != null) {
-                queue.addAll(buildWall(slice, wall));
+    /**
+     * Соединяет комнаты [fromCell, toCell) со всеми соседями, fromCell кратен {@link Maze#PASS_MASK_BLOCK}
+     */
+    private static void connectAll(@NotNull Maze maze, int fromCell, int toCell) {
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int dimensions = indexSpace.dimensions();
+        final int directionCount = indexSpace.directionCount();
+        final long[] passMasks = new long[(int) (((long) (toCell - fromCell) * directionCount + Long.SIZE - 1)
+                / Long.SIZE)];
+        final int[] coords = new int[dimensions];
+        for (int dim = 0; dim < dimensions; dim++) {
+            coords[dim] = indexSpace.coord(fromCell, dim);
+        }
+        long cellBit = 0;
+        for (int cell = fromCell; cell < toCell; cell++, cellBit += directionCount) {
+            for (int dim = 0; dim < dimensions; dim++) {
+                if (coords[dim] > 0) {
+                    final long bit = cellBit + CellIndexSpace.direction(dim, false);
+                    passMasks[(int) (bit >>> 6)] |= 1L << bit;
+                }
+                if (coords[dim] < indexSpace.dimSize(dim) - 1) {
+                    final long bit = cellBit + CellIndexSpace.direction(dim, true);
+                    passMasks[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+            // следующая комната: последнее измерение меняется быстрее всех
+            for (int dim = dimensions - 1; dim >= 0 && ++coords[dim] == indexSpace.dimSize(dim); dim--) {
+                coords[dim] = 0;
             }
         }
-
-        return maze;
+        maze.setPassMasks(fromCell, toCell - fromCell, passMasks);
     }
 
     /**
-     * Строит стену в выбранном срезе и разбивает его на два новых среза.
+     * Выбирает стену в срезе: случайное измерение, в котором срез шире одной комнаты,
+     * и случайную позицию в нем.
      *
-     * @param slice исходный срез
-     * @param wall параметры стены
-     * @return список новых срезов, полученных после разделения исходного
+     * @return стена: измерение в старших 32 битах, позиция в младших; -1, если срез - одна комната
+     * или коридор: в коридоре у каждой стены одна комната и проход остается на месте
      */
-    private @NotNull List<Slice> buildWall(@NotNull Slice slice, @NotNull Wall wall ) {
-        //получаем все клетки из стены
-        final List<Cell> wallCells = slice.stream().filter(cell -> cell.coord(wall.dimensionNum) == wall.dimensionValue)
-                .toList();
-        //для каждой из них строим стену
-        wallCells.forEach(cell -> maze.removePass(cell, cell.plus(wall.dimensionNum, 1)));
-        // выбираем в стене одну случайную клетку
-        final Cell passCell = wallCells.get(random.nextInt(wallCells.size()));
-        // и делаем в ней проход
-        maze.addPass(passCell, Set.of(passCell.plus(wall.dimensionNum, 1)));
-        // и возвращаем slice разбитый на 2
-
-        final List<Slice> result = new ArrayList<>();
-
-        final Cell first1 = slice.first;
-        final Cell last1 = slice.last.withNewDimensionValue(wall.dimensionNum, wall.dimensionValue);
-        result.add(new Slice(first1, last1));
-
-        final Cell first2 = slice.first.withNewDimensionValue(wall.dimensionNum, wall.dimensionValue+1);
-        final Cell last2 = slice.last;
-        result.add(new Slice(first2, last2));
-        return result;
+    private static long createRandomWallInSlice(int @NotNull [] first, int @NotNull [] last,
+            @NotNull SplittableRandom random, int @NotNull [] pretenders) {
+        int pretenderCount = 0;
+        for (int dimensionNum = 0; dimensionNum < first.length; dimensionNum++) {
+            if (last[dimensionNum] > first[dimensionNum]) {
+                pretenders[pretenderCount++] = dimensionNum;
+            }
+        }
+        if (pretenderCount < 2) {
+            return NO_WALL;
+        }
+        final int dimensionNum = pretenders[random.nextInt(pretenderCount)];
+        final int dimensionValue = first[dimensionNum] + random.nextInt(last[dimensionNum] - first[dimensionNum]);
+        return (long) dimensionNum << 32 | dimensionValue;
     }
 
-    @Nullable
-    private Wall createRandomWallInSlice(@NotNull Slice slice) {
-        final List<Wall> pretenders = new ArrayList<>();
-        for(int dimensionNum =0; dimensionNum< slice.first.size(); ++dimensionNum ) {
-            final int topCoord = slice.first.coord(dimensionNum);
-            final int lastCoord = slice.last.coord(dimensionNum);
-            if (lastCoord - topCoord > 0) {
-                final int wallPosition = topCoord + random.nextInt(lastCoord - topCoord);
-                pretenders.add(new Wall(dimensionNum, wallPosition));
+    /**
+     * Строит стену: убирает проходы через стену у всех комнат ее линии, кроме одной случайной.
+     *
+     * @param offsets рабочий массив на каждое измерение
+     */
+    private static void buildWall(@NotNull Maze maze, int @NotNull [] first, int @NotNull [] last, long wall,
+            @NotNull SplittableRandom random, int @NotNull [] offsets) {
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int wallDim = dimensionNum(wall);
+        final int direction = CellIndexSpace.direction(wallDim, true);
+        int lineSize = 1;
+        int cell = dimensionValue(wall) * indexSpace.stride(wallDim);
+        for (int dim = 0; dim < first.length; dim++) {
+            offsets[dim] = 0;
+            if (dim != wallDim) {
+                lineSize *= last[dim] - first[dim] + 1;
+                cell += first[dim] * indexSpace.stride(dim);
             }
         }
 
-        if (pretenders.isEmpty()) {
-            return null;
-        } else {
-           return pretenders.get(random.nextInt(pretenders.size()));
+        final int passAt = random.nextInt(lineSize);
+        for (int i = 0; i < lineSize; i++) {
+            if (i != passAt) {
+                maze.removePassAtomic(cell, direction);
+            }
+            // следующая комната линии
+            for (int dim = first.length - 1; dim >= 0; dim--) {
+                if (dim == wallDim) {
+                    continue;
+                }
+                if (first[dim] + offsets[dim] < last[dim]) {
+                    offsets[dim]++;
+                    cell += indexSpace.stride(dim);
+                    break;
+                }
+                cell -= offsets[dim] * indexSpace.stride(dim);
+                offsets[dim] = 0;
+            }
+        }
+    }
+
+    private static int dimensionNum(long wall) {
+        return (int) (wall >>> 32);
+    }
+
+    private static int dimensionValue(long wall) {
+        return (int) wall;
+    }
+
+    private static long cellCount(int @NotNull [] first, int @NotNull [] last) {
+        long count = 1;
+        for (int dim = 0; dim < first.length; dim++) {
+            count *= last[dim] - first[dim] + 1;
         }
+        return count;
     }
 
-    private record Wall(int dimensionNum, int dimensionValue) {}
+    /**
+     * Деление среза: большой срез делится пополам с разделением потока случайных чисел,
+     * маленький - целиком в одном потоке
+     */
+    private static final class DivisionTask extends RecursiveAction {
+
+        private final transient Maze maze;
+        private final int[] first;
+        private final int[] last;
+        private final transient SplittableRandom random;
+        private final boolean forkJoin;
+        private final transient GenerationMonitor monitor;
+
+        DivisionTask(@NotNull Maze maze, int @NotNull [] first, int @NotNull [] last, @NotNull SplittableRandom random, boolean forkJoin,
+                @NotNull GenerationMonitor monitor) {
+            this.maze = maze;
+            this.first = first;
+            this.last = last;
+            this.random = random;
+            this.forkJoin = forkJoin;
+            this.monitor = monitor;
+        }
 
+        @Override
+        protected void compute() {
+            final int[] scratch = new int[first.length];
+            final long cellCount = cellCount(first, last);
+            if (cellCount < PARALLEL_THRESHOLD) {
+                divideSequentially(scratch);
+                monitor.cellsCarved(cellCount);
+                return;
+            }
+
+            final long wall = createRandomWallInSlice(first, last, random, scratch);
+            if (wall == NO_WALL) {
+                monitor.cellsCarved(cellCount);
+                return;
+            }
+            buildWall(maze, first, last, wall, random, scratch);
+
+            final int[] leftLast = last.clone();
+            leftLast[dimensionNum(wall)] = dimensionValue(wall);
+            final int[] rightFirst = first.clone();
+            rightFirst[dimensionNum(wall)] = dimensionValue(wall) + 1;
+            final DivisionTask left = new DivisionTask(maze, first, leftLast, random.split(), forkJoin,
+                    monitor);
+            final DivisionTask right = new DivisionTask(maze, rightFirst, last, random, forkJoin, monitor);
+            if (forkJoin) {
+                invokeAll(left, right);
+            } else {
+                left.compute();
+                right.compute();
+            }
+        }
+
+        /**
+         * Делит срез до отдельных комнат, срезы ждут своей очереди в стеке границ
+         */
+        private void divideSequentially(int @NotNull [] scratch) {
+            final int dimensions = first.length;
+            final int[] sliceFirst = new int[dimensions];
+            final int[] sliceLast = new int[dimensions];
+            int[] stack = new int[2 * dimensions * 16];
+            System.arraycopy(first, 0, stack, 0, dimensions);
+            System.arraycopy(last, 0, stack, dimensions, dimensions);
+            int top = 2 * dimensions;
+
+            while (top > 0) {
+                top -= 2 * dimensions;
+                System.arraycopy(stack, top, sliceFirst, 0, dimensions);
+                System.arraycopy(stack, top + dimensions, sliceLast, 0, dimensions);
+
+                final long wall = createRandomWallInSlice(sliceFirst, sliceLast, random, scratch);
+                if (wall == NO_WALL) {
+                    continue;
+                }
+                buildWall(maze, sliceFirst, sliceLast, wall, random, scratch);
+
+                if (top + 4 * dimensions > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                // правая половина кладется первой, чтобы левая делилась раньше
+                System.arraycopy(sliceFirst, 0, stack, top, dimensions);
+                stack[top + dimensionNum(wall)] = dimensionValue(wall) + 1;
+                System.arraycopy(sliceLast, 0, stack, top + dimensions, dimensions);
+                top += 2 * dimensions;
+                System.arraycopy(sliceFirst, 0, stack, top, dimensions);
+                System.arraycopy(sliceLast, 0, stack, top + dimensions, dimensions);
+                stack[top + dimensions + dimensionNum(wall)] = dimensionValue(wall);
+                top += 2 * dimensions;
+            }
+        }
+    }
 }
@@ -0,0 +1,108 @@
+package com.temnenkov.mzctl.generation;
+
+import com.temnenkov.mzctl.model.CellIndexSpace;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import com.temnenkov.mzctl.model.MazeFactory;
+import com.temnenkov.mzctl.util.SimplePreconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Основа генераторов, в которых ряды лабиринта строятся независимо (Binary Tree, Sidewinder).
+ *
+ * <p>Ряд - комнаты вдоль последнего измерения, их индексы идут подряд. Ряды группируются в порции,
+ * порция начинается на границе {@link Maze#PASS_MASK_BLOCK} комнат и поэтому владеет своими словами
+ * битовых масок. Порции строятся на общем пуле из threads потоков в два прохода:</p>
+ * <ol>
+ *     <li>каждый ряд отмечает проходы только у своих комнат ({@link #carveRow}) в буфере размером с порцию,
+ *     затем проходы порции вместе со встречными внутри нее записываются в лабиринт, см. {@link PackedPasses};</li>
+ *     <li>встречные биты проходов через границы порций добавляются атомарно.</li>
+ * </ol>
+ *
+ * <p>Сверх самого лабиринта в памяти только буферы порций, которые строятся в этот момент.</p>
+ *
+ * <p>У каждой порции свой поток случайных чисел {@link SplittableRandom}, зёрна порций берутся
+ * последовательно из общего генератора. Разбиение на порции зависит только от размеров лабиринта,
+ * поэтому при фиксированном зерне лабиринт одинаков при любом количестве потоков.</p>
+ */
+abstract class RowParallelMazeGenerator implements MazeGenerator {
+
+    /**
+     * Порция не меньше стольких комнат, меньшие лабиринты строятся в одном потоке
+     */
+    private static final int MIN_CHUNK_CELLS = 1 << 16;
+
+    protected final MazeDim mazeDim;
+    private final RandomGenerator random;
+    private final int threads;
+    private boolean generated = false;
+
+    protected RowParallelMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random, int threads) {
+        this.mazeDim = SimplePreconditions.checkNotNull(mazeDim, "mazeDim", ".ctor");
+        this.random = SimplePreconditions.checkNotNull(random, "random", ".ctor");
+        SimplePreconditions.checkArgument(threads > 0, "threads must be positive");
+        this.threads = threads;
+    }
+
+    /**
+     * Прорубает проходы ряда. Отмечать можно только проходы комнат этого ряда.
+     *
+     * @param indexSpace нумерация комнат
+     * @param rowStart   индекс первой комнаты ряда
+     * @param random     поток случайных чисел порции
+     * @param carved     прорубленные проходы
+     */
+    protected abstract void carveRow(@NotNull CellIndexSpace indexSpace, int rowStart,
+            @NotNull SplittableRandom random, @NotNull PackedPasses carved);
+
+    @Override
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
+        if (generated) {
+            throw new IllegalStateException("Maze already generated");
+        }
+        generated = true;
+
+        final Maze maze = MazeFactory.createNotConnectedMaze(mazeDim);
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        monitor.start(indexSpace.size());
+        final int rowLength = indexSpace.dimSize(indexSpace.dimensions() - 1);
+        final int rowCount = indexSpace.size() / rowLength;
+
+        // наименьшее количество рядов, кратное блоку комнат, затем - не меньше MIN_CHUNK_CELLS комнат
+        final int alignedRows = Maze.PASS_MASK_BLOCK / PackedPasses.gcd(rowLength, Maze.PASS_MASK_BLOCK);
+        final long alignedCells = (long) alignedRows * rowLength;
+        final int rowsPerChunk = (int) Math.min(rowCount,
+                alignedRows * Math.max(1, (MIN_CHUNK_CELLS + alignedCells - 1) / alignedCells));
+        final int chunkCount = (rowCount + rowsPerChunk - 1) / rowsPerChunk;
+        final long[] seeds = new long[chunkCount];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextLong();
+        }
+
+        final int chunkCells = rowsPerChunk * rowLength;
+        ChunkTask.forEachChunk((from, to) -> {
+            for (int chunk = from; chunk < to; chunk++) {
+                final int firstCell = chunk * chunkCells;
+                final int lastCell = (int) Math.min(indexSpace.size(), (long) firstCell + chunkCells);
+                final PackedPasses carved = new PackedPasses(indexSpace, firstCell, lastCell);
+                final SplittableRandom chunkRandom = new SplittableRandom(seeds[chunk]);
+                for (int rowStart = firstCell; rowStart < lastCell; rowStart += rowLength) {
+                    carveRow(indexSpace, rowStart, chunkRandom, carved);
+                }
+                carved.writeTo(maze);
+                monitor.cellsCarved(lastCell - firstCell);
+            }
+        }, chunkCount, threads);
+        ChunkTask.forEachChunk((from, to) -> {
+            for (int chunk = from; chunk < to; chunk++) {
+                PackedPasses.linkAcross(maze, chunk * chunkCells,
+                        (int) Math.min(indexSpace.size(), (long) (chunk + 1) * chunkCells));
+            }
+        }, chunkCount, threads);
+        monitor.finish();
+        return maze;
+    }
+}
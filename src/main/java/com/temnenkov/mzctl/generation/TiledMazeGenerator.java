@@ -0,0 +1,215 @@
+package com.temnenkov.mzctl.generation;
+
+import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.model.CellIndexSpace;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import com.temnenkov.mzctl.model.MazeFactory;
+import com.temnenkov.mzctl.model.Slice;
+import com.temnenkov.mzctl.util.IntDisjointSet;
+import com.temnenkov.mzctl.util.SimplePreconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Параллельная генерация большого лабиринта по частям.
+ *
+ * <p>Лабиринт делится на прямоугольные участки ({@link Slice}) примерно одинакового размера. В каждом
+ * участке независимо строится идеальный лабиринт выбранным алгоритмом со своим генератором случайных чисел,
+ * участки обрабатываются параллельно. Затем по случайному остовному дереву графа участков
+ * (соседние участки связаны ребром) через каждую границу-ребро дерева прорубается ровно один проход.
+ * Дерево деревьев, соединённых деревом, - снова дерево, поэтому лабиринт остаётся идеальным.</p>
+ *
+ * <p>По последнему измерению границы участков кратны {@link Maze#PASS_MASK_BLOCK}, поэтому ряды участков
+ * почти целиком занимают свои слова хранилища. Участок переносится в лабиринт рядами через
+ * {@link Maze#setPassMasks} без общей блокировки.</p>
+ *
+ * <p>Семена участков ({@link SplittableRandom}) и проходы между ними берутся из одного random последовательно,
+ * поэтому при одном и том же random результат не зависит от количества потоков.</p>
+ */
+public class TiledMazeGenerator implements MazeGenerator {
+
+    private static final String CTOR = ".ctor";
+    private final MazeDim mazeDim;
+    private final RandomGenerator random;
+    private final MazeGeneratorFactory.Algo algo;
+    private final int tileSize;
+    private final int threads;
+    private boolean generated = false;
+
+    /**
+     * Конструктор генератора.
+     *
+     * @param mazeDim  размерность лабиринта
+     * @param random   генератор случайных чисел
+     * @param algo     алгоритм, которым строятся участки, должен строить идеальные лабиринты
+     * @param tileSize желаемый размер участка по каждому измерению
+     * @param threads  количество потоков, 1 - без параллельности
+     */
+    public TiledMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random,
+            @NotNull MazeGeneratorFactory.Algo algo, int tileSize, int threads) {
+        SimplePreconditions.checkArgument(tileSize > 0, "tileSize must be positive");
+        SimplePreconditions.checkArgument(threads > 0, "threads must be positive");
+        this.mazeDim = SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR);
+        this.random = SimplePreconditions.checkNotNull(random, "random", CTOR);
+        this.algo = SimplePreconditions.checkNotNull(algo, "algo", CTOR);
+        this.tileSize = tileSize;
+        this.threads = threads;
+    }
+
+    @Override
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
+        if (generated) {
+            throw new IllegalStateException("Maze already generated");
+        }
+        generated = true;
+
+        final Maze maze = MazeFactory.createNotConnectedMaze(mazeDim);
+        monitor.start(maze.totalCellCount());
+        final int rowDim = mazeDim.size() - 1;
+        final int[] tileCounts = new int[mazeDim.size()];
+        for (int dim = 0; dim < rowDim; dim++) {
+            tileCounts[dim] = (mazeDim.dimSize(dim) + tileSize - 1) / tileSize;
+        }
+        // по последнему измерению участки состоят из целых блоков
+        final int blocksPerTile = (tileSize + Maze.PASS_MASK_BLOCK - 1) / Maze.PASS_MASK_BLOCK;
+        tileCounts[rowDim] = (rowBlockCount() + blocksPerTile - 1) / blocksPerTile;
+        final CellIndexSpace tileSpace = new CellIndexSpace(MazeDim.of(tileCounts));
+        final List<Slice> tiles = splitIntoTiles(tileSpace);
+        final long[] seeds = new long[tiles.size()];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = random.nextLong();
+        }
+
+        ChunkTask.forEachChunk((from, to) -> {
+            for (int i = from; i < to; i++) {
+                generateTile(maze, tiles.get(i), seeds[i], monitor);
+            }
+        }, tiles.size(), threads);
+
+        stitchTiles(maze, tileSpace, tiles);
+        monitor.finish();
+        return maze;
+    }
+
+    /**
+     * Разбивает лабиринт на участки, участки нумеруются так же, как клетки в tileSpace
+     */
+    private @NotNull List<Slice> splitIntoTiles(@NotNull CellIndexSpace tileSpace) {
+        final List<Slice> tiles = new ArrayList<>(tileSpace.size());
+        final int dimensions = tileSpace.dimensions();
+        for (int tile = 0; tile < tileSpace.size(); tile++) {
+            final int[] first = new int[dimensions];
+            final int[] last = new int[dimensions];
+            for (int dim = 0; dim < dimensions - 1; dim++) {
+                final int tileCoord = tileSpace.coord(tile, dim);
+                final int tileCount = tileSpace.dimSize(dim);
+                // границы распределены равномерно, участки отличаются по размеру не больше чем на 1
+                first[dim] = (int) ((long) mazeDim.dimSize(dim) * tileCoord / tileCount);
+                last[dim] = (int) ((long) mazeDim.dimSize(dim) * (tileCoord + 1) / tileCount) - 1;
+            }
+            // по последнему измерению так же распределены блоки, последний блок может быть неполным
+            final int rowDim = dimensions - 1;
+            final int tileCoord = tileSpace.coord(tile, rowDim);
+            final int tileCount = tileSpace.dimSize(rowDim);
+            first[rowDim] = (int) ((long) rowBlockCount() * tileCoord / tileCount) * Maze.PASS_MASK_BLOCK;
+            last[rowDim] = Math.min(mazeDim.dimSize(rowDim),
+                    (int) ((long) rowBlockCount() * (tileCoord + 1) / tileCount) * Maze.PASS_MASK_BLOCK) - 1;
+            tiles.add(new Slice(Cell.of(first), Cell.of(last)));
+        }
+        return tiles;
+    }
+
+    /**
+     * Количество блоков по {@link Maze#PASS_MASK_BLOCK} комнат в ряду
+     */
+    private int rowBlockCount() {
+        return (mazeDim.dimSize(mazeDim.size() - 1) + Maze.PASS_MASK_BLOCK - 1) / Maze.PASS_MASK_BLOCK;
+    }
+
+    /**
+     * Строит лабиринт участка и переносит его проходы в общий лабиринт
+     */
+    private void generateTile(@NotNull Maze maze, @NotNull Slice tile, long seed, @NotNull GenerationMonitor monitor) {
+        final int dimensions = mazeDim.size();
+        final int[] sizes = new int[dimensions];
+        for (int dim = 0; dim < dimensions; dim++) {
+            sizes[dim] = tile.last.coord(dim) - tile.first.coord(dim) + 1;
+        }
+        final Maze tileMaze = MazeGeneratorFactory.create(algo, MazeDim.of(sizes), new SplittableRandom(seed), 1)
+                .generateMaze(monitor.part());
+        final CellIndexSpace tileIndexSpace = tileMaze.getIndexSpace();
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+
+        // ряд участка - подряд идущие комнаты общего лабиринта; проходы участка не выходят за его границы,
+        // поэтому маски комнат ряда переносятся как есть, встречные биты лежат в том же участке
+        final int directionCount = indexSpace.directionCount();
+        final int rowLength = tileIndexSpace.dimSize(dimensions - 1);
+        final long[] passMasks = new long[(int) (((long) rowLength * directionCount + Long.SIZE - 1) / Long.SIZE)];
+        for (int localRow = 0; localRow < tileIndexSpace.size(); localRow += rowLength) {
+            int globalRow = 0;
+            for (int dim = 0; dim < dimensions; dim++) {
+                globalRow += (tile.first.coord(dim) + tileIndexSpace.coord(localRow, dim)) * indexSpace.stride(dim);
+            }
+            Arrays.fill(passMasks, 0);
+            for (int column = 0; column < rowLength; column++) {
+                for (int direction = 0; direction < directionCount; direction++) {
+                    if (tileMaze.hasPass(localRow + column, direction)) {
+                        final long bit = (long) column * directionCount + direction;
+                        passMasks[(int) (bit >>> 6)] |= 1L << bit;
+                    }
+                }
+            }
+            maze.setPassMasks(globalRow, rowLength, passMasks);
+        }
+        monitor.cellsCarved(tileIndexSpace.size());
+    }
+
+    /**
+     * Соединяет участки по случайному остовному дереву: через каждую его границу - один проход
+     * в случайном месте
+     */
+    private void stitchTiles(@NotNull Maze maze, @NotNull CellIndexSpace tileSpace, @NotNull List<Slice> tiles) {
+        final int dimensions = tileSpace.dimensions();
+        // ребро графа участков - участок и направление к соседу в сторону увеличения координаты
+        final int[] edges = new int[tileSpace.size() * dimensions];
+        int edgeCount = 0;
+        for (int tile = 0; tile < tileSpace.size(); tile++) {
+            for (int dim = 0; dim < dimensions; dim++) {
+                if (tileSpace.neighbor(tile, CellIndexSpace.direction(dim, true)) >= 0) {
+                    edges[edgeCount++] = tile * dimensions + dim;
+                }
+            }
+        }
+
+        final IntDisjointSet disjointSet = new IntDisjointSet(tileSpace.size());
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int[] coords = new int[dimensions];
+        // перебор рёбер в случайном порядке (Фишер-Йетс на лету), как в алгоритме Краскала
+        for (int i = 0; i < edgeCount && disjointSet.componentCount() > 1; i++) {
+            final int j = i + random.nextInt(edgeCount - i);
+            final int edge = edges[j];
+            edges[j] = edges[i];
+
+            final int tile = edge / dimensions;
+            final int seamDim = edge % dimensions;
+            final int neighborTile = tileSpace.neighbor(tile, CellIndexSpace.direction(seamDim, true));
+            if (!disjointSet.union(tile, neighborTile)) {
+                continue;
+            }
+            final Slice slice = tiles.get(tile);
+            for (int dim = 0; dim < dimensions; dim++) {
+                coords[dim] = dim == seamDim
+                        ? slice.last.coord(dim)
+                        : slice.first.coord(dim) + random.nextInt(slice.last.coord(dim) - slice.first.coord(dim) + 1);
+            }
+            final int cell = indexSpace.indexOf(coords);
+            maze.addPass(cell, cell + indexSpace.stride(seamDim));
+        }
+    }
+}
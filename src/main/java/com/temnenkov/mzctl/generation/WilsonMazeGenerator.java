@@ -1,80 +1,102 @@
 package com.temnenkov.mzctl.generation;
 
-import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.model.CellIndexSpace;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.MazeFactory;
-import com.temnenkov.mzctl.util.IndexedHashSet;
 import com.temnenkov.mzctl.util.SimplePreconditions;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
-import java.util.Set;
-
+import java.util.random.RandomGenerator;
+
+/**
+ * Генератор лабиринта по алгоритму Уилсона (loop-erased random walk) - равномерно случайное остовное дерево.
+ *
+ * <p>Блуждание хранится в классической форме «последнего выхода»: массив next[cell] - куда блуждание
+ * последний раз ушло из комнаты. Петли стираются сами собой - повторный уход из комнаты перезаписывает
+ * её выход, а путь потом проходится заново от начала по next. Принадлежность дереву - битовая маска,
+ * случайный сосед выбирается отбраковкой направлений, ведущих за край. Ни коллекций, ни упаковки,
+ * поэтому лабиринт 2000x2000 строится за секунды.</p>
+ */
 public class WilsonMazeGenerator implements MazeGenerator {
 
     private static final String CTOR = ".ctor";
 
     private final Maze maze;
-    private final Random random;
+    private final RandomGenerator random;
     private boolean generated = false;
-    private final Set<Cell> inMaze = new HashSet<>();
 
-    public WilsonMazeGenerator(@NotNull MazeDim mazeDim, @NotNull Random random) {
+    public WilsonMazeGenerator(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
         this.maze = MazeFactory.createNotConnectedMaze(SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR));
         this.random = SimplePreconditions.checkNotNull(random, "random", CTOR);
     }
 
     @Override
-    public Maze generateMaze() {
+    public Maze generateMaze(@NotNull GenerationMonitor monitor) {
         checkAlreadyGenerated();
 
-        final List<Cell> allCells = maze.stream().toList();
-        final Cell firstCell = allCells.get(random.nextInt(allCells.size()));
-        inMaze.add(firstCell);
-
-        final IndexedHashSet<Cell> notInMaze = new IndexedHashSet<>(allCells);
-        notInMaze.remove(firstCell);
-
-        while (!notInMaze.isEmpty()) {
-            Cell current = notInMaze.getRandom(random);
-            final Map<Cell, Cell> path = new LinkedHashMap<>();  // сохраняем порядок добавления
-
-            // Случайное блуждание
-            while (!inMaze.contains(current)) {
-                final Cell next = pickRandomNeighbor(current);
-                path.put(current, next);
-                current = next;
-
-                // удаление петель
-                if (path.containsKey(current)) {
-                    final Iterator<Cell> it = path.keySet().iterator();
-                    while (it.hasNext()) {
-                        if (it.next().equals(current)) {
-                            break;
-                        }
-                        it.remove();
-                    }
-                }
+        final int totalCells = maze.totalCellCount();
+        monitor.start(totalCells);
+        final long[] inTree = new long[(totalCells + Long.SIZE - 1) / Long.SIZE];
+        markInTree(inTree, maze.getRandomIndex(random));
+        monitor.cellCarved();
+        connectByLoopErasedWalks(maze, random, inTree, monitor);
+        monitor.finish();
+        return maze;
+    }
+
+    /**
+     * Присоединяет к дереву все комнаты, которых в нём ещё нет, блужданиями Уилсона.
+     * Дерево может быть любым непустым - например, построенным Aldous-Broder.
+     *
+     * @param maze   лабиринт, в который добавляются проходы
+     * @param random источник случайности
+     * @param inTree  битовая маска комнат дерева, дополняется по ходу
+     * @param monitor монитор генерации
+     * @return количество шагов блужданий
+     */
+    static long connectByLoopErasedWalks(@NotNull Maze maze, @NotNull RandomGenerator random, long @NotNull [] inTree,
+            @NotNull GenerationMonitor monitor) {
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int directionCount = indexSpace.directionCount();
+        final int totalCells = maze.totalCellCount();
+        final int[] next = new int[totalCells];
+        long steps = 0;
+
+        // начала блужданий можно брать в любом порядке - равномерность дерева от этого не зависит
+        for (int start = 0; start < totalCells; start++) {
+            // случайное блуждание до дерева, запоминая последний выход из каждой комнаты
+            int current = start;
+            while (!isInTree(inTree, current)) {
+                next[current] = randomNeighbor(indexSpace, random, directionCount, current);
+                current = next[current];
+                steps++;
+                monitor.step();
             }
 
-            // Добавление пути в лабиринт
-            current = path.keySet().iterator().next();
-            while (path.containsKey(current)) {
-                final Cell next = path.get(current);
-                maze.addPass(current, next);
-                inMaze.add(current);
-                notInMaze.remove(current);
-                current = next;
+            // проход по последним выходам дает путь без петель - добавляем его в дерево
+            current = start;
+            while (!isInTree(inTree, current)) {
+                markInTree(inTree, current);
+                maze.addPass(current, next[current]);
+                current = next[current];
+                monitor.cellCarved();
             }
         }
+        return steps;
+    }
 
-        return maze;
+    /**
+     * Случайный сосед комнаты, все соседи равновероятны: направления за край лабиринта отбраковываются.
+     * В лабиринте должно быть больше одной комнаты.
+     */
+    static int randomNeighbor(@NotNull CellIndexSpace indexSpace, @NotNull RandomGenerator random,
+            int directionCount, int cell) {
+        int neighbor;
+        do {
+            neighbor = indexSpace.neighbor(cell, random.nextInt(directionCount));
+        } while (neighbor < 0);
+        return neighbor;
     }
 
     private void checkAlreadyGenerated() {
@@ -84,9 +106,12 @@ public class WilsonMazeGenerator implements MazeGenerator {
         generated = true;
     }
 
-    private Cell pickRandomNeighbor(Cell cell) {
-        final List<Cell> neighbors = maze.getAllNeighbors(cell).toList();
-        return neighbors.get(random.nextInt(neighbors.size()));
+    static boolean isInTree(long @NotNull [] inTree, int cell) {
+        return (inTree[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    static void markInTree(long @NotNull [] inTree, int cell) {
+        inTree[cell >>> 6] |= 1L << cell;
     }
 
-}
\ No newline at end of file
+}
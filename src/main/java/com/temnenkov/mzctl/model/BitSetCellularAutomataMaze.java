@@ -0,0 +1,257 @@
+package com.temnenkov.mzctl.model;
+
+import com.temnenkov.mzctl.util.SimpleMath;
+import com.temnenkov.mzctl.util.SimplePreconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Лабиринт для клеточного автомата, в котором под каждую клетку отводится один бит.
+ *
+ * <p>Клетки нумеруются так же, как в {@link CellIndexSpace}, поэтому ряд вдоль последнего измерения
+ * лежит в массиве подряд. Соседи-стены в ряду считаются одним сдвигом и {@link Long#bitCount(long)},
+ * а по остальным измерениям перебираются только соседние ряды: 3^(D-1) вместо 3^D клеток.</p>
+ *
+ * <p>Помимо методов {@link CellularAutomataMaze} есть методы по линейному индексу клетки,
+ * которые не создают объектов {@link Cell}.</p>
+ */
+public class BitSetCellularAutomataMaze implements CellularAutomataMaze {
+
+    private static final String CTOR = ".ctor";
+    @NotNull
+    private final MazeDim mazeDim;
+    @NotNull
+    private final RandomGenerator random;
+    @NotNull
+    private final CellIndexSpace indexSpace;
+    private final int rowLength;
+    private final long[] words;
+
+    public BitSetCellularAutomataMaze(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
+        this.mazeDim = SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR);
+        this.random = SimplePreconditions.checkNotNull(random, "random", CTOR);
+        this.indexSpace = new CellIndexSpace(mazeDim);
+        this.rowLength = indexSpace.dimSize(indexSpace.dimensions() - 1);
+        this.words = new long[(indexSpace.size() + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    @Override
+    public MazeDim getDimensions() {
+        return mazeDim;
+    }
+
+    /**
+     * Нумерация клеток лабиринта
+     *
+     * @return нумерация клеток
+     */
+    public @NotNull CellIndexSpace getIndexSpace() {
+        return indexSpace;
+    }
+
+    @Override
+    public int totalCells() {
+        return indexSpace.size();
+    }
+
+    @Override
+    public boolean isWall(int... coords) {
+        return isWall(Cell.of(coords));
+    }
+
+    @Override
+    public boolean isWall(Cell cell) {
+        return indexSpace.contains(cell) && isWallAt(indexSpace.indexOf(cell));
+    }
+
+    @Override
+    public boolean isWallAt(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public void setWall(boolean isWall, int... coords) {
+        setWall(isWall, Cell.of(coords));
+    }
+
+    @Override
+    public void setWall(boolean isWall, Cell cell) {
+        SimplePreconditions.checkArgument(indexSpace.contains(cell), "Cell is out of maze bounds: " + cell);
+        setWallAt(indexSpace.indexOf(cell), isWall);
+    }
+
+    /**
+     * Устанавливает состояние клетки.
+     * Клетки из разных 64-битных слов (индекс / 64) можно менять из разных потоков одновременно.
+     *
+     * @param index  индекс клетки
+     * @param isWall true, если клетка должна стать стеной
+     */
+    public void setWallAt(int index, boolean isWall) {
+        if (isWall) {
+            words[index >>> 6] |= 1L << index;
+        } else {
+            words[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    @Override
+    public int countWallNeighbors(int... coords) {
+        return countWallNeighbors(Cell.of(coords));
+    }
+
+    @Override
+    public int countWallNeighbors(Cell cell) {
+        SimplePreconditions.checkArgument(indexSpace.contains(cell), "Cell is out of maze bounds: " + cell);
+        return countWallNeighborsAt(indexSpace.indexOf(cell));
+    }
+
+    /**
+     * Количество соседей-стен клетки (по всем 3^D - 1 направлениям, включая диагонали)
+     *
+     * @param index индекс клетки
+     * @return количество соседей-стен
+     */
+    public int countWallNeighborsAt(int index) {
+        final int count = countWallsAround(index, 0);
+        return isWallAt(index) ? count - 1 : count;
+    }
+
+    /**
+     * Длина ряда - размер лабиринта по последнему измерению. Клетки ряда идут подряд.
+     *
+     * @return длина ряда
+     */
+    public int rowLength() {
+        return rowLength;
+    }
+
+    /**
+     * Количество соседей-стен для всех клеток ряда. Соседние ряды находятся один раз на весь ряд,
+     * поэтому это быстрее, чем {@link #countWallNeighborsAt(int)} для каждой клетки.
+     *
+     * @param rowStart индекс первой клетки ряда, кратен {@link #rowLength()}
+     * @param counts   массив длиной не меньше {@link #rowLength()}, сюда записываются результаты
+     */
+    public void countWallNeighborsInRow(int rowStart, int @NotNull [] counts) {
+        countWallNeighborsInRow(rowStart, 0, rowLength, counts);
+    }
+
+    /**
+     * Количество соседей-стен для части ряда.
+     * Только читает лабиринт, поэтому может вызываться из нескольких потоков одновременно.
+     *
+     * @param rowStart   индекс первой клетки ряда, кратен {@link #rowLength()}
+     * @param fromColumn первая клетка части ряда (включительно)
+     * @param toColumn   последняя клетка части ряда (исключительно)
+     * @param counts     массив длиной не меньше toColumn, результат для клетки column пишется в counts[column]
+     */
+    public void countWallNeighborsInRow(int rowStart, int fromColumn, int toColumn, int @NotNull [] counts) {
+        final int[] rowStarts = new int[SimpleMath.pow(3, indexSpace.dimensions() - 1)];
+        final int rowCount = collectNeighborRows(rowStart, 0, rowStarts, 0);
+        for (int column = fromColumn; column < toColumn; column++) {
+            final int from = column > 0 ? column - 1 : column;
+            final int to = column < rowLength - 1 ? column + 1 : column;
+            int count = isWallAt(rowStart + column) ? -1 : 0;
+            for (int i = 0; i < rowCount; i++) {
+                count += countWalls(rowStarts[i] + from, rowStarts[i] + to);
+            }
+            counts[column] = count;
+        }
+    }
+
+    /**
+     * Собрать начала рядов, соседних с рядом rowStart по измерениям начиная с dimension (включая сам ряд)
+     */
+    private int collectNeighborRows(int rowStart, int dimension, int[] rowStarts, int count) {
+        if (dimension == indexSpace.dimensions() - 1) {
+            rowStarts[count] = rowStart;
+            return count + 1;
+        }
+        final int stride = indexSpace.stride(dimension);
+        final int coord = indexSpace.coord(rowStart, dimension);
+        int result = collectNeighborRows(rowStart, dimension + 1, rowStarts, count);
+        if (coord > 0) {
+            result = collectNeighborRows(rowStart - stride, dimension + 1, rowStarts, result);
+        }
+        if (coord < indexSpace.dimSize(dimension) - 1) {
+            result = collectNeighborRows(rowStart + stride, dimension + 1, rowStarts, result);
+        }
+        return result;
+    }
+
+    /**
+     * Количество стен в окрестности клетки по измерениям начиная с dimension, включая саму клетку
+     */
+    private int countWallsAround(int index, int dimension) {
+        if (dimension == indexSpace.dimensions() - 1) {
+            return countWallsInRow(index);
+        }
+        final int stride = indexSpace.stride(dimension);
+        final int coord = indexSpace.coord(index, dimension);
+        int count = countWallsAround(index, dimension + 1);
+        if (coord > 0) {
+            count += countWallsAround(index - stride, dimension + 1);
+        }
+        if (coord < indexSpace.dimSize(dimension) - 1) {
+            count += countWallsAround(index + stride, dimension + 1);
+        }
+        return count;
+    }
+
+    /**
+     * Количество стен среди клетки и её соседей слева и справа по последнему измерению
+     */
+    private int countWallsInRow(int index) {
+        final int coord = index % rowLength;
+        return countWalls(coord > 0 ? index - 1 : index, coord < rowLength - 1 ? index + 1 : index);
+    }
+
+    /**
+     * Количество стен среди клеток с индексами от from до to включительно, не больше трёх клеток подряд
+     */
+    private int countWalls(int from, int to) {
+        final int fromWord = from >>> 6;
+        final int toWord = to >>> 6;
+        final long head = words[fromWord] >>> from;
+        if (fromWord == toWord) {
+            return Long.bitCount(head & ((1L << (to - from + 1)) - 1));
+        }
+        // окно лежит на границе двух слов
+        return Long.bitCount(head) + Long.bitCount(words[toWord] & ((1L << (to + 1)) - 1));
+    }
+
+    @Override
+    public CellularAutomataMaze initialize(double fillProbability) {
+        for (int index = 0; index < indexSpace.size(); index++) {
+            setWallAt(index, random.nextDouble() <= fillProbability);
+        }
+        return this;
+    }
+
+    @Override
+    public @NotNull Iterator<Cell> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public Spliterator<Cell> spliterator() {
+        return new CellRangeSpliterator(indexSpace, null);
+    }
+
+    @Override
+    public Stream<Cell> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public boolean isValid(@NotNull Cell cell) {
+        return indexSpace.contains(cell);
+    }
+}
@@ -0,0 +1,103 @@
+package com.temnenkov.mzctl.model;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Компактное хранилище проходов: под каждую комнату отводится 2·D подряд идущих бит,
+ * бит direction выставлен, если в этом направлении есть проход.
+ *
+ * <p>Для лабиринта 2000x2000 это 2 Мб вместо нескольких гигабайт у {@link HashMapPassageStorage}.</p>
+ */
+final class BitSetPassageStorage implements PassageStorage {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int bitsPerCell;
+    private final long[] words;
+
+    BitSetPassageStorage(@NotNull CellIndexSpace indexSpace) {
+        this.bitsPerCell = indexSpace.directionCount();
+        final long totalBits = (long) indexSpace.size() * bitsPerCell;
+        this.words = new long[Math.toIntExact((totalBits + Long.SIZE - 1) / Long.SIZE)];
+    }
+
+    @Override
+    public boolean hasPass(int index, int direction) {
+        final long bit = bitPosition(index, direction);
+        return (words[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    @Override
+    public void setPass(int index, int direction, boolean pass) {
+        final long bit = bitPosition(index, direction);
+        if (pass) {
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        } else {
+            words[(int) (bit >>> 6)] &= ~(1L << bit);
+        }
+    }
+
+    @Override
+    public void clearPassAtomic(int index, int direction) {
+        final long bit = bitPosition(index, direction);
+        WORDS.getAndBitwiseAnd(words, (int) (bit >>> 6), ~(1L << bit));
+    }
+
+    @Override
+    public void setPassAtomic(int index, int direction) {
+        final long bit = bitPosition(index, direction);
+        WORDS.getAndBitwiseOr(words, (int) (bit >>> 6), 1L << bit);
+    }
+
+    @Override
+    public long passMask(int index) {
+        return PassageStorage.unpackMask(words, (long) index * bitsPerCell, bitsPerCell);
+    }
+
+    @Override
+    public void setPassMasks(int fromIndex, int count, long @NotNull [] packedMasks) {
+        final long firstBit = (long) fromIndex * bitsPerCell;
+        final long bits = (long) count * bitsPerCell;
+        if (bits == 0) {
+            return;
+        }
+        // маски сдвигаются на начало диапазона; слова целиком внутри диапазона копируются,
+        // крайние слова делятся с соседними комнатами и сливаются атомарно
+        final int offset = (int) (firstBit & 63);
+        final int firstWord = (int) (firstBit >>> 6);
+        final int lastWord = (int) ((firstBit + bits - 1) >>> 6);
+        for (int word = firstWord; word <= lastWord; word++) {
+            final int source = word - firstWord;
+            long value = source < packedMasks.length ? packedMasks[source] << offset : 0;
+            if (offset != 0 && source > 0) {
+                value |= packedMasks[source - 1] >>> (Long.SIZE - offset);
+            }
+            long mask = -1L;
+            if (word == firstWord) {
+                mask &= -1L << offset;
+            }
+            if (word == lastWord) {
+                mask &= -1L >>> (63 - (int) ((firstBit + bits - 1) & 63));
+            }
+            if (mask == -1L) {
+                words[word] = value;
+            } else {
+                mergeAtomic(word, value, mask);
+            }
+        }
+    }
+
+    private void mergeAtomic(int word, long value, long mask) {
+        long current;
+        do {
+            current = (long) WORDS.getVolatile(words, word);
+        } while (!WORDS.compareAndSet(words, word, current, (current & ~mask) | (value & mask)));
+    }
+
+    private long bitPosition(int index, int direction) {
+        return (long) index * bitsPerCell + direction;
+    }
+}
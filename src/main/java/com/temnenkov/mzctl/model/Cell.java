@@ -31,6 +31,28 @@ public final class Cell implements Iterable<Cell> {
         this.totalMeWithNe = calculateTotalNeighboursAndMeCount();
     }
 
+    /**
+     * Конструктор без копирования: массив coordinates переходит во владение клетки
+     */
+    private Cell(int @NotNull [] coordinates, int totalMeWithNe) {
+        this.coordinates = coordinates;
+        this.totalMeWithNe = totalMeWithNe;
+    }
+
+    /**
+     * Создать клетку без копирования массива координат.
+     * Вызывающая сторона не должна больше менять переданный массив.
+     *
+     * @param coordinates координаты, массив переходит во владение клетки
+     * @return клетка
+     */
+    static @NotNull Cell wrap(int @NotNull [] coordinates) {
+        if (coordinates.length == 0) {
+            throw new IllegalArgumentException("Coordinates array must not be empty");
+        }
+        return new Cell(coordinates, SimpleMath.pow(3, coordinates.length));
+    }
+
     public static @NotNull Cell of(int... coords) {
         return new Cell(coords);
     }
@@ -53,7 +75,7 @@ public final class Cell implements Iterable<Cell> {
         checkDimensionIndex(dimensionNum);
         final int[] modifiedCoordinates = coordinates.clone();
         modifiedCoordinates[dimensionNum] = dimensionValue;
-        return new Cell(modifiedCoordinates);
+        return new Cell(modifiedCoordinates, totalMeWithNe);
     }
 
     @Contract("_, _ -> new")
@@ -61,7 +83,7 @@ public final class Cell implements Iterable<Cell> {
         checkDimensionIndex(dimension);
         final int[] newCoordinates = coordinates.clone();
         newCoordinates[dimension] += inc;
-        return new Cell(newCoordinates);
+        return new Cell(newCoordinates, totalMeWithNe);
     }
 
     public int coord(int dimension) {
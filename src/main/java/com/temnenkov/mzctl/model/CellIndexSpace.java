@@ -0,0 +1,305 @@
+package com.temnenkov.mzctl.model;
+
+import com.temnenkov.mzctl.util.SimplePreconditions;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Линейная нумерация комнат лабиринта заданной размерности.
+ *
+ * <p>Порядок нумерации совпадает с порядком обхода {@link Maze#iterator()}: быстрее всего меняется
+ * последняя координата, индекс комнаты - сумма {@code coord[d] * stride(d)}. Каждое направление
+ * кодируется числом {@code 2 * dimension + (plus ? 1 : 0)}, то есть у клетки {@code 2·D} возможных соседей.</p>
+ *
+ * <p>Индексы позволяют обходить лабиринт без создания объектов {@link Cell}: соседи вычисляются
+ * арифметикой над индексом. {@link Cell} остаётся значением для внешнего API.</p>
+ */
+public final class CellIndexSpace {
+
+    /**
+     * Маска проходов комнаты хранится в long, поэтому направлений не больше 64
+     */
+    static final int MAX_DIMENSIONS = Long.SIZE / 2;
+
+    private final int[] dimSizes;
+    private final int[] strides;
+    private final int size;
+
+    /**
+     * Создать нумерацию комнат для лабиринта заданной размерности
+     *
+     * @param mazeDim размерность лабиринта
+     */
+    public CellIndexSpace(@NotNull MazeDim mazeDim) {
+        final int dimensions = mazeDim.size();
+        if (dimensions > MAX_DIMENSIONS) {
+            throw new IllegalArgumentException("Maze dimension count must not exceed " + MAX_DIMENSIONS);
+        }
+        this.dimSizes = new int[dimensions];
+        this.strides = new int[dimensions];
+        int stride = 1;
+        for (int dim = dimensions - 1; dim >= 0; dim--) {
+            dimSizes[dim] = mazeDim.dimSize(dim);
+            strides[dim] = stride;
+            stride = Math.multiplyExact(stride, dimSizes[dim]);
+        }
+        this.size = stride;
+    }
+
+    /**
+     * Общее количество комнат
+     *
+     * @return количество комнат
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Количество измерений
+     *
+     * @return количество измерений
+     */
+    public int dimensions() {
+        return dimSizes.length;
+    }
+
+    /**
+     * Количество направлений (возможных соседей) у комнаты - 2·D
+     *
+     * @return количество направлений
+     */
+    public int directionCount() {
+        return dimSizes.length * 2;
+    }
+
+    /**
+     * Размер лабиринта по измерению
+     *
+     * @param dimension измерение
+     * @return количество комнат по измерению
+     */
+    public int dimSize(int dimension) {
+        return dimSizes[dimension];
+    }
+
+    /**
+     * Шаг индекса при сдвиге на единицу по измерению
+     *
+     * @param dimension измерение
+     * @return шаг индекса
+     */
+    public int stride(int dimension) {
+        return strides[dimension];
+    }
+
+    /**
+     * Лежит ли комната в пределах лабиринта
+     *
+     * @param cell комната, координаты - какие угодно
+     * @return true, если комната в пределах лабиринта
+     */
+    public boolean contains(@NotNull Cell cell) {
+        if (cell.size() != dimSizes.length) {
+            return false;
+        }
+        for (int dim = 0; dim < dimSizes.length; dim++) {
+            final int coord = cell.coord(dim);
+            if (coord < 0 || coord >= dimSizes[dim]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Лежит ли индекс в пределах лабиринта
+     *
+     * @param index индекс, какой угодно
+     * @return true, если индекс в пределах лабиринта
+     */
+    public boolean contains(int index) {
+        return index >= 0 && index < size;
+    }
+
+    /**
+     * Линейный индекс комнаты. Комната должна лежать в пределах лабиринта.
+     *
+     * @param cell комната
+     * @return линейный индекс
+     */
+    public int indexOf(@NotNull Cell cell) {
+        int index = 0;
+        for (int dim = 0; dim < dimSizes.length; dim++) {
+            index += cell.coord(dim) * strides[dim];
+        }
+        return index;
+    }
+
+    /**
+     * Линейный индекс комнаты по координатам. Координаты должны лежать в пределах лабиринта.
+     *
+     * @param coords координаты
+     * @return линейный индекс
+     */
+    public int indexOf(int @NotNull ... coords) {
+        SimplePreconditions.checkArgument(coords.length == dimSizes.length, "Cell dimension mismatch");
+        int index = 0;
+        for (int dim = 0; dim < dimSizes.length; dim++) {
+            index += coords[dim] * strides[dim];
+        }
+        return index;
+    }
+
+    /**
+     * Комната по линейному индексу
+     *
+     * @param index линейный индекс
+     * @return комната
+     */
+    public @NotNull Cell cellAt(int index) {
+        final int[] coords = new int[dimSizes.length];
+        int remainder = index;
+        for (int dim = 0; dim < dimSizes.length; dim++) {
+            coords[dim] = remainder / strides[dim];
+            remainder %= strides[dim];
+        }
+        return Cell.wrap(coords);
+    }
+
+    /**
+     * Координата комнаты по измерению
+     *
+     * @param index     линейный индекс комнаты
+     * @param dimension измерение
+     * @return координата
+     */
+    public int coord(int index, int dimension) {
+        return (index / strides[dimension]) % dimSizes[dimension];
+    }
+
+    /**
+     * Индекс соседней комнаты в заданном направлении
+     *
+     * @param index     индекс комнаты
+     * @param direction направление
+     * @return индекс соседа или -1, если сосед за пределами лабиринта
+     */
+    public int neighbor(int index, int direction) {
+        final int dim = direction >> 1;
+        final int coord = (index / strides[dim]) % dimSizes[dim];
+        if ((direction & 1) == 0) {
+            return coord > 0 ? index - strides[dim] : -1;
+        }
+        return coord < dimSizes[dim] - 1 ? index + strides[dim] : -1;
+    }
+
+    /**
+     * Записать в буфер индексы всех соседних комнат в пределах лабиринта (со стенами или без).
+     * Соседи перечисляются по измерениям, для каждого - сначала в сторону уменьшения координаты.
+     * Ничего не создаёт: буфер можно переиспользовать между вызовами.
+     *
+     * @param index  индекс комнаты
+     * @param buffer буфер длиной не меньше {@link #directionCount()}
+     * @return количество соседей, записанных в начало буфера
+     */
+    public int adjacent(int index, int @NotNull [] buffer) {
+        int count = 0;
+        for (int dim = 0; dim < dimSizes.length; dim++) {
+            final int stride = strides[dim];
+            final int coord = (index / stride) % dimSizes[dim];
+            if (coord > 0) {
+                buffer[count++] = index - stride;
+            }
+            if (coord < dimSizes[dim] - 1) {
+                buffer[count++] = index + stride;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Направление из комнаты from в соседнюю комнату to
+     *
+     * @param from индекс комнаты откуда
+     * @param to   индекс комнаты куда
+     * @return направление или -1, если комнаты не соседние
+     */
+    public int directionBetween(int from, int to) {
+        final int delta = to - from;
+        for (int dim = 0; dim < dimSizes.length; dim++) {
+            if (delta == strides[dim] && coord(from, dim) < dimSizes[dim] - 1) {
+                return direction(dim, true);
+            }
+            if (delta == -strides[dim] && coord(from, dim) > 0) {
+                return direction(dim, false);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Направление из комнаты from в соседнюю комнату to
+     *
+     * @param from откуда
+     * @param to   куда
+     * @return направление или -1, если комнаты не соседние
+     */
+    public static int directionBetween(@NotNull Cell from, @NotNull Cell to) {
+        if (from.size() != to.size()) {
+            return -1;
+        }
+        int direction = -1;
+        for (int dim = 0; dim < from.size(); dim++) {
+            final int delta = to.coord(dim) - from.coord(dim);
+            if (delta == 0) {
+                continue;
+            }
+            if (direction != -1 || (delta != 1 && delta != -1)) {
+                return -1;
+            }
+            direction = direction(dim, delta > 0);
+        }
+        return direction;
+    }
+
+    /**
+     * Код направления
+     *
+     * @param dimension измерение
+     * @param plus      true - в сторону увеличения координаты, false - уменьшения
+     * @return код направления
+     */
+    public static int direction(int dimension, boolean plus) {
+        return (dimension << 1) | (plus ? 1 : 0);
+    }
+
+    /**
+     * Измерение, вдоль которого идёт направление
+     *
+     * @param direction направление
+     * @return измерение
+     */
+    public static int dimensionOf(int direction) {
+        return direction >> 1;
+    }
+
+    /**
+     * Идёт ли направление в сторону увеличения координаты
+     *
+     * @param direction направление
+     * @return true - в сторону увеличения, false - уменьшения
+     */
+    public static boolean isPlus(int direction) {
+        return (direction & 1) != 0;
+    }
+
+    /**
+     * Противоположное направление
+     *
+     * @param direction направление
+     * @return противоположное направление
+     */
+    public static int opposite(int direction) {
+        return direction ^ 1;
+    }
+}
@@ -0,0 +1,112 @@
+package com.temnenkov.mzctl.model;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator по диапазону линейных индексов комнат.
+ *
+ * <p>Делится пополам по индексу за O(1), поэтому параллельные потоки получают равные части.
+ * Координаты комнаты вычисляются только при выдаче элемента; при {@link #forEachRemaining(Consumer)}
+ * начальные координаты вычисляются один раз, а дальше увеличиваются как счётчик.</p>
+ */
+final class CellRangeSpliterator implements Spliterator<Cell> {
+
+    private final @NotNull CellIndexSpace indexSpace;
+    private final int @Nullable [] origin;
+    private int from;
+    private final int to;
+
+    /**
+     * Spliterator по всем комнатам
+     *
+     * @param indexSpace нумерация комнат
+     * @param origin     смещение, прибавляемое к координатам каждой комнаты, null - без смещения
+     */
+    CellRangeSpliterator(@NotNull CellIndexSpace indexSpace, int @Nullable [] origin) {
+        this(indexSpace, origin, 0, indexSpace.size());
+    }
+
+    private CellRangeSpliterator(@NotNull CellIndexSpace indexSpace, int @Nullable [] origin, int from, int to) {
+        this.indexSpace = indexSpace;
+        this.origin = origin;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public boolean tryAdvance(@NotNull Consumer<? super Cell> action) {
+        if (from >= to) {
+            return false;
+        }
+        action.accept(cellAt(from++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(@NotNull Consumer<? super Cell> action) {
+        if (from >= to) {
+            return;
+        }
+        final int dimensions = indexSpace.dimensions();
+        final int[] coords = new int[dimensions];
+        for (int dim = 0; dim < dimensions; dim++) {
+            coords[dim] = indexSpace.coord(from, dim);
+        }
+        final int end = to;
+        for (int index = from; index < end; index++) {
+            action.accept(toCell(coords.clone()));
+            for (int dim = dimensions - 1; dim >= 0; dim--) {
+                if (++coords[dim] < indexSpace.dimSize(dim)) {
+                    break;
+                }
+                coords[dim] = 0;
+            }
+        }
+        from = end;
+    }
+
+    @Override
+    public @Nullable Spliterator<Cell> trySplit() {
+        final int mid = (from + to) >>> 1;
+        if (mid <= from) {
+            return null;
+        }
+        final CellRangeSpliterator prefix = new CellRangeSpliterator(indexSpace, origin, from, mid);
+        from = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return (long) to - from;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | IMMUTABLE | SIZED | SUBSIZED | NONNULL | DISTINCT;
+    }
+
+    private @NotNull Cell cellAt(int index) {
+        if (origin == null) {
+            return indexSpace.cellAt(index);
+        }
+        final int[] coords = new int[indexSpace.dimensions()];
+        for (int dim = 0; dim < coords.length; dim++) {
+            coords[dim] = indexSpace.coord(index, dim);
+        }
+        return toCell(coords);
+    }
+
+    private @NotNull Cell toCell(int @NotNull [] coords) {
+        if (origin != null) {
+            for (int dim = 0; dim < coords.length; dim++) {
+                coords[dim] += origin[dim];
+            }
+        }
+        return Cell.wrap(coords);
+    }
+}
@@ -29,6 +29,14 @@ public interface CellularAutomataMaze extends Iterable<Cell> {
      */
     boolean isWall(Cell cell);
 
+    /**
+     * Проверяет, является ли клетка стеной.
+     *
+     * @param index линейный индекс клетки, см. {@link CellIndexSpace}
+     * @return true, если клетка — стена, иначе false
+     */
+    boolean isWallAt(int index);
+
     /**
      * Устанавливает состояние клетки.
      *
@@ -6,10 +6,9 @@ import org.jetbrains.annotations.NotNull;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.Random;
 import java.util.Set;
 import java.util.Spliterator;
-import java.util.Spliterators;
+import java.util.random.RandomGenerator;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -20,7 +19,9 @@ public class CellularAutomataMazeImpl implements CellularAutomataMaze {
     @NotNull
     private final MazeDim mazeDim;
     @NotNull
-    private final Random random;
+    private final RandomGenerator random;
+    @NotNull
+    private final CellIndexSpace indexSpace;
     private final Set<Cell> walls = new HashSet<>();
 
     @Override
@@ -30,10 +31,11 @@ public class CellularAutomataMazeImpl implements CellularAutomataMaze {
 
     private final int totalCellCount;
 
-    public CellularAutomataMazeImpl(@NotNull MazeDim mazeDim, @NotNull Random random) {
+    public CellularAutomataMazeImpl(@NotNull MazeDim mazeDim, @NotNull RandomGenerator random) {
         this.mazeDim = SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR);
         this.random = SimplePreconditions.checkNotNull(random, "random", CTOR);
         this.totalCellCount = calculateTotalCellCount();
+        this.indexSpace = new CellIndexSpace(mazeDim);
     }
 
     @Override
@@ -51,6 +53,11 @@ public class CellularAutomataMazeImpl implements CellularAutomataMaze {
         return walls.contains(cell);
     }
 
+    @Override
+    public boolean isWallAt(int index) {
+        return walls.contains(indexSpace.cellAt(index));
+    }
+
     @Override
     public void setWall(boolean isWall, int... coords) {
         setWall(isWall, Cell.of(coords));
@@ -88,14 +95,12 @@ public class CellularAutomataMazeImpl implements CellularAutomataMaze {
 
     @Override
     public Stream<Cell> stream() {
-        return StreamSupport.stream(
-                Spliterators.spliterator(
-                        iterator(),
-                        totalCellCount,
-                        Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.SIZED | Spliterator.SUBSIZED
-                ),
-                false
-        );
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public Spliterator<Cell> spliterator() {
+        return new CellRangeSpliterator(indexSpace, null);
     }
 
     private class MazeCellIterator implements Iterator<Cell> {
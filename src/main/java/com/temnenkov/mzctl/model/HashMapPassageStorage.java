@@ -0,0 +1,80 @@
+package com.temnenkov.mzctl.model;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Эталонное хранилище проходов на основе {@code Map<Cell, Set<Cell>>}.
+ *
+ * <p>Медленное и прожорливое по памяти, оставлено для сравнения с {@link BitSetPassageStorage}.</p>
+ */
+final class HashMapPassageStorage implements PassageStorage {
+
+    private final CellIndexSpace indexSpace;
+    private final Map<Cell, Set<Cell>> passes = new HashMap<>();
+
+    HashMapPassageStorage(@NotNull CellIndexSpace indexSpace) {
+        this.indexSpace = indexSpace;
+    }
+
+    @Override
+    public boolean hasPass(int index, int direction) {
+        final Set<Cell> neighbors = passes.get(indexSpace.cellAt(index));
+        return neighbors != null && neighbors.contains(indexSpace.cellAt(indexSpace.neighbor(index, direction)));
+    }
+
+    @Override
+    public void setPass(int index, int direction, boolean pass) {
+        final Cell from = indexSpace.cellAt(index);
+        final Cell to = indexSpace.cellAt(indexSpace.neighbor(index, direction));
+        if (pass) {
+            passes.computeIfAbsent(from, k -> new HashSet<>()).add(to);
+        } else {
+            final Set<Cell> neighbors = passes.get(from);
+            if (neighbors != null) {
+                neighbors.remove(to);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clearPassAtomic(int index, int direction) {
+        setPass(index, direction, false);
+    }
+
+    @Override
+    public synchronized void setPassAtomic(int index, int direction) {
+        setPass(index, direction, true);
+    }
+
+    @Override
+    public long passMask(int index) {
+        final Cell from = indexSpace.cellAt(index);
+        final Set<Cell> neighbors = passes.get(from);
+        if (neighbors == null) {
+            return 0L;
+        }
+        long mask = 0L;
+        for (Cell neighbor : neighbors) {
+            mask |= 1L << CellIndexSpace.directionBetween(from, neighbor);
+        }
+        return mask;
+    }
+
+    @Override
+    public synchronized void setPassMasks(int fromIndex, int count, long @NotNull [] packedMasks) {
+        final int bitsPerCell = indexSpace.directionCount();
+        for (int i = 0; i < count; i++) {
+            final long mask = PassageStorage.unpackMask(packedMasks, (long) i * bitsPerCell, bitsPerCell);
+            for (int direction = 0; direction < bitsPerCell; direction++) {
+                if (indexSpace.neighbor(fromIndex + i, direction) >= 0) {
+                    setPass(fromIndex + i, direction, (mask & (1L << direction)) != 0);
+                }
+            }
+        }
+    }
+}
@@ -2,20 +2,21 @@ package com.temnenkov.mzctl.model;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.jetbrains.annotations.NotNull;
 
 import java.beans.Transient;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Random;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.Spliterator;
-import java.util.Spliterators;
-import java.util.stream.IntStream;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -24,9 +25,22 @@ import java.util.stream.StreamSupport;
  */
 @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
 public class Maze implements Iterable<Cell> {
+    /**
+     * Размер блока комнат, см. {@link #setPassMasks(int, int, long[])}
+     */
+    public static final int PASS_MASK_BLOCK = Long.SIZE;
+
     private final @NotNull MazeDim mazeDimension;
-    private final @NotNull Map<Cell, Set<Cell>> passes;
+    @JsonIgnore
+    private final @NotNull CellIndexSpace indexSpace;
+    @JsonIgnore
+    private final @NotNull PassageStorage passes;
     private final int totalCellCount;
+    /**
+     * Зерно, из которого построен лабиринт, null - неизвестно
+     */
+    @JsonIgnore
+    private Long seed;
 
     /**
      * Конструктор для сериализации jackson
@@ -37,10 +51,8 @@ public class Maze implements Iterable<Cell> {
     @JsonCreator
     Maze(@JsonProperty("mazeDimension") @NotNull MazeDim mazeDimension,
             @JsonProperty("passes") @NotNull Map<Cell, Set<Cell>> passes) {
-        this.mazeDimension = mazeDimension;
-        this.passes = new HashMap<>();
-        passes.forEach((key, value) -> this.passes.put(key, new HashSet<>(value)));
-        this.totalCellCount = calculateTotalCellCount();
+        this(mazeDimension);
+        passes.forEach(this::addPass);
     }
 
     /**
@@ -49,9 +61,39 @@ public class Maze implements Iterable<Cell> {
      * @param mazeDimension список измерений
      */
     Maze(@NotNull MazeDim mazeDimension) {
+        this(mazeDimension, PassageStorageType.BIT_SET);
+    }
+
+    /**
+     * Конструктор для создания лабиринта с выбранным способом хранения проходов
+     *
+     * @param mazeDimension список измерений
+     * @param storageType   способ хранения проходов
+     */
+    Maze(@NotNull MazeDim mazeDimension, @NotNull PassageStorageType storageType) {
         this.mazeDimension = mazeDimension;
-        this.passes = new HashMap<>();
-        this.totalCellCount = calculateTotalCellCount();
+        this.indexSpace = new CellIndexSpace(mazeDimension);
+        this.passes = storageType.create(indexSpace);
+        this.totalCellCount = indexSpace.size();
+    }
+
+    /**
+     * Зерно генератора случайных чисел, из которого построен лабиринт.
+     * Не участвует в сравнении лабиринтов.
+     *
+     * @return зерно или пусто, если неизвестно
+     */
+    public @NotNull OptionalLong getSeed() {
+        return seed == null ? OptionalLong.empty() : OptionalLong.of(seed);
+    }
+
+    /**
+     * Запомнить зерно, из которого построен лабиринт
+     *
+     * @param seed зерно
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
     }
 
     /**
@@ -63,6 +105,16 @@ public class Maze implements Iterable<Cell> {
         return mazeDimension;
     }
 
+    /**
+     * Получить линейную нумерацию комнат лабиринта
+     *
+     * @return нумерация комнат
+     */
+    @JsonIgnore
+    public @NotNull CellIndexSpace getIndexSpace() {
+        return indexSpace;
+    }
+
     @Transient
     public MazeLinker getLinker() {
         return new MazeLinker();
@@ -84,9 +136,12 @@ public class Maze implements Iterable<Cell> {
     public void addPass(@NotNull Cell cell, @NotNull Set<Cell> neighbors) {
         validateCell(cell);
         neighbors.forEach(this::validateCell);
+        neighbors.forEach(neighbor -> validateAdjacent(cell, neighbor));
 
-        passes.computeIfAbsent(cell, k -> new HashSet<>()).addAll(neighbors);
-        neighbors.forEach(neighbor -> passes.computeIfAbsent(neighbor, k -> new HashSet<>()).add(cell));
+        final int index = indexSpace.indexOf(cell);
+        for (Cell neighbor : neighbors) {
+            setPass(index, CellIndexSpace.directionBetween(cell, neighbor), true);
+        }
     }
 
     /**
@@ -102,24 +157,123 @@ public class Maze implements Iterable<Cell> {
     public void removePass(@NotNull Cell from, @NotNull Cell to) {
         validateCell(from);
         validateCell(to);
-        passes.computeIfAbsent(from, k -> new HashSet<>()).remove(to);
-        passes.computeIfAbsent(to, k -> new HashSet<>()).remove(from);
+        validateAdjacent(from, to);
+        setPass(indexSpace.indexOf(from), CellIndexSpace.directionBetween(from, to), false);
+    }
+
+    /**
+     * Добавить двусторонний проход между соседними комнатами
+     *
+     * @param from индекс комнаты откуда
+     * @param to   индекс комнаты куда
+     */
+    public void addPass(int from, int to) {
+        setPass(from, validateAdjacent(from, to), true);
+    }
+
+    /**
+     * Убрать двусторонний проход между соседними комнатами
+     *
+     * @param from индекс комнаты откуда
+     * @param to   индекс комнаты куда
+     */
+    public void removePass(int from, int to) {
+        setPass(from, validateAdjacent(from, to), false);
+    }
+
+    private void setPass(int index, int direction, boolean pass) {
+        passes.setPass(index, direction, pass);
+        passes.setPass(indexSpace.neighbor(index, direction), CellIndexSpace.opposite(direction), pass);
     }
 
     private void validateCell(@NotNull Cell cell) {
         if (cell.getCoordinates().length != mazeDimension.size()) {
             throw new IllegalArgumentException("Cell dimension mismatch");
         }
+        if (!indexSpace.contains(cell)) {
+            throw new IllegalArgumentException("Cell is out of maze bounds: " + cell);
+        }
+    }
+
+    private static void validateAdjacent(@NotNull Cell from, @NotNull Cell to) {
+        if (CellIndexSpace.directionBetween(from, to) < 0) {
+            throw new IllegalArgumentException("Cells are not adjacent: " + from + ", " + to);
+        }
+    }
+
+    private int validateAdjacent(int from, int to) {
+        if (!indexSpace.contains(from) || !indexSpace.contains(to)) {
+            throw new IllegalArgumentException("Cell index is out of maze bounds: " + from + ", " + to);
+        }
+        final int direction = indexSpace.directionBetween(from, to);
+        if (direction < 0) {
+            throw new IllegalArgumentException("Cells are not adjacent: " + from + ", " + to);
+        }
+        return direction;
     }
 
     /**
-     * Получить комнаты, в которые можно попасть из текущей комнаты
+     * Получить комнаты, в которые можно попасть из текущей комнаты.
+     * Каждый вызов создаёт новый набор; для обхода в цикле см. {@link #getAvailableNeighbors(int, int[])}.
      *
      * @param cell текущая комната
      * @return набор комнат, в которые можно попасть
      */
     public Set<Cell> getAvailableNeighbors(Cell cell) {
-        return Set.copyOf(passes.getOrDefault(cell, Set.of()));
+        if (!indexSpace.contains(cell)) {
+            return Set.of();
+        }
+        final int index = indexSpace.indexOf(cell);
+        long mask = passes.passMask(index);
+        final Cell[] neighbors = new Cell[Long.bitCount(mask)];
+        for (int i = 0; mask != 0; i++) {
+            final int direction = Long.numberOfTrailingZeros(mask);
+            neighbors[i] = indexSpace.cellAt(indexSpace.neighbor(index, direction));
+            mask &= mask - 1;
+        }
+        return Set.of(neighbors);
+    }
+
+    /**
+     * Количество комнат, в которые можно попасть из текущей комнаты
+     *
+     * @param index индекс текущей комнаты
+     * @return количество доступных соседей
+     */
+    public int availableNeighborCount(int index) {
+        return Long.bitCount(passes.passMask(index));
+    }
+
+    /**
+     * Записать в буфер индексы комнат, в которые можно попасть из текущей комнаты.
+     * В отличие от {@link #getAvailableNeighbors(Cell)} ничего не создаёт: буфер можно переиспользовать.
+     *
+     * @param index  индекс текущей комнаты
+     * @param buffer буфер длиной не меньше {@link CellIndexSpace#directionCount()}
+     * @return количество соседей, записанных в начало буфера
+     */
+    public int getAvailableNeighbors(int index, int @NotNull [] buffer) {
+        long mask = passes.passMask(index);
+        int count = 0;
+        while (mask != 0) {
+            buffer[count++] = indexSpace.neighbor(index, Long.numberOfTrailingZeros(mask));
+            mask &= mask - 1;
+        }
+        return count;
+    }
+
+    /**
+     * Обойти комнаты, в которые можно попасть из текущей комнаты, без создания объектов
+     *
+     * @param index  индекс текущей комнаты
+     * @param action действие над индексом каждой доступной комнаты
+     */
+    public void forEachNeighbor(int index, @NotNull IntConsumer action) {
+        long mask = passes.passMask(index);
+        while (mask != 0) {
+            action.accept(indexSpace.neighbor(index, Long.numberOfTrailingZeros(mask)));
+            mask &= mask - 1;
+        }
     }
 
     /**
@@ -129,8 +283,31 @@ public class Maze implements Iterable<Cell> {
      * @return все соседние клетки
      */
     public Stream<Cell> getAllNeighbors(Cell cell) {
-        return IntStream.range(0, mazeDimension.size()).boxed().flatMap(i -> Stream.of(cell.minusOne(i),
-                cell.plusOne(i)).filter(pretender -> isValid(pretender, i)));
+        final Cell[] neighbors = new Cell[mazeDimension.size() * 2];
+        int count = 0;
+        for (int dim = 0; dim < mazeDimension.size(); dim++) {
+            final Cell minus = cell.minusOne(dim);
+            if (isValid(minus, dim)) {
+                neighbors[count++] = minus;
+            }
+            final Cell plus = cell.plusOne(dim);
+            if (isValid(plus, dim)) {
+                neighbors[count++] = plus;
+            }
+        }
+        return Arrays.stream(neighbors, 0, count);
+    }
+
+    /**
+     * Записать в буфер индексы всех соседних комнат (с границами-стенами или без) для текущей комнаты.
+     * Ничего не создаёт, см. {@link CellIndexSpace#adjacent(int, int[])}.
+     *
+     * @param index  индекс текущей комнаты
+     * @param buffer буфер длиной не меньше {@link CellIndexSpace#directionCount()}
+     * @return количество соседей, записанных в начало буфера
+     */
+    public int getAllNeighbors(int index, int @NotNull [] buffer) {
+        return indexSpace.adjacent(index, buffer);
     }
 
     /**
@@ -141,14 +318,6 @@ public class Maze implements Iterable<Cell> {
         return totalCellCount;
     }
 
-    private int calculateTotalCellCount() {
-        int result = 1;
-        for (int i = 0; i < mazeDimension.size(); i++) {
-            result *= mazeDimension.dimSize(i);
-        }
-        return result;
-    }
-
     /**
      * Не вышла ли комната cell за пределы лабиринта по измерению dimension
      *
@@ -184,7 +353,91 @@ public class Maze implements Iterable<Cell> {
      * @return true, если пройти можно (нет стены), false в противном случае
      */
     public boolean canPass(Cell from, Cell to) {
-        return passes.getOrDefault(from, Set.of()).contains(to);
+        if (!indexSpace.contains(from) || !indexSpace.contains(to)) {
+            return false;
+        }
+        final int direction = CellIndexSpace.directionBetween(from, to);
+        return direction >= 0 && passes.hasPass(indexSpace.indexOf(from), direction);
+    }
+
+    /**
+     * Можно ли пройти из комнаты from в комнату to (то есть они соседние и между ними нет стены)
+     *
+     * @param from индекс комнаты откуда идем
+     * @param to   индекс комнаты куда хотим попасть
+     * @return true, если пройти можно (нет стены), false в противном случае
+     */
+    public boolean canPass(int from, int to) {
+        if (!indexSpace.contains(from) || !indexSpace.contains(to)) {
+            return false;
+        }
+        final int direction = indexSpace.directionBetween(from, to);
+        return direction >= 0 && passes.hasPass(from, direction);
+    }
+
+    /**
+     * Есть ли проход из комнаты в заданном направлении
+     *
+     * @param index     индекс комнаты
+     * @param direction направление, см. {@link CellIndexSpace#direction(int, boolean)}
+     * @return true, если проход есть
+     */
+    public boolean hasPass(int index, int direction) {
+        return passes.hasPass(index, direction);
+    }
+
+    /**
+     * Убрать двусторонний проход из комнаты в заданном направлении - для построения лабиринта в несколько потоков.
+     * Можно вызывать одновременно из разных потоков для разных проходов, в том числе соседних.
+     *
+     * @param index     индекс комнаты
+     * @param direction направление, см. {@link CellIndexSpace#direction(int, boolean)}
+     */
+    public void removePassAtomic(int index, int direction) {
+        final int neighbor = indexSpace.neighbor(index, direction);
+        if (neighbor < 0) {
+            throw new IllegalArgumentException("No neighbor of " + index + " in direction " + direction);
+        }
+        passes.clearPassAtomic(index, direction);
+        passes.clearPassAtomic(neighbor, CellIndexSpace.opposite(direction));
+    }
+
+    /**
+     * Добавить двусторонний проход из комнаты в заданном направлении - для построения лабиринта в несколько потоков.
+     * Можно вызывать одновременно из разных потоков для разных проходов, в том числе соседних.
+     *
+     * @param index     индекс комнаты
+     * @param direction направление, см. {@link CellIndexSpace#direction(int, boolean)}
+     */
+    public void addPassAtomic(int index, int direction) {
+        final int neighbor = indexSpace.neighbor(index, direction);
+        if (neighbor < 0) {
+            throw new IllegalArgumentException("No neighbor of " + index + " in direction " + direction);
+        }
+        passes.setPassAtomic(index, direction);
+        passes.setPassAtomic(neighbor, CellIndexSpace.opposite(direction));
+    }
+
+    /**
+     * Заменить проходы комнат [fromIndex, fromIndex + count) упакованными масками, только с их стороны -
+     * для массового построения лабиринта. Симметричность проходов обеспечивает вызывающий:
+     * соседу нужно выставить встречный бит.
+     *
+     * <p>Маски идут подряд по {@link CellIndexSpace#directionCount()} бит, маска комнаты fromIndex + i
+     * начинается с бита i·2·D массива; бит direction - проход в направлении {@link CellIndexSpace#direction(int, boolean)}.
+     * Непересекающиеся диапазоны можно заполнять из разных потоков. Слова хранилища внутри диапазона
+     * копируются целиком, крайние слова, общие с соседними комнатами, сливаются атомарно; диапазоны из разных
+     * блоков по {@link #PASS_MASK_BLOCK} комнат не делят слов совсем.</p>
+     *
+     * @param fromIndex   индекс первой комнаты
+     * @param count       количество комнат
+     * @param packedMasks упакованные маски проходов
+     */
+    public void setPassMasks(int fromIndex, int count, long @NotNull [] packedMasks) {
+        if (fromIndex < 0 || count < 0 || (long) fromIndex + count > totalCellCount) {
+            throw new IllegalArgumentException("Cell range is out of maze bounds: " + fromIndex + ", " + count);
+        }
+        passes.setPassMasks(fromIndex, count, packedMasks);
     }
 
     /**
@@ -196,10 +449,10 @@ public class Maze implements Iterable<Cell> {
      * {@link java.util.concurrent.ThreadLocalRandom#current()} или другой потокобезопасный
      * генератор.</p>
      *
-     * @param random интерфейс Random для генерации случайных чисел
+     * @param random интерфейс RandomGenerator для генерации случайных чисел
      * @return случайная комната в пределах лабиринта
      */
-    public Cell getRandomCell(@NotNull Random random) {
+    public Cell getRandomCell(@NotNull RandomGenerator random) {
         final int[] coords = new int[mazeDimension.size()];
         for (int i = 0; i < mazeDimension.size(); ++i) {
             coords[i] = random.nextInt(mazeDimension.dimSize(i));
@@ -207,15 +460,30 @@ public class Maze implements Iterable<Cell> {
         return new Cell(coords);
     }
 
+    /**
+     * Получить индекс случайной комнаты в пределах лабиринта.
+     *
+     * @param random интерфейс RandomGenerator для генерации случайных чисел
+     * @return индекс случайной комнаты
+     * @see #getRandomCell(RandomGenerator)
+     */
+    public int getRandomIndex(@NotNull RandomGenerator random) {
+        return random.nextInt(totalCellCount);
+    }
+
+    /**
+     * Поток всех комнат лабиринта в порядке {@link #iterator()}.
+     * Хорошо делится для параллельной обработки.
+     *
+     * @return поток комнат
+     */
     public Stream<Cell> stream() {
-        return StreamSupport.stream(
-                Spliterators.spliterator(
-                        iterator(),
-                        totalCellCount(),
-                        Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.SIZED | Spliterator.SUBSIZED
-                ),
-                false
-        );
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public Spliterator<Cell> spliterator() {
+        return new CellRangeSpliterator(indexSpace, null);
     }
 
     @Override
@@ -273,19 +541,46 @@ public class Maze implements Iterable<Cell> {
             return false;
 
         Maze maze = (Maze) o;
-        return mazeDimension.equals(maze.mazeDimension) && passes.equals(maze.passes);
+        if (!mazeDimension.equals(maze.mazeDimension)) {
+            return false;
+        }
+        for (int index = 0; index < totalCellCount; index++) {
+            if (passes.passMask(index) != maze.passes.passMask(index)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
         int result = mazeDimension.hashCode();
-        result = 31 * result + passes.hashCode();
+        for (int index = 0; index < totalCellCount; index++) {
+            result = 31 * result + Long.hashCode(passes.passMask(index));
+        }
+        return result;
+    }
+
+    /**
+     * Проходы в виде отображения комнаты на множество соседей (только комнаты, у которых есть проходы)
+     *
+     * @return отображение комнаты на множество соседей, в которые можно попасть
+     */
+    @JsonProperty("passes")
+    private @NotNull Map<Cell, Set<Cell>> passesAsMap() {
+        final Map<Cell, Set<Cell>> result = new LinkedHashMap<>();
+        for (Cell cell : this) {
+            final Set<Cell> neighbors = getAvailableNeighbors(cell);
+            if (!neighbors.isEmpty()) {
+                result.put(cell, neighbors);
+            }
+        }
         return result;
     }
 
     @Override
     public String toString() {
-        return "Maze{" + "mazeDimension=" + mazeDimension + ", passes=" + passes + '}';
+        return "Maze{" + "mazeDimension=" + mazeDimension + ", passes=" + passesAsMap() + '}';
     }
 
     public String toShortString() {
@@ -3,9 +3,6 @@ package com.temnenkov.mzctl.model;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Set;
-import java.util.stream.Collectors;
-
 /**
  * Фабрика для создания различных типов лабиринтов.
  */
@@ -26,6 +23,18 @@ public final class MazeFactory {
         return new Maze(mazeDimension);
     }
 
+    /**
+     * Создаёт лабиринт без проходов (все комнаты изолированы) с выбранным способом хранения проходов.
+     *
+     * @param mazeDimension размерность лабиринта
+     * @param storageType   способ хранения проходов
+     * @return лабиринт без проходов
+     */
+    @NotNull
+    public static Maze createNotConnectedMaze(@NotNull MazeDim mazeDimension, @NotNull PassageStorageType storageType) {
+        return new Maze(mazeDimension, storageType);
+    }
+
     /**
      * Создаёт лабиринт без проходов (все комнаты изолированы).
      *
@@ -63,9 +72,16 @@ public final class MazeFactory {
 
     @Contract("_ -> param1")
     private static @NotNull Maze connectAll(@NotNull Maze maze) {
-        for(Cell cell: maze) {
-            final Set<Cell> neighbours = maze.getAllNeighbors(cell).collect(Collectors.toSet());
-            maze.addPass(cell, neighbours);
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int[] neighbors = new int[indexSpace.directionCount()];
+        for (int index = 0; index < indexSpace.size(); index++) {
+            final int count = indexSpace.adjacent(index, neighbors);
+            for (int i = 0; i < count; i++) {
+                // каждый проход двусторонний, достаточно соединить с соседями с большим индексом
+                if (neighbors[i] > index) {
+                    maze.addPass(index, neighbors[i]);
+                }
+            }
         }
         return maze;
     }
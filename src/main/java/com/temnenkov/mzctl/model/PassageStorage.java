@@ -0,0 +1,86 @@
+package com.temnenkov.mzctl.model;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Хранилище проходов лабиринта.
+ *
+ * <p>Комнаты адресуются линейным индексом {@link CellIndexSpace}, проход - индексом комнаты и
+ * направлением. Хранилище не следит за симметрией: двусторонний проход - это две записи,
+ * за их согласованность отвечает {@link Maze}.</p>
+ */
+interface PassageStorage {
+
+    /**
+     * Есть ли проход из комнаты index в направлении direction
+     *
+     * @param index     индекс комнаты
+     * @param direction направление
+     * @return true, если проход есть
+     */
+    boolean hasPass(int index, int direction);
+
+    /**
+     * Установить или убрать проход из комнаты index в направлении direction
+     *
+     * @param index     индекс комнаты
+     * @param direction направление
+     * @param pass      true - проход есть, false - стена
+     */
+    void setPass(int index, int direction, boolean pass);
+
+    /**
+     * Убрать проход из комнаты index в направлении direction. Можно вызывать одновременно
+     * из разных потоков, в том числе для соседних комнат
+     *
+     * @param index     индекс комнаты
+     * @param direction направление
+     */
+    void clearPassAtomic(int index, int direction);
+
+    /**
+     * Добавить проход из комнаты index в направлении direction. Можно вызывать одновременно
+     * из разных потоков, в том числе для соседних комнат
+     *
+     * @param index     индекс комнаты
+     * @param direction направление
+     */
+    void setPassAtomic(int index, int direction);
+
+    /**
+     * Все проходы комнаты в виде битовой маски: бит direction выставлен, если в этом направлении есть проход
+     *
+     * @param index индекс комнаты
+     * @return битовая маска проходов
+     */
+    long passMask(int index);
+
+    /**
+     * Заменить проходы комнат [fromIndex, fromIndex + count) упакованными масками (только с их стороны).
+     * Непересекающиеся диапазоны можно заменять одновременно из разных потоков
+     *
+     * @param fromIndex   индекс первой комнаты
+     * @param count       количество комнат
+     * @param packedMasks маски подряд по {@link CellIndexSpace#directionCount()} бит, начиная с бита 0
+     */
+    void setPassMasks(int fromIndex, int count, long @NotNull [] packedMasks);
+
+    /**
+     * Маска, начинающаяся с бита bit упакованного массива
+     *
+     * @param packedMasks упакованные маски
+     * @param bit         номер первого бита маски
+     * @param bitsPerCell длина маски, не больше 64
+     * @return маска
+     */
+    static long unpackMask(long @NotNull [] packedMasks, long bit, int bitsPerCell) {
+        final int word = (int) (bit >>> 6);
+        final int offset = (int) (bit & 63);
+        long value = packedMasks[word] >>> offset;
+        if (offset + bitsPerCell > Long.SIZE) {
+            // маска комнаты лежит на границе двух слов
+            value |= packedMasks[word + 1] << (Long.SIZE - offset);
+        }
+        return bitsPerCell == Long.SIZE ? value : value & ((1L << bitsPerCell) - 1);
+    }
+}
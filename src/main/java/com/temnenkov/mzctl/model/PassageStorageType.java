@@ -0,0 +1,19 @@
+package com.temnenkov.mzctl.model;
+
+/**
+ * Способ хранения проходов лабиринта
+ */
+public enum PassageStorageType {
+    /** Битовое множество: 2·D бит на комнату. Используется по умолчанию. */
+    BIT_SET,
+
+    /** Map комнат на множества соседей. Эталонная реализация, прожорливая по памяти. */
+    HASH_MAP;
+
+    PassageStorage create(CellIndexSpace indexSpace) {
+        return switch (this) {
+            case BIT_SET -> new BitSetPassageStorage(indexSpace);
+            case HASH_MAP -> new HashMapPassageStorage(indexSpace);
+        };
+    }
+}
@@ -5,7 +5,6 @@ import org.jetbrains.annotations.NotNull;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -51,14 +50,16 @@ public class Slice implements Iterable<Cell> {
      * @return поток ячеек
      */
     public Stream<Cell> stream() {
-        return StreamSupport.stream(
-                Spliterators.spliterator(
-                        iterator(),
-                        getTotalCellCount(),
-                        Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.SIZED | Spliterator.SUBSIZED
-                ),
-                false
-        );
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public Spliterator<Cell> spliterator() {
+        final int[] sizes = new int[first.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = last.coord(i) - first.coord(i) + 1;
+        }
+        return new CellRangeSpliterator(new CellIndexSpace(MazeDim.of(sizes)), first.getCoordinates());
     }
 
     @Override
@@ -4,6 +4,7 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.temnenkov.mzctl.model.Maze;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 
 import java.io.FileInputStream;
@@ -12,26 +13,30 @@ import java.io.IOException;
 import java.io.InputStream;
 
 public final class KryoHelper {
-    private static final Kryo kryo = new Kryo();
+    // Kryo не потокобезопасен, у каждого потока свой экземпляр
+    private static final ThreadLocal<Kryo> KRYO = ThreadLocal.withInitial(KryoHelper::createKryo);
 
     private KryoHelper() {
         throw new UnsupportedOperationException("Utility class");
     }
 
-    static {
+    private static Kryo createKryo() {
+        final Kryo kryo = new Kryo();
         kryo.setRegistrationRequired(false); // автоматическая регистрация классов
         kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        kryo.addDefaultSerializer(Maze.class, new MazeKryoSerializer());
+        return kryo;
     }
 
     public static <T> void saveToFile(T object, String filePath) throws IOException {
         try (Output output = new Output(new FileOutputStream(filePath))) {
-            kryo.writeObject(output, object);
+            KRYO.get().writeObject(output, object);
         }
     }
 
     public static <T> T loadFromFile(Class<T> type, String filePath) throws IOException {
         try (Input input = new Input(new FileInputStream(filePath))) {
-            return kryo.readObject(input, type);
+            return KRYO.get().readObject(input, type);
         }
     }
 
@@ -41,7 +46,7 @@ public final class KryoHelper {
                 throw new IOException("Resource not found: " + resourceName);
             }
             try (Input input = new Input(is)) {
-                return kryo.readObject(input, type);
+                return KRYO.get().readObject(input, type);
             }
         }
     }
@@ -0,0 +1,125 @@
+package com.temnenkov.mzctl.model.serialize;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.model.CellIndexSpace;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import com.temnenkov.mzctl.model.MazeFactory;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Kryo-сериализатор лабиринта.
+ *
+ * <p>Пишет компактный формат: размерность и по одному биту на каждый проход "вперёд" по каждому измерению,
+ * перед ними - зерно, если оно известно.
+ * Читает как компактный формат, так и старый, в котором Kryo писал поля лабиринта как есть
+ * (размерность, {@code Map<Cell, Set<Cell>>} проходов и количество комнат).</p>
+ */
+class MazeKryoSerializer extends Serializer<Maze> {
+
+    /**
+     * Старый формат начинается с признака not-null для поля mazeDimension
+     */
+    private static final byte LEGACY_FORMAT = 1;
+    private static final byte BIT_FORMAT = 2;
+    private static final byte SEEDED_BIT_FORMAT = 3;
+
+    @Override
+    public void write(@NotNull Kryo kryo, @NotNull Output output, @NotNull Maze maze) {
+        final MazeDim mazeDim = maze.getMazeDimension();
+        final OptionalLong seed = maze.getSeed();
+        if (seed.isPresent()) {
+            output.writeByte(SEEDED_BIT_FORMAT);
+            output.writeLong(seed.getAsLong());
+        } else {
+            output.writeByte(BIT_FORMAT);
+        }
+        output.writeVarInt(mazeDim.size(), true);
+        for (int dim = 0; dim < mazeDim.size(); dim++) {
+            output.writeVarInt(mazeDim.dimSize(dim), true);
+        }
+
+        final long[] words = new long[wordCount(maze)];
+        long bit = 0;
+        for (int index = 0; index < maze.totalCellCount(); index++) {
+            for (int dim = 0; dim < mazeDim.size(); dim++, bit++) {
+                if (maze.hasPass(index, CellIndexSpace.direction(dim, true))) {
+                    words[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+        }
+        output.writeVarInt(words.length, true);
+        output.writeLongs(words, 0, words.length);
+    }
+
+    @Override
+    public Maze read(@NotNull Kryo kryo, @NotNull Input input, Class<? extends Maze> type) {
+        final byte format = input.readByte();
+        return switch (format) {
+            case BIT_FORMAT -> readBitFormat(input);
+            case SEEDED_BIT_FORMAT -> {
+                final long seed = input.readLong();
+                final Maze maze = readBitFormat(input);
+                maze.setSeed(seed);
+                yield maze;
+            }
+            case LEGACY_FORMAT -> readLegacyFormat(kryo, input);
+            default -> throw new IllegalStateException("Unknown maze format: " + format);
+        };
+    }
+
+    private static @NotNull Maze readBitFormat(@NotNull Input input) {
+        final int[] dimensions = new int[input.readVarInt(true)];
+        for (int dim = 0; dim < dimensions.length; dim++) {
+            dimensions[dim] = input.readVarInt(true);
+        }
+        final Maze maze = MazeFactory.createNotConnectedMaze(dimensions);
+
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final long[] words = input.readLongs(input.readVarInt(true));
+        long bit = 0;
+        for (int index = 0; index < maze.totalCellCount(); index++) {
+            for (int dim = 0; dim < dimensions.length; dim++, bit++) {
+                if ((words[(int) (bit >>> 6)] & (1L << bit)) != 0) {
+                    maze.addPass(index, index + indexSpace.stride(dim));
+                }
+            }
+        }
+        return maze;
+    }
+
+    private static @NotNull Maze readLegacyFormat(@NotNull Kryo kryo, @NotNull Input input) {
+        // признак формата - это часть данных старого формата, возвращаем его обратно
+        input.setPosition(input.position() - 1);
+        final LegacyMaze legacyMaze = new FieldSerializer<LegacyMaze>(kryo, LegacyMaze.class)
+                .read(kryo, input, LegacyMaze.class);
+
+        final Maze maze = MazeFactory.createNotConnectedMaze(legacyMaze.mazeDimension);
+        legacyMaze.passes.forEach(maze::addPass);
+        return maze;
+    }
+
+    /**
+     * Поля лабиринта в старом формате: имена и типы должны совпадать с теми, что были у {@link Maze}
+     */
+    @SuppressWarnings("unused")
+    private static final class LegacyMaze {
+        private MazeDim mazeDimension;
+        private Map<Cell, Set<Cell>> passes;
+        private int totalCellCount;
+    }
+
+    private static int wordCount(@NotNull Maze maze) {
+        final long totalBits = (long) maze.totalCellCount() * maze.getMazeDimension().size();
+        return Math.toIntExact((totalBits + Long.SIZE - 1) / Long.SIZE);
+    }
+}
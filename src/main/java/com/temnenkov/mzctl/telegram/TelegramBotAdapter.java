@@ -13,6 +13,7 @@ import com.temnenkov.mzctl.game.quest.QuestManager;
 import com.temnenkov.mzctl.game.quest.QuestState;
 import com.temnenkov.mzctl.gameengine.GameEngine;
 import com.temnenkov.mzctl.generation.MazeGeneratorFactory;
+import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.UserId;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -25,6 +26,9 @@ import java.util.Optional;
 
 public class TelegramBotAdapter implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(TelegramBotAdapter.class);
+    private static final int DEFAULT_MAZE_WIDTH = 3;
+    private static final int DEFAULT_MAZE_HEIGHT = 3;
+    private static final MazeGeneratorFactory.Algo DEFAULT_MAZE_ALGO = MazeGeneratorFactory.Algo.RANDOMIZED_PRIM;
 
     private final GameEngine gameEngine;
     private final TelegramHttpClient client;
@@ -49,6 +53,8 @@ public class TelegramBotAdapter implements Runnable {
     public void run() {
         long offset = 0;
         final int longPollingTimeout = config.getLongPollingTimeout();
+        gameContext.getMazeManager().getMazePool()
+                .prefill(MazeDim.of(DEFAULT_MAZE_WIDTH, DEFAULT_MAZE_HEIGHT), DEFAULT_MAZE_ALGO);
 
         while (true) {
             try {
@@ -146,13 +152,9 @@ public class TelegramBotAdapter implements Runnable {
         if (session == null) {
             logger.info("Сессия для пользователя {} не найдена, создаем новую.", userId);
 
-            final String defaultMazeName = "default-maze"; // Используем уникальное имя
-
-            // Генерируем лабиринт через GameEngine, который сохранит его для пользователя
-            gameEngine.generateMaze(userId, defaultMazeName, 3, 3, MazeGeneratorFactory.Algo.RANDOMIZED_PRIM);
-
-            // Загружаем лабиринт, что создаст и зарегистрирует сессию в GameContext
-            gameEngine.loadMaze(userId, defaultMazeName);
+            // Берём готовый лабиринт из пула, GameEngine создаст и зарегистрирует сессию в GameContext
+            gameEngine.startNewGame(userId, DEFAULT_MAZE_WIDTH, DEFAULT_MAZE_HEIGHT, DEFAULT_MAZE_ALGO);
+            logger.info("Пул лабиринтов: {}", gameContext.getMazeManager().getMazePool().stats());
 
             // Получаем только что созданную сессию
             session = gameContext.getPlayerSession(userId);
@@ -14,6 +14,9 @@ public class TelegramBotConfig {
     private final int httpConnectTimeout;
     private final int httpRequestTimeout;
     private final int longPollingTimeout;
+    private final int mazePoolSize;
+    private final int mazePoolLowWatermark;
+    private final int mazePoolThreads;
 
     // Значения по умолчанию
     private static final boolean DEFAULT_PROXY_ENABLED = false;
@@ -22,6 +25,9 @@ public class TelegramBotConfig {
     private static final int DEFAULT_HTTP_CONNECT_TIMEOUT = 10;
     private static final int DEFAULT_HTTP_REQUEST_TIMEOUT = 30;
     private static final int DEFAULT_LONG_POLLING_TIMEOUT = 30;
+    private static final int DEFAULT_MAZE_POOL_SIZE = 16;
+    private static final int DEFAULT_MAZE_POOL_LOW_WATERMARK = 4;
+    private static final int DEFAULT_MAZE_POOL_THREADS = 1;
 
     public TelegramBotConfig(Path configPath) throws IOException {
         final Properties props = new Properties();
@@ -45,6 +51,9 @@ public class TelegramBotConfig {
         httpConnectTimeout = Integer.parseInt(props.getProperty("telegram.http.connectTimeout", String.valueOf(DEFAULT_HTTP_CONNECT_TIMEOUT)));
         httpRequestTimeout = Integer.parseInt(props.getProperty("telegram.http.requestTimeout", String.valueOf(DEFAULT_HTTP_REQUEST_TIMEOUT)));
         longPollingTimeout = Integer.parseInt(props.getProperty("telegram.longPollingTimeout", String.valueOf(DEFAULT_LONG_POLLING_TIMEOUT)));
+        mazePoolSize = Integer.parseInt(props.getProperty("maze.pool.size", String.valueOf(DEFAULT_MAZE_POOL_SIZE)));
+        mazePoolLowWatermark = Integer.parseInt(props.getProperty("maze.pool.lowWatermark", String.valueOf(DEFAULT_MAZE_POOL_LOW_WATERMARK)));
+        mazePoolThreads = Integer.parseInt(props.getProperty("maze.pool.threads", String.valueOf(DEFAULT_MAZE_POOL_THREADS)));
     }
 
     // геттеры
@@ -55,4 +64,7 @@ public class TelegramBotConfig {
     public int getHttpConnectTimeout() { return httpConnectTimeout; }
     public int getHttpRequestTimeout() { return httpRequestTimeout; }
     public int getLongPollingTimeout() { return longPollingTimeout; }
+    public int getMazePoolSize() { return mazePoolSize; }
+    public int getMazePoolLowWatermark() { return mazePoolLowWatermark; }
+    public int getMazePoolThreads() { return mazePoolThreads; }
 }
\ No newline at end of file
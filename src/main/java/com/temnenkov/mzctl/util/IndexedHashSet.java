@@ -9,19 +9,31 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * Множество, поддерживающее доступ по индексу, быстрое удаление и добавление элементов,
- * а также случайный доступ. Порядок элементов сохраняется.
+ * а также случайный доступ. Порядок элементов сохраняется в режиме {@link RemovalMode#ORDERED}.
  *
  * @param <T> тип элементов множества
  */
 public class IndexedHashSet<T> implements Iterable<T> {
 
+    /**
+     * Способ удаления элемента, выбирается при создании множества.
+     */
+    public enum RemovalMode {
+        /** Порядок элементов сохраняется, удаление - O(n). */
+        ORDERED,
+
+        /** На место удалённого элемента встаёт последний, удаление - O(1), порядок не сохраняется. */
+        SWAP_WITH_LAST
+    }
+
     private static final String CTOR = ".ctor";
     private final List<T> elements;
     private final Map<T, Integer> indexes;
+    private final RemovalMode removalMode;
 
     /**
      * Создает пустое множество.
@@ -29,6 +41,7 @@ public class IndexedHashSet<T> implements Iterable<T> {
     public IndexedHashSet() {
         this.elements = new ArrayList<>();
         this.indexes = new HashMap<>();
+        this.removalMode = RemovalMode.ORDERED;
     }
 
     /**
@@ -38,7 +51,19 @@ public class IndexedHashSet<T> implements Iterable<T> {
      * @param initialData коллекция элементов для инициализации множества
      */
     public IndexedHashSet(@NotNull Collection<T> initialData) {
+        this(initialData, RemovalMode.ORDERED);
+    }
+
+    /**
+     * Создает множество по данным из переданной коллекции с выбранным способом удаления.
+     * Если в коллекции есть повторяющиеся элементы, они добавляются один раз.
+     *
+     * @param initialData коллекция элементов для инициализации множества
+     * @param removalMode способ удаления элементов
+     */
+    public IndexedHashSet(@NotNull Collection<T> initialData, @NotNull RemovalMode removalMode) {
         SimplePreconditions.checkNotNull(initialData, "initialData", CTOR);
+        this.removalMode = SimplePreconditions.checkNotNull(removalMode, "removalMode", CTOR);
         this.elements = new ArrayList<>(initialData.size());
         this.indexes = HashMap.newHashMap(initialData.size());
         for (T element : initialData) {
@@ -70,6 +95,7 @@ public class IndexedHashSet<T> implements Iterable<T> {
     /**
      * Удаляет элемент из множества.
      * Если элемент отсутствует, возвращает false.
+     * Сложность зависит от {@link RemovalMode}: O(n) для ORDERED, O(1) для SWAP_WITH_LAST.
      *
      * @param element удаляемый элемент
      * @return true, если элемент был удален, false, если отсутствовал
@@ -81,8 +107,18 @@ public class IndexedHashSet<T> implements Iterable<T> {
             return false;
         }
 
-        elements.remove((int)index); // удаляем элемент по индексу, сохраняя порядок
         indexes.remove(element);
+        if (removalMode == RemovalMode.SWAP_WITH_LAST) {
+            // на место удалённого ставим последний элемент
+            final T last = elements.remove(elements.size() - 1);
+            if (index < elements.size()) {
+                elements.set(index, last);
+                indexes.put(last, index);
+            }
+            return true;
+        }
+
+        elements.remove((int)index); // удаляем элемент по индексу, сохраняя порядок
 
         // обновляем индексы элементов, следующих за удалённым
         for (int i = index; i < elements.size(); i++) {
@@ -110,7 +146,7 @@ public class IndexedHashSet<T> implements Iterable<T> {
      * @return случайный элемент из множества
      * @throws IllegalStateException если множество пусто
      */
-    public T getRandom(@NotNull Random random) {
+    public T getRandom(@NotNull RandomGenerator random) {
         SimplePreconditions.checkState(!elements.isEmpty(), "IndexedHashSet is empty");
         return elements.get(random.nextInt(elements.size()));
     }
@@ -178,9 +214,12 @@ public class IndexedHashSet<T> implements Iterable<T> {
      *
      * @param random генератор случайных чисел
      */
-    public void shuffle(@NotNull Random random) {
+    public void shuffle(@NotNull RandomGenerator random) {
         SimplePreconditions.checkNotNull(random, "random", "shuffle");
-        Collections.shuffle(elements, random);
+        // перетасовка Фишера-Йетса
+        for (int i = elements.size() - 1; i > 0; i--) {
+            Collections.swap(elements, i, random.nextInt(i + 1));
+        }
         // пересоздаем индексы после shuffle
         for (int i = 0; i < elements.size(); i++) {
             indexes.put(elements.get(i), i);
@@ -0,0 +1,184 @@
+package com.temnenkov.mzctl.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Множество целых чисел из диапазона 0..capacity-1 (например, индексов комнат лабиринта)
+ * со случайным доступом. Примитивный аналог {@link IndexedHashSet}: два массива int, без упаковки и хеширования.
+ *
+ * <p>Все операции - O(1), в режиме {@link IndexedHashSet.RemovalMode#ORDERED} - амортизированно:
+ * удалённые элементы помечаются пустыми слотами, которые пропускаются на краях и выбрасываются
+ * уплотнением, как только пустых слотов становится больше, чем элементов. Поэтому случайный выбор
+ * в этом режиме в среднем делает не больше двух попыток.</p>
+ */
+public final class IntIndexedSet {
+
+    private static final int EMPTY = -1;
+
+    private final IndexedHashSet.RemovalMode removalMode;
+    /**
+     * Слоты с элементами в порядке добавления; в режиме ORDERED между head и tail бывают пустые слоты
+     */
+    private final int[] slots;
+    /**
+     * Слот каждого элемента или EMPTY, если элемента нет в множестве
+     */
+    private final int[] positions;
+    private int head = 0;
+    private int tail = 0;
+    private int size = 0;
+
+    /**
+     * Создает пустое множество
+     *
+     * @param capacity    элементы множества - числа от 0 до capacity-1
+     * @param removalMode способ удаления элементов
+     */
+    public IntIndexedSet(int capacity, @NotNull IndexedHashSet.RemovalMode removalMode) {
+        SimplePreconditions.checkArgument(capacity >= 0, "capacity must be non-negative");
+        this.removalMode = SimplePreconditions.checkNotNull(removalMode, "removalMode", ".ctor");
+        this.slots = new int[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, EMPTY);
+    }
+
+    /**
+     * Добавляет элемент в конец множества.
+     *
+     * @param element добавляемый элемент
+     * @return true, если элемент был добавлен, false, если уже присутствует
+     */
+    public boolean add(int element) {
+        if (positions[element] != EMPTY) {
+            return false;
+        }
+        if (tail == slots.length) {
+            compact();
+        }
+        slots[tail] = element;
+        positions[element] = tail++;
+        size++;
+        return true;
+    }
+
+    /**
+     * Удаляет элемент из множества.
+     *
+     * @param element удаляемый элемент
+     * @return true, если элемент был удален, false, если отсутствовал
+     */
+    public boolean remove(int element) {
+        final int position = positions[element];
+        if (position == EMPTY) {
+            return false;
+        }
+        positions[element] = EMPTY;
+        size--;
+        if (removalMode == IndexedHashSet.RemovalMode.SWAP_WITH_LAST) {
+            final int last = slots[--tail];
+            if (position != tail) {
+                slots[position] = last;
+                positions[last] = position;
+            }
+            return true;
+        }
+
+        slots[position] = EMPTY;
+        while (head < tail && slots[head] == EMPTY) {
+            head++;
+        }
+        while (tail > head && slots[tail - 1] == EMPTY) {
+            tail--;
+        }
+        if (tail - head > 2 * size) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Проверяет, содержится ли элемент в множестве.
+     *
+     * @param element проверяемый элемент
+     * @return true, если элемент содержится в множестве
+     */
+    public boolean contains(int element) {
+        return positions[element] != EMPTY;
+    }
+
+    /**
+     * Возвращает случайный элемент из множества.
+     *
+     * @param random генератор случайных чисел
+     * @return случайный элемент из множества
+     * @throws IllegalStateException если множество пусто
+     */
+    public int getRandom(@NotNull RandomGenerator random) {
+        SimplePreconditions.checkState(size > 0, "IntIndexedSet is empty");
+        while (true) {
+            final int element = slots[head + random.nextInt(tail - head)];
+            if (element != EMPTY) {
+                return element;
+            }
+        }
+    }
+
+    /**
+     * Возвращает первый элемент множества (самый старый в режиме ORDERED).
+     *
+     * @return первый элемент множества
+     * @throws IllegalStateException если множество пусто
+     */
+    public int getFirst() {
+        SimplePreconditions.checkState(size > 0, "IntIndexedSet is empty");
+        return slots[head];
+    }
+
+    /**
+     * Возвращает последний элемент множества (самый новый в режиме ORDERED).
+     *
+     * @return последний элемент множества
+     * @throws IllegalStateException если множество пусто
+     */
+    public int getLast() {
+        SimplePreconditions.checkState(size > 0, "IntIndexedSet is empty");
+        return slots[tail - 1];
+    }
+
+    /**
+     * Возвращает количество элементов в множестве.
+     *
+     * @return количество элементов
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Проверяет, пусто ли множество.
+     *
+     * @return true, если множество пусто
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Сдвигает элементы в начало массива, выбрасывая пустые слоты. Порядок элементов сохраняется.
+     */
+    private void compact() {
+        int target = 0;
+        for (int slot = head; slot < tail; slot++) {
+            final int element = slots[slot];
+            if (element != EMPTY) {
+                slots[target] = element;
+                positions[element] = target++;
+            }
+        }
+        head = 0;
+        tail = target;
+    }
+}
@@ -0,0 +1,99 @@
+package com.temnenkov.mzctl.util;
+
+import java.util.Arrays;
+
+/**
+ * Двоичная куча примитивных long, на вершине - наименьший. Без упаковки: один растущий массив long.
+ *
+ * <p>Приоритет и данные удобно упаковывать в одно число: приоритет в старшие биты, полезное значение в младшие.</p>
+ */
+public final class LongMinHeap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] heap;
+    private int size = 0;
+
+    public LongMinHeap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Создает пустую кучу
+     *
+     * @param initialCapacity начальная емкость, при необходимости куча растет
+     */
+    public LongMinHeap(int initialCapacity) {
+        SimplePreconditions.checkArgument(initialCapacity >= 0, "initialCapacity must be non-negative");
+        this.heap = new long[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Добавляет значение в кучу
+     *
+     * @param value значение
+     */
+    public void add(long value) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        int child = size++;
+        while (child > 0) {
+            final int parent = (child - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[child] = heap[parent];
+            child = parent;
+        }
+        heap[child] = value;
+    }
+
+    /**
+     * Наименьшее значение без удаления
+     *
+     * @return наименьшее значение
+     * @throws IllegalStateException если куча пуста
+     */
+    public long peek() {
+        SimplePreconditions.checkState(size > 0, "LongMinHeap is empty");
+        return heap[0];
+    }
+
+    /**
+     * Удаляет и возвращает наименьшее значение
+     *
+     * @return наименьшее значение
+     * @throws IllegalStateException если куча пуста
+     */
+    public long poll() {
+        SimplePreconditions.checkState(size > 0, "LongMinHeap is empty");
+        final long min = heap[0];
+        final long last = heap[--size];
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[parent] = heap[child];
+            parent = child;
+        }
+        heap[parent] = last;
+        return min;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -2,9 +2,12 @@ package com.temnenkov.mzctl.util;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
+/**
+ * Источник случайности. Воспроизводимый источник с зерном - {@link SeededRandomProvider}.
+ */
 @FunctionalInterface
 public interface RandomProvider {
-    @NotNull Random getRandom();
+    @NotNull RandomGenerator getRandom();
 }
@@ -0,0 +1,71 @@
+package com.temnenkov.mzctl.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Воспроизводимый источник случайности: одно и то же зерно дает одну и ту же последовательность.
+ *
+ * <p>Основан на {@link SplittableRandom}. Сам источник не потокобезопасен; для параллельных частей
+ * алгоритма от него отщепляются независимые потоки {@link #split()}. Если отщеплять их в одном и том же
+ * порядке, результат не зависит от того, сколько потоков их потом используют.</p>
+ */
+public final class SeededRandomProvider implements RandomProvider {
+
+    private final long seed;
+    private final SplittableRandom random;
+
+    /**
+     * Создает источник с заданным зерном
+     *
+     * @param seed зерно
+     */
+    public SeededRandomProvider(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Создает источник со случайным зерном, которое можно узнать через {@link #getSeed()}
+     *
+     * @return источник
+     */
+    public static @NotNull SeededRandomProvider withRandomSeed() {
+        return new SeededRandomProvider(newSeed());
+    }
+
+    /**
+     * Случайное зерно
+     *
+     * @return зерно
+     */
+    public static long newSeed() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * Зерно, с которым создан источник
+     *
+     * @return зерно
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public @NotNull RandomGenerator getRandom() {
+        return random;
+    }
+
+    /**
+     * Отщепляет независимый поток случайных чисел, например для задачи в другом потоке
+     *
+     * @return новый генератор
+     */
+    public @NotNull RandomGenerator split() {
+        return random.split();
+    }
+}
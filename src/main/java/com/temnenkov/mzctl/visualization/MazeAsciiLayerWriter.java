@@ -0,0 +1,62 @@
+package com.temnenkov.mzctl.visualization;
+
+import com.temnenkov.mzctl.generation.MazeLayerSink;
+import com.temnenkov.mzctl.model.MazeDim;
+import com.temnenkov.mzctl.util.SimplePreconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Потоковый вывод двумерного лабиринта в том же ASCII-формате, что и {@link MazeAsciiVisualizer}.
+ * Каждый слой (ряд) пишется сразу, как только готов, поэтому лабиринт целиком в памяти не нужен.
+ *
+ * <p>Ошибки записи пробрасываются как {@link UncheckedIOException}. Writer не закрывается.</p>
+ */
+public class MazeAsciiLayerWriter implements MazeLayerSink {
+
+    private static final String CTOR = ".ctor";
+    private final Writer writer;
+    private final int width;
+    private final StringBuilder line = new StringBuilder();
+
+    public MazeAsciiLayerWriter(@NotNull MazeDim mazeDim, @NotNull Writer writer) {
+        SimplePreconditions.checkNotNull(mazeDim, "mazeDim", CTOR);
+        if (mazeDim.size() != 2) {
+            throw new IllegalArgumentException("Only 2-dimensional mazes supported");
+        }
+        this.writer = SimplePreconditions.checkNotNull(writer, "writer", CTOR);
+        this.width = mazeDim.dimSize(1);
+    }
+
+    @Override
+    public void acceptLayer(int layer, int @NotNull [] passMasks) {
+        line.setLength(0);
+        if (layer == 0) {
+            // верхняя граница лабиринта
+            line.append("+").append("---+".repeat(width)).append("\n");
+        }
+
+        // левая стена первого столбца, затем комнаты и стены между ними
+        line.append("|");
+        for (int x = 0; x < width; x++) {
+            line.append("   ").append((passMasks[x] & 2) != 0 ? " " : "|");
+        }
+        line.append("\n");
+
+        // стены под рядом комнат
+        line.append("+");
+        for (int x = 0; x < width; x++) {
+            line.append((passMasks[x] & 1) != 0 ? "   +" : "---+");
+        }
+        line.append("\n");
+
+        try {
+            writer.write(line.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
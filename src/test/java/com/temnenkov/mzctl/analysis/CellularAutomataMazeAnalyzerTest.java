@@ -0,0 +1,95 @@
+package com.temnenkov.mzctl.analysis;
+
+import com.temnenkov.mzctl.model.BitSetCellularAutomataMaze;
+import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.model.CellularAutomataMaze;
+import com.temnenkov.mzctl.model.CellularAutomataMazeImpl;
+import com.temnenkov.mzctl.model.MazeDim;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CellularAutomataMazeAnalyzerTest {
+
+    static List<MazeDim> dimensions() {
+        return List.of(MazeDim.of(40), MazeDim.of(23, 31), MazeDim.of(9, 10, 11), MazeDim.of(4, 5, 3, 6));
+    }
+
+    @Test
+    void diagonalNeighborsAreConnected() {
+        final CellularAutomataMaze maze = new BitSetCellularAutomataMaze(MazeDim.of(3, 4), new Random());
+        maze.initialize(1.0);
+        maze.setWall(false, 0, 0);
+        maze.setWall(false, 1, 1);
+        maze.setWall(false, 0, 3);
+        maze.setWall(false, 1, 3);
+        maze.setWall(false, 2, 3);
+
+        final CellularAutomataMazeAnalyzer analyzer = new CellularAutomataMazeAnalyzer(maze);
+
+        assertEquals(2, analyzer.countIsolatedAreas());
+        assertEquals(3, analyzer.largestAreaSize());
+        assertArrayEquals(new int[]{3, 2}, analyzer.areaSizes());
+    }
+
+    @Test
+    void allWalls() {
+        final CellularAutomataMaze maze = new BitSetCellularAutomataMaze(MazeDim.of(5, 5), new Random()).initialize(1.0);
+
+        final CellularAutomataMazeAnalyzer analyzer = new CellularAutomataMazeAnalyzer(maze);
+
+        assertEquals(0, analyzer.countIsolatedAreas());
+        assertEquals(0, analyzer.largestAreaSize());
+    }
+
+    @ParameterizedTest
+    @MethodSource("dimensions")
+    void sameAsFloodFill(MazeDim mazeDim) {
+        final CellularAutomataMaze maze = new CellularAutomataMazeImpl(mazeDim, new Random(3L)).initialize(0.55);
+
+        final CellularAutomataMazeAnalyzer analyzer = new CellularAutomataMazeAnalyzer(maze);
+
+        final List<Integer> expected = floodFillSizes(maze);
+        assertEquals(expected.size(), analyzer.countIsolatedAreas());
+        assertEquals(expected.isEmpty() ? 0 : expected.get(0), analyzer.largestAreaSize());
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), analyzer.areaSizes());
+    }
+
+    private static @NotNull List<Integer> floodFillSizes(@NotNull CellularAutomataMaze maze) {
+        final Set<Cell> visited = new HashSet<>();
+        final List<Integer> sizes = new ArrayList<>();
+        for (Cell start : maze) {
+            if (maze.isWall(start) || !visited.add(start)) {
+                continue;
+            }
+            int size = 0;
+            final Queue<Cell> queue = new ArrayDeque<>();
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                final Cell current = queue.poll();
+                size++;
+                current.neighbors()
+                        .filter(maze::isValid)
+                        .filter(neighbor -> !maze.isWall(neighbor))
+                        .filter(visited::add)
+                        .forEach(queue::add);
+            }
+            sizes.add(size);
+        }
+        sizes.sort(Comparator.reverseOrder());
+        return sizes;
+    }
+}
@@ -1,6 +1,8 @@
 package com.temnenkov.mzctl.game;
 
 import com.temnenkov.mzctl.analysis.MazeExplorer;
+import com.temnenkov.mzctl.generation.CancellationToken;
+import com.temnenkov.mzctl.generation.GenerationMonitor;
 import com.temnenkov.mzctl.generation.MazeGeneratorFactory;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
@@ -11,9 +13,12 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.security.SecureRandom;
+import java.util.OptionalLong;
+import java.util.concurrent.CancellationException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class MazeManagerTest {
@@ -45,4 +50,42 @@ class MazeManagerTest {
         assertEquals(originalMaze, loadedMaze);
     }
 
-}
\ No newline at end of file
+    @Test
+    void testSameSeedSameMaze() {
+        Maze first = mazeManager.generateMaze(MazeDim.of(12, 9, 3), MazeGeneratorFactory.Algo.WILSON, 2024L);
+        Maze second = mazeManager.generateMaze(MazeDim.of(12, 9, 3), MazeGeneratorFactory.Algo.WILSON, 2024L);
+
+        assertEquals(first, second);
+        assertEquals(OptionalLong.of(2024L), first.getSeed());
+    }
+
+    @Test
+    void testCancelledGeneration() {
+        final CancellationToken token = new CancellationToken();
+        token.cancel();
+
+        assertThrows(CancellationException.class, () -> mazeManager.generateMaze(MazeDim.of(10, 10),
+                MazeGeneratorFactory.Algo.WILSON, 1L, new GenerationMonitor(token)));
+    }
+
+    @Test
+    void testSameSeedSameMazeInOneThread() {
+        Maze parallel = mazeManager.generateMaze(MazeDim.of(400, 400), MazeGeneratorFactory.Algo.BINARY_TREE, 7L);
+        Maze single = mazeManager.generateMaze(MazeDim.of(400, 400), MazeGeneratorFactory.Algo.BINARY_TREE, 7L, 1);
+
+        assertEquals(parallel, single);
+    }
+
+    @Test
+    void testSeedIsSavedWithMaze() {
+        Maze originalMaze = mazeManager.generateMaze2D(6, 4, MazeGeneratorFactory.Algo.ELLER);
+        assertTrue(originalMaze.getSeed().isPresent(), "случайное зерно тоже запоминается");
+        mazeManager.saveMaze("seeded", originalMaze);
+
+        Maze loadedMaze = mazeManager.loadMaze("seeded");
+        assertEquals(originalMaze, loadedMaze);
+        assertEquals(originalMaze.getSeed(), loadedMaze.getSeed());
+        assertEquals(originalMaze, mazeManager.generateMaze2D(6, 4, MazeGeneratorFactory.Algo.ELLER,
+                loadedMaze.getSeed().getAsLong()));
+    }
+}
@@ -0,0 +1,126 @@
+package com.temnenkov.mzctl.game;
+
+import com.temnenkov.mzctl.analysis.MazeExplorer;
+import com.temnenkov.mzctl.generation.MazeGeneratorFactory;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MazePoolTest {
+
+    private static final MazeDim DIM = MazeDim.of(6, 7);
+    private static final MazeGeneratorFactory.Algo ALGO = MazeGeneratorFactory.Algo.RANDOMIZED_PRIM;
+
+    @Test
+    void disabledPoolGeneratesOnDemand() {
+        try (MazePool pool = MazePool.disabled()) {
+            final Maze maze = pool.take(DIM, ALGO);
+
+            assertEquals(DIM, maze.getMazeDimension());
+            assertEquals(new MazePool.Stats(0, 1, 0), pool.stats());
+        }
+    }
+
+    @Test
+    void prefilledPoolHits() throws InterruptedException {
+        try (MazePool pool = new MazePool(3, 1, 1)) {
+            pool.prefill(DIM, ALGO);
+            awaitReady(pool, 3);
+
+            final Maze maze = pool.take(DIM, ALGO);
+
+            assertEquals(DIM, maze.getMazeDimension());
+            assertTrue(new MazeExplorer(maze, new Random()).isPerfect());
+            assertEquals(1, pool.stats().hits());
+            assertEquals(0, pool.stats().misses());
+            assertEquals(1.0, pool.stats().hitRate());
+        }
+    }
+
+    @Test
+    void refillBelowLowWatermark() throws InterruptedException {
+        try (MazePool pool = new MazePool(2, 1, 1)) {
+            pool.prefill(DIM, ALGO);
+            awaitReady(pool, 2);
+            pool.take(DIM, ALGO);
+            pool.take(DIM, ALGO);
+            awaitReady(pool, 2);
+
+            assertEquals(new MazePool.Stats(2, 0, 2), pool.stats());
+        }
+    }
+
+    @Test
+    void keysAreSeparate() throws InterruptedException {
+        try (MazePool pool = new MazePool(1, 0, 2)) {
+            pool.prefill(DIM, ALGO);
+            awaitReady(pool, 1);
+
+            final Maze other = pool.take(MazeDim.of(3, 3), ALGO);
+
+            assertEquals(MazeDim.of(3, 3), other.getMazeDimension());
+            assertEquals(1, pool.stats().misses());
+        }
+    }
+
+    @Test
+    void unregisteredKeyIsNotPooled() throws InterruptedException {
+        try (MazePool pool = new MazePool(2, 1, 1)) {
+            pool.take(DIM, ALGO);
+            pool.take(DIM, ALGO);
+            Thread.sleep(100);
+
+            assertEquals(new MazePool.Stats(0, 2, 0), pool.stats());
+        }
+    }
+
+    @Test
+    void closeStopsRefillInProgress() throws InterruptedException {
+        final Set<Thread> before = poolThreads();
+        final Set<Thread> started;
+        try (MazePool pool = new MazePool(1, 0, 1)) {
+            // Aldous-Broder на девяти миллионах комнат строится гораздо дольше, чем тест ждёт
+            pool.prefill(MazeDim.of(3000, 3000), MazeGeneratorFactory.Algo.ALDOUS_BRODER);
+            Thread.sleep(100);
+            started = poolThreads();
+            started.removeAll(before);
+        }
+
+        assertEquals(1, started.size());
+        for (Thread thread : started) {
+            thread.join(5_000);
+            assertFalse(thread.isAlive(), "refill is not cancelled");
+        }
+    }
+
+    @Test
+    void invalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new MazePool(-1, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new MazePool(2, 2, 1));
+        assertThrows(IllegalArgumentException.class, () -> new MazePool(2, 1, 0));
+    }
+
+    private static Set<Thread> poolThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("maze-pool"))
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static void awaitReady(MazePool pool, int ready) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (pool.stats().ready() < ready) {
+            assertTrue(System.currentTimeMillis() < deadline, "pool is not refilled");
+            Thread.sleep(10);
+        }
+    }
+}
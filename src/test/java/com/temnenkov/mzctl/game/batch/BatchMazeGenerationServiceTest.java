@@ -0,0 +1,162 @@
+package com.temnenkov.mzctl.game.batch;
+
+import com.temnenkov.mzctl.analysis.MazeExplorer;
+import com.temnenkov.mzctl.game.MazeManager;
+import com.temnenkov.mzctl.generation.CancellationToken;
+import com.temnenkov.mzctl.generation.GenerationProgress;
+import com.temnenkov.mzctl.generation.MazeGeneratorFactory;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import com.temnenkov.mzctl.model.UserId;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchMazeGenerationServiceTest {
+
+    private static final UserId USER = new UserId("tester");
+
+    @TempDir
+    Path tempDir;
+
+    private MazeManager mazeManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mazeManager = new MazeManager(tempDir);
+    }
+
+    @Test
+    void generateBatch() throws IOException {
+        final MazeGeneratorFactory.Algo[] algos = MazeGeneratorFactory.Algo.values();
+        final List<MazeSpec> specs = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            specs.add(new MazeSpec("level-" + i, MazeDim.of(5 + i % 3, 6), algos[i % algos.length], i));
+        }
+        final Set<String> reported = new HashSet<>();
+        final List<Integer> completedCounts = new ArrayList<>();
+
+        final BatchStats stats = new BatchMazeGenerationService(mazeManager, 3).generate(USER, specs,
+                (spec, error, completed, total) -> {
+                    assertNull(error);
+                    assertEquals(25, total);
+                    reported.add(spec.name());
+                    completedCounts.add(completed);
+                });
+
+        assertEquals(25, stats.total());
+        assertEquals(25, stats.succeeded());
+        assertEquals(0, stats.failed());
+        assertEquals(specs.stream().mapToLong(spec -> spec.mazeDim().dimSize(0) * 6L).sum(), stats.totalCells());
+        assertEquals(25, reported.size());
+        for (int i = 0; i < 25; i++) {
+            assertEquals(i + 1, completedCounts.get(i));
+        }
+        for (MazeSpec spec : specs) {
+            final Maze maze = mazeManager.loadUserMaze(USER, spec.name());
+            assertEquals(spec.mazeDim(), maze.getMazeDimension());
+            assertTrue(new MazeExplorer(maze, new Random()).isPerfect(), "not perfect: " + spec);
+        }
+    }
+
+    @Test
+    void sameSeedSameMaze() throws IOException {
+        final List<MazeSpec> specs = List.of(
+                new MazeSpec("a", MazeDim.of(8, 8), MazeGeneratorFactory.Algo.WILSON, 77),
+                new MazeSpec("b", MazeDim.of(8, 8), MazeGeneratorFactory.Algo.WILSON, 77));
+
+        new BatchMazeGenerationService(mazeManager, 2).generate(USER, specs, (spec, error, completed, total) -> {
+        });
+
+        assertEquals(mazeManager.loadUserMaze(USER, "a"), mazeManager.loadUserMaze(USER, "b"));
+    }
+
+    @Test
+    void failedSpecDoesNotStopBatch() {
+        final List<MazeSpec> specs = List.of(
+                new MazeSpec("ok", MazeDim.of(4, 4), MazeGeneratorFactory.Algo.ELLER, 1),
+                new MazeSpec("bad\u0000name", MazeDim.of(4, 4), MazeGeneratorFactory.Algo.ELLER, 2));
+        final List<Throwable> errors = new ArrayList<>();
+
+        final BatchStats stats = new BatchMazeGenerationService(mazeManager, 1).generate(USER, specs,
+                (spec, error, completed, total) -> {
+                    if (error != null) {
+                        errors.add(error);
+                    }
+                });
+
+        assertEquals(1, stats.succeeded());
+        assertEquals(1, stats.failed());
+        assertEquals(1, errors.size());
+    }
+
+    @Test
+    void cancelStopsBatch() {
+        final List<MazeSpec> specs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            specs.add(new MazeSpec("level-" + i, MazeDim.of(30, 30), MazeGeneratorFactory.Algo.WILSON, i));
+        }
+        final CancellationToken token = new CancellationToken();
+
+        final BatchStats stats = new BatchMazeGenerationService(mazeManager, 1).generate(USER, specs,
+                (spec, error, completed, total) -> token.cancel(), token);
+
+        // после отмены завершается только уже отправленное задание: успешно, если успело, или отменённым
+        assertEquals(10, stats.total());
+        assertTrue(stats.succeeded() >= 1);
+        assertTrue(stats.succeeded() + stats.failed() <= 2);
+    }
+
+    @Test
+    void progressIsReported() {
+        final List<MazeSpec> specs = List.of(
+                new MazeSpec("a", MazeDim.of(6, 6), MazeGeneratorFactory.Algo.ELLER, 1),
+                new MazeSpec("b", MazeDim.of(7, 7), MazeGeneratorFactory.Algo.WILSON, 2));
+        final Set<String> finished = ConcurrentHashMap.newKeySet();
+
+        new BatchMazeGenerationService(mazeManager, 2).generate(USER, specs, new BatchProgressListener() {
+            @Override
+            public void mazeCompleted(@NotNull MazeSpec spec, @Nullable Throwable error, int completed, int total) {
+                assertNull(error);
+            }
+
+            @Override
+            public void mazeProgress(@NotNull MazeSpec spec, @NotNull GenerationProgress progress) {
+                if (progress.finished()) {
+                    assertEquals(spec.mazeDim().dimSize(0) * (long) spec.mazeDim().dimSize(1), progress.totalCells());
+                    finished.add(spec.name());
+                }
+            }
+        });
+
+        assertEquals(Set.of("a", "b"), finished);
+    }
+
+    @Test
+    void parseSpec() {
+        final MazeSpec spec = MazeSpec.parse("  level-1 20x30x4 WILSON -5 ");
+
+        assertEquals(new MazeSpec("level-1", MazeDim.of(20, 30, 4), MazeGeneratorFactory.Algo.WILSON, -5), spec);
+        assertThrows(IllegalArgumentException.class, () -> MazeSpec.parse("level-1 20x30 WILSON"));
+        assertThrows(IllegalArgumentException.class, () -> MazeSpec.parse("level-1 20xA WILSON 1"));
+        assertThrows(IllegalArgumentException.class, () -> MazeSpec.parse("level-1 20x30 NO_SUCH 1"));
+        assertNotNull(MazeSpec.parse("x 1 ELLER 0"));
+    }
+}
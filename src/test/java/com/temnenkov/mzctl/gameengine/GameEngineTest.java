@@ -4,12 +4,16 @@ import com.temnenkov.mzctl.auth.RoleResolver;
 import com.temnenkov.mzctl.context.GameContext;
 import com.temnenkov.mzctl.context.SimpleGameContext;
 import com.temnenkov.mzctl.game.MazeManager;
+import com.temnenkov.mzctl.game.MazePool;
 import com.temnenkov.mzctl.game.model.EnvironmentDescriber;
 import com.temnenkov.mzctl.game.model.Facing;
+import com.temnenkov.mzctl.game.model.PlayerSession;
 import com.temnenkov.mzctl.game.model.PlayerStateND;
 import com.temnenkov.mzctl.game.model.RussianDescriberFactory;
 import com.temnenkov.mzctl.model.Cell;
+import com.temnenkov.mzctl.generation.MazeGeneratorFactory;
 import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.model.UserId;
 import com.temnenkov.mzctl.visualization.MazeAsciiVisualizer;
 import org.junit.jupiter.api.BeforeEach;
@@ -57,4 +61,16 @@ class GameEngineTest {
 
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void startNewGameFromPool() {
+        context.getMazeManager().setMazePool(new MazePool(2, 0, 1));
+
+        gameEngine.startNewGame(LOGIN, 4, 5, MazeGeneratorFactory.Algo.WILSON);
+
+        final PlayerSession session = context.getPlayerSession(LOGIN);
+        assertEquals(MazeDim.of(4, 5), session.getMaze().getMazeDimension());
+        assertEquals(Cell.ofRowAndColumn(0, 0), session.getPlayerStateND().getPosition());
+        context.getMazeManager().getMazePool().close();
+    }
+}
@@ -0,0 +1,85 @@
+package com.temnenkov.mzctl.generation;
+
+import com.temnenkov.mzctl.analysis.MazeExplorer;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AldousBroderWilsonMazeGeneratorTest {
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0.0, 0.3, 0.7, 1.0})
+    void generateMazeIsPerfectForAnyCoverage(double coverage) {
+        final Random random = new Random(17);
+        final AldousBroderWilsonMazeGenerator generator =
+                new AldousBroderWilsonMazeGenerator(MazeDim.of(30, 20, 3), random, coverage);
+
+        final Maze maze = generator.generateMaze();
+
+        assertTrue(new MazeExplorer(maze, random).isPerfect());
+        assertThrows(IllegalStateException.class, generator::generateMaze);
+    }
+
+    @Test
+    void statsShowStepsOfEachPhase() {
+        final Random random = new Random(5);
+
+        final AldousBroderWilsonMazeGenerator pureAldousBroder =
+                new AldousBroderWilsonMazeGenerator(MazeDim.of(40, 40), random, 1.0);
+        pureAldousBroder.generateMaze();
+        assertEquals(0, pureAldousBroder.stats().wilsonSteps());
+        assertTrue(pureAldousBroder.stats().aldousBroderSteps() >= 40 * 40 - 1);
+
+        final AldousBroderWilsonMazeGenerator pureWilson =
+                new AldousBroderWilsonMazeGenerator(MazeDim.of(40, 40), random, 0.0);
+        pureWilson.generateMaze();
+        assertEquals(0, pureWilson.stats().aldousBroderSteps());
+        assertTrue(pureWilson.stats().wilsonSteps() >= 40 * 40 - 1);
+
+        final AldousBroderWilsonMazeGenerator hybrid =
+                new AldousBroderWilsonMazeGenerator(MazeDim.of(40, 40), random, 0.5);
+        hybrid.generateMaze();
+        assertTrue(hybrid.stats().aldousBroderSteps() >= 40 * 40 / 2 - 1);
+        assertTrue(hybrid.stats().wilsonSteps() >= 40 * 40 / 2);
+        assertEquals(hybrid.stats().aldousBroderSteps() + hybrid.stats().wilsonSteps(), hybrid.stats().totalSteps());
+    }
+
+    @Test
+    void spanningTreesAreUniform() {
+        // у квадрата 2x2 четыре остовных дерева: каждое без одного из четырёх проходов
+        final Random random = new Random(42);
+        final int[] counts = new int[4];
+        final int runs = 4000;
+        for (int i = 0; i < runs; i++) {
+            final Maze maze = new AldousBroderWilsonMazeGenerator(MazeDim.of(2, 2), random, 0.5).generateMaze();
+            final boolean[] passes = {maze.canPass(0, 1), maze.canPass(0, 2), maze.canPass(1, 3), maze.canPass(2, 3)};
+            for (int pass = 0; pass < passes.length; pass++) {
+                if (!passes[pass]) {
+                    counts[pass]++;
+                }
+            }
+        }
+
+        assertEquals(runs, Arrays.stream(counts).sum());
+        for (int count : counts) {
+            assertTrue(Math.abs(count - runs / 4) < runs / 20, () -> "not uniform: " + Arrays.toString(counts));
+        }
+    }
+
+    @Test
+    void coverageMustBeFraction() {
+        final MazeDim mazeDim = MazeDim.of(3, 3);
+        final Random random = new Random(1);
+        assertThrows(IllegalArgumentException.class, () -> new AldousBroderWilsonMazeGenerator(mazeDim, random, -0.1));
+        assertThrows(IllegalArgumentException.class, () -> new AldousBroderWilsonMazeGenerator(mazeDim, random, 1.5));
+    }
+}
@@ -52,5 +52,4 @@ class BinaryTreeMazeGeneratorTest {
         assertTrue(mazeExplorer.isAcyclic());
         assertTrue(mazeExplorer.isPerfect());
     }
-
-}
\ No newline at end of file
+}
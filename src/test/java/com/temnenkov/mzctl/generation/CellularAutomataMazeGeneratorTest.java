@@ -1,7 +1,9 @@
 package com.temnenkov.mzctl.generation;
 
 import com.temnenkov.mzctl.analysis.CellularAutomataMazeAnalyzer;
+import com.temnenkov.mzctl.model.Cell;
 import com.temnenkov.mzctl.model.CellularAutomataMaze;
+import com.temnenkov.mzctl.model.CellularAutomataMazeImpl;
 import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.visualization.CellularAutomataAsciiVisualizer;
 import com.temnenkov.mzctl.visualization.CellularAutomataImageVisualizer;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 class CellularAutomataMazeGeneratorTest {
@@ -40,6 +43,41 @@ class CellularAutomataMazeGeneratorTest {
         report(maze);
     }
 
+    @Test
+    void sameAsStepByStepSimulation() {
+        final MazeDim mazeDim = MazeDim.of(37, 70);
+        final CellularAutomataMaze maze = new CellularAutomataMazeGenerator(
+                0.45, 4, 0.5, 0.6, new Random(7L), null).generate(mazeDim);
+
+        CellularAutomataMaze expected = new CellularAutomataMazeImpl(mazeDim, new Random(7L)).initialize(0.45);
+        for (int i = 0; i < 4; i++) {
+            final CellularAutomataMaze current = expected;
+            final CellularAutomataMaze next = new CellularAutomataMazeImpl(mazeDim, new Random());
+            current.forEach(cell -> {
+                final double wallRatio = current.countWallNeighbors(cell) / 8.0;
+                next.setWall(wallRatio >= (current.isWall(cell) ? 0.5 : 0.6), cell);
+            });
+            expected = next;
+        }
+
+        for (Cell cell : expected) {
+            assertEquals(expected.isWall(cell), maze.isWall(cell), cell::toString);
+        }
+    }
+
+    @Test
+    void parallelSameAsSerial() {
+        final MazeDim mazeDim = MazeDim.of(301, 257);
+        final CellularAutomataMaze serial = new CellularAutomataMazeGenerator(
+                0.45, 5, 0.5, 0.625, new Random(11L), null, 1).generate(mazeDim);
+        final CellularAutomataMaze parallel = new CellularAutomataMazeGenerator(
+                0.45, 5, 0.5, 0.625, new Random(11L), null, 4).generate(mazeDim);
+
+        for (Cell cell : serial) {
+            assertEquals(serial.isWall(cell), parallel.isWall(cell), cell::toString);
+        }
+    }
+
     private static void report(CellularAutomataMaze maze) {
         final CellularAutomataMazeAnalyzer cellularAutomataMazeAnalyzer = new CellularAutomataMazeAnalyzer(maze);
         final int isolatedAreas = cellularAutomataMazeAnalyzer.countIsolatedAreas();
@@ -3,14 +3,18 @@ package com.temnenkov.mzctl.generation;
 import com.temnenkov.mzctl.analysis.MazeExplorer;
 import com.temnenkov.mzctl.model.Maze;
 import com.temnenkov.mzctl.model.MazeDim;
+import com.temnenkov.mzctl.visualization.MazeAsciiLayerWriter;
 import com.temnenkov.mzctl.visualization.MazeAsciiVisualizer;
 import com.temnenkov.mzctl.visualization.MazeImageVisualizer;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class EllerMazeGeneratorTest {
@@ -33,4 +37,50 @@ class EllerMazeGeneratorTest {
         assertTrue(mazeExplorer.isPerfect(), "not perfect");
     }
 
-}
\ No newline at end of file
+    @Test
+    void generateMaze3dIsPerfect() {
+        final Random random = new Random(7);
+        final Maze maze = new EllerMazeGenerator(MazeDim.of(6, 5, 4), random).generateMaze();
+
+        assertTrue(new MazeExplorer(maze, random).isPerfect(), "not perfect");
+    }
+
+    @Test
+    void streamedLayersSameAsGeneratedMaze() {
+        final MazeDim mazeDim = MazeDim.of(20, 15);
+        final Maze maze = new EllerMazeGenerator(mazeDim, new Random(11)).generateMaze();
+
+        final StringWriter writer = new StringWriter();
+        new EllerMazeGenerator(mazeDim, new Random(11)).generateLayers(new MazeAsciiLayerWriter(mazeDim, writer));
+
+        assertEquals(new MazeAsciiVisualizer(maze).mazeToString(), writer.toString());
+    }
+
+    @Test
+    void streamingManyLayers() {
+        final int layers = 100_000;
+        final int width = 16;
+        final long[] passes = new long[1];
+        final int[] nextLayer = new int[1];
+
+        new EllerMazeGenerator(MazeDim.of(layers, width), new Random(3)).generateLayers((layer, passMasks) -> {
+            assertEquals(nextLayer[0]++, layer);
+            for (int mask : passMasks) {
+                passes[0] += Integer.bitCount(mask);
+            }
+        });
+
+        assertEquals(layers, nextLayer[0]);
+        // у дерева проходов ровно на один меньше, чем комнат
+        assertEquals((long) layers * width - 1, passes[0]);
+    }
+
+    @Test
+    void generateOnlyOnce() {
+        final EllerMazeGenerator generator = new EllerMazeGenerator(MazeDim.of(3, 3), new Random(1));
+        generator.generateLayers((layer, passMasks) -> {
+        });
+
+        assertThrows(IllegalStateException.class, generator::generateMaze);
+    }
+}
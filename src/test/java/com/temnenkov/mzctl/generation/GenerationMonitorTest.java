@@ -0,0 +1,98 @@
+package com.temnenkov.mzctl.generation;
+
+import com.temnenkov.mzctl.model.MazeDim;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerationMonitorTest {
+
+    @ParameterizedTest
+    @EnumSource(MazeGeneratorFactory.Algo.class)
+    void everyGeneratorReportsAllCells(MazeGeneratorFactory.Algo algo) {
+        final MazeDim mazeDim = MazeDim.of(300, 300);
+        final List<GenerationProgress> events = new ArrayList<>();
+        final GenerationMonitor monitor = new GenerationMonitor(new CancellationToken(), events::add, Duration.ZERO);
+
+        new MazeGeneratorFactory(new Random(5)).create(algo, mazeDim).generateMaze(monitor);
+
+        final GenerationProgress last = events.get(events.size() - 1);
+        assertTrue(last.finished());
+        assertEquals(90_000, last.totalCells());
+        assertEquals(90_000, last.cellsCarved());
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i).cellsCarved() >= events.get(i - 1).cellsCarved());
+            assertFalse(events.get(i - 1).finished());
+        }
+    }
+
+    @Test
+    void tiledGeneratorReportsAllCells() {
+        final List<GenerationProgress> events = new ArrayList<>();
+        final GenerationMonitor monitor = new GenerationMonitor(new CancellationToken(), events::add, Duration.ZERO);
+
+        new MazeGeneratorFactory(new Random(5))
+                .createTiled(MazeGeneratorFactory.Algo.WILSON, MazeDim.of(200, 150), 40, 2)
+                .generateMaze(monitor);
+
+        assertEquals(30_000, events.get(events.size() - 1).cellsCarved());
+    }
+
+    @Test
+    void cancelledTokenStopsGenerationAtOnce() {
+        final CancellationToken token = new CancellationToken();
+        token.cancel();
+        final MazeGenerator generator = new WilsonMazeGenerator(MazeDim.of(10, 10), new Random(1));
+
+        final GenerationMonitor monitor = new GenerationMonitor(token);
+        assertThrows(CancellationException.class, () -> generator.generateMaze(monitor));
+    }
+
+    @ParameterizedTest
+    @EnumSource(MazeGeneratorFactory.Algo.class)
+    void cancellationStopsRunningGeneration(MazeGeneratorFactory.Algo algo) {
+        final CancellationToken token = new CancellationToken();
+        final List<GenerationProgress> events = new ArrayList<>();
+        final GenerationMonitor monitor = new GenerationMonitor(token, progress -> {
+            events.add(progress);
+            token.cancel();
+        }, Duration.ZERO);
+        final MazeGenerator generator = new MazeGeneratorFactory(new Random(5)).create(algo, MazeDim.of(700, 700));
+
+        assertThrows(CancellationException.class, () -> generator.generateMaze(monitor));
+        assertEquals(1, events.size());
+        assertTrue(events.get(0).cellsCarved() < events.get(0).totalCells());
+    }
+
+    @Test
+    void cellularAutomataReportsEveryIteration() {
+        final List<GenerationProgress> events = new ArrayList<>();
+        final GenerationMonitor monitor = new GenerationMonitor(new CancellationToken(), events::add, Duration.ZERO);
+
+        new CellularAutomataMazeGenerator(0.45, 3, new Random(1)).generate(MazeDim.of(300, 300), monitor);
+
+        final GenerationProgress last = events.get(events.size() - 1);
+        assertEquals(270_000, last.totalCells());
+        assertEquals(270_000, last.cellsCarved());
+    }
+
+    @Test
+    void progressRateAndEta() {
+        final GenerationProgress progress = new GenerationProgress(250, 1000, Duration.ofSeconds(2), false);
+
+        assertEquals(125.0, progress.cellsPerSecond(), 1e-9);
+        assertEquals(0.25, progress.fraction(), 1e-9);
+        assertEquals(Duration.ofSeconds(6), progress.eta());
+    }
+}
@@ -9,6 +9,7 @@ import com.temnenkov.mzctl.visualization.MazeImageVisualizer;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.IOException;
@@ -16,6 +17,7 @@ import java.security.SecureRandom;
 import java.util.Random;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -71,4 +73,15 @@ class GrowingTreeMazeGeneratorTest {
                     %n""", strategy, mixedProbability, genDurationMs, exploreDurationMs, report);
 
     }
-}
\ No newline at end of file
+
+    @ParameterizedTest
+    @EnumSource(GrowingTreeMazeGenerator.Strategy.class)
+    void sameSeedGivesSameMaze(GrowingTreeMazeGenerator.Strategy strategy) {
+        final MazeDim mazeDim = MazeDim.of(40, 30);
+
+        final Maze first = new GrowingTreeMazeGenerator(mazeDim, new Random(42), strategy, 0.5).generateMaze();
+        final Maze second = new GrowingTreeMazeGenerator(mazeDim, new Random(42), strategy, 0.5).generateMaze();
+
+        assertEquals(first, second);
+    }
+}
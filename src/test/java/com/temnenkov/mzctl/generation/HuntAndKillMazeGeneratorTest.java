@@ -53,4 +53,13 @@ class HuntAndKillMazeGeneratorTest {
         assertTrue(mazeExplorer.isPerfect());
     }
 
-}
\ No newline at end of file
+    @Test
+    void largeMazeIsPerfect() {
+        // охота идет по сводке границы через тысячи слов битовой маски
+        final Random random = new Random(17);
+
+        final Maze maze = new HuntAndKillMazeGenerator(MazeDim.of(1000, 1000), random).generateMaze();
+
+        assertTrue(new MazeExplorer(maze, random).isPerfect());
+    }
+}
@@ -0,0 +1,57 @@
+package com.temnenkov.mzctl.generation;
+
+import com.temnenkov.mzctl.analysis.MazeExplorer;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Все генераторы идеальных лабиринтов строят идеальный лабиринт при любой размерности.
+ */
+class MazeGeneratorPerfectionTest {
+
+    private static final String[] DIMENSIONS = {"1", "1x130", "130x1", "7x9x5", "3x3x3x3", "300x500"};
+
+    static @NotNull Stream<Arguments> generatorsAndDimensions() {
+        final Stream<Arguments> algos = Arrays.stream(MazeGeneratorFactory.Algo.values())
+                .map(algo -> Arguments.of(algo.name(),
+                        (BiFunction<MazeDim, Random, MazeGenerator>) (mazeDim, random) ->
+                                new MazeGeneratorFactory(random).create(algo, mazeDim)));
+        final Stream<Arguments> growingTree = Arrays.stream(GrowingTreeMazeGenerator.Strategy.values())
+                .map(strategy -> Arguments.of("GROWING_TREE_" + strategy.name(),
+                        (BiFunction<MazeDim, Random, MazeGenerator>) (mazeDim, random) ->
+                                new GrowingTreeMazeGenerator(mazeDim, random, strategy, 0.5)));
+        return Stream.concat(algos, growingTree)
+                .flatMap(arguments -> Arrays.stream(DIMENSIONS)
+                        .map(dimensions -> Arguments.of(arguments.get()[0], arguments.get()[1], dimensions)));
+    }
+
+    @ParameterizedTest(name = "{0} {2}")
+    @MethodSource("generatorsAndDimensions")
+    void generateMazeIsPerfectInAnyDimension(String name, BiFunction<MazeDim, Random, MazeGenerator> create,
+            String dimensions) {
+        final int[] sizes = Arrays.stream(dimensions.split("x")).mapToInt(Integer::parseInt).toArray();
+        // Sidewinder соединяет серии с предыдущим слоем и требует хотя бы двух измерений
+        if (name.equals(MazeGeneratorFactory.Algo.SIDEWINDER.name()) && sizes.length < 2) {
+            return;
+        }
+        final Random random = new Random(17);
+        final MazeGenerator generator = create.apply(MazeDim.of(sizes), random);
+
+        final Maze maze = generator.generateMaze();
+
+        assertTrue(new MazeExplorer(maze, random).isPerfect());
+        assertThrows(IllegalStateException.class, generator::generateMaze);
+    }
+}
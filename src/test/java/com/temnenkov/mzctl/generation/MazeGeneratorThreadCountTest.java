@@ -0,0 +1,49 @@
+package com.temnenkov.mzctl.generation;
+
+import com.temnenkov.mzctl.analysis.MazeExplorer;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Параллельные генераторы при одном и том же зерне строят один и тот же лабиринт при любом количестве потоков.
+ */
+class MazeGeneratorThreadCountTest {
+
+    private static final MazeDim MAZE_DIM = MazeDim.of(700, 333);
+
+    static @NotNull Stream<Arguments> parallelGenerators() {
+        return Stream.of(
+                Arguments.of("BINARY_TREE", (BiFunction<Random, Integer, MazeGenerator>) (random, threads) ->
+                        new BinaryTreeMazeGenerator(MAZE_DIM, random, threads)),
+                Arguments.of("SIDEWINDER", (BiFunction<Random, Integer, MazeGenerator>) (random, threads) ->
+                        new SidewinderMazeGenerator(MAZE_DIM, random, threads)),
+                Arguments.of("RECURSIVE_DIVISION", (BiFunction<Random, Integer, MazeGenerator>) (random, threads) ->
+                        new RecursiveDivision(MAZE_DIM, random, threads)),
+                Arguments.of("TILED", (BiFunction<Random, Integer, MazeGenerator>) (random, threads) ->
+                        new TiledMazeGenerator(MAZE_DIM, random, MazeGeneratorFactory.Algo.RANDOMIZED_KRUSKAL,
+                                100, threads)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("parallelGenerators")
+    void sameSeedGivesSameMazeAtAnyThreadCount(String name, BiFunction<Random, Integer, MazeGenerator> create) {
+        final Maze singleThreaded = create.apply(new Random(42), 1).generateMaze();
+
+        for (int threads : new int[]{2, 4}) {
+            final Maze multiThreaded = create.apply(new Random(42), threads).generateMaze();
+            assertEquals(singleThreaded, multiThreaded, "threads = " + threads);
+        }
+        assertTrue(new MazeExplorer(singleThreaded, new Random(1)).isPerfect());
+    }
+}
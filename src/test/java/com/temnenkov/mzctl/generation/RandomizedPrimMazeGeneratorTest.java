@@ -6,12 +6,15 @@ import com.temnenkov.mzctl.model.MazeDim;
 import com.temnenkov.mzctl.visualization.MazeAsciiVisualizer;
 import com.temnenkov.mzctl.visualization.MazeImageVisualizer;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RandomizedPrimMazeGeneratorTest {
@@ -53,4 +56,17 @@ class RandomizedPrimMazeGeneratorTest {
         assertTrue(mazeExplorer.isPerfect());
     }
 
-}
\ No newline at end of file
+    @ParameterizedTest
+    @EnumSource(RandomizedPrimMazeGenerator.Mode.class)
+    void generateMazeIsPerfectInEveryMode(RandomizedPrimMazeGenerator.Mode mode) {
+        final Random random = new Random(17);
+        for (MazeDim mazeDim : new MazeDim[]{MazeDim.of(1), MazeDim.of(1, 130), MazeDim.of(7, 9, 5), MazeDim.of(300, 300)}) {
+            final MazeGenerator generator = new MazeGeneratorFactory(random).createRandomizedPrim(mazeDim, mode);
+
+            final Maze maze = generator.generateMaze();
+
+            assertTrue(new MazeExplorer(maze, random).isPerfect());
+            assertThrows(IllegalStateException.class, generator::generateMaze);
+        }
+    }
+}
@@ -46,4 +46,4 @@ class RecursiveBacktrackerTest {
 
         new MazeImageVisualizer(maze, 20, 2).saveMazeImage("target/maze.png");
     }
-}
\ No newline at end of file
+}
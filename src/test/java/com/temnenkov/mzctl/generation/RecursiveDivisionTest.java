@@ -53,4 +53,4 @@ class RecursiveDivisionTest {
         assertTrue(mazeExplorer.isAcyclic());
         assertTrue(mazeExplorer.isPerfect());
     }
-}
\ No newline at end of file
+}
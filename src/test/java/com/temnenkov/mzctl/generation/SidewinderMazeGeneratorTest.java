@@ -52,6 +52,4 @@ class SidewinderMazeGeneratorTest {
         assertTrue(mazeExplorer.isAcyclic());
         assertTrue(mazeExplorer.isPerfect());
     }
-
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package com.temnenkov.mzctl.generation;
+
+import com.temnenkov.mzctl.analysis.MazeExplorer;
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TiledMazeGeneratorTest {
+
+    @ParameterizedTest
+    @EnumSource(MazeGeneratorFactory.Algo.class)
+    void tiledMazeIsPerfect(MazeGeneratorFactory.Algo algo) {
+        final Random random = new Random(42);
+        final Maze maze = new TiledMazeGenerator(MazeDim.of(23, 17), random, algo, 6, 2).generateMaze();
+
+        assertTrue(new MazeExplorer(maze, random).isPerfect(), "not perfect: " + algo);
+    }
+
+    @Test
+    void tiledMaze3dIsPerfect() {
+        final Random random = new Random(5);
+        final Maze maze = new TiledMazeGenerator(MazeDim.of(9, 10, 11), random,
+                MazeGeneratorFactory.Algo.RECURSIVE_BACKTRACKER, 4, 3).generateMaze();
+
+        assertTrue(new MazeExplorer(maze, random).isPerfect());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = MazeGeneratorFactory.Algo.class, names = {"RECURSIVE_BACKTRACKER", "ELLER", "BINARY_TREE"})
+    void wideTiledMazeIsPerfect(MazeGeneratorFactory.Algo algo) {
+        // ряд не кратен блоку: крайние слова рядов делят соседние участки
+        final Random random = new Random(21);
+        final Maze maze = new TiledMazeGenerator(MazeDim.of(20, 300), random, algo, 70, 3).generateMaze();
+
+        assertTrue(new MazeExplorer(maze, random).isPerfect(), "not perfect: " + algo);
+    }
+
+    @Test
+    void singleTile() {
+        final Random random = new Random(8);
+        final Maze maze = new TiledMazeGenerator(MazeDim.of(5, 7), random,
+                MazeGeneratorFactory.Algo.WILSON, 100, 1).generateMaze();
+
+        assertTrue(new MazeExplorer(maze, random).isPerfect());
+    }
+
+    @Test
+    void generateOnlyOnce() {
+        final TiledMazeGenerator generator = new TiledMazeGenerator(MazeDim.of(4, 4), new Random(1),
+                MazeGeneratorFactory.Algo.ELLER, 2, 1);
+        generator.generateMaze();
+
+        assertThrows(IllegalStateException.class, generator::generateMaze);
+    }
+
+    @Test
+    void invalidParameters() {
+        final MazeDim mazeDim = MazeDim.of(4, 4);
+        final Random random = new Random();
+        assertThrows(IllegalArgumentException.class,
+                () -> new TiledMazeGenerator(mazeDim, random, MazeGeneratorFactory.Algo.ELLER, 0, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TiledMazeGenerator(mazeDim, random, MazeGeneratorFactory.Algo.ELLER, 2, 0));
+    }
+}
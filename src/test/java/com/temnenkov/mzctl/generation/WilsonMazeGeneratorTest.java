@@ -0,0 +1,38 @@
+package com.temnenkov.mzctl.generation;
+
+import com.temnenkov.mzctl.model.Maze;
+import com.temnenkov.mzctl.model.MazeDim;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WilsonMazeGeneratorTest {
+
+    @Test
+    void spanningTreesAreUniform() {
+        // у квадрата 2x2 четыре остовных дерева: каждое без одного из четырёх проходов
+        final Random random = new Random(42);
+        final int[] counts = new int[4];
+        final int runs = 4000;
+        for (int i = 0; i < runs; i++) {
+            final Maze maze = new WilsonMazeGenerator(MazeDim.of(2, 2), random).generateMaze();
+            final boolean[] passes = {maze.canPass(0, 1), maze.canPass(0, 2), maze.canPass(1, 3), maze.canPass(2, 3)};
+            int missing = -1;
+            for (int pass = 0; pass < passes.length; pass++) {
+                if (!passes[pass]) {
+                    assertEquals(-1, missing, "tree must miss exactly one pass");
+                    missing = pass;
+                }
+            }
+            counts[missing]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(Math.abs(count - runs / 4) < runs / 20, () -> "not uniform: " + Arrays.toString(counts));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.temnenkov.mzctl.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BitSetCellularAutomataMazeTest {
+
+    static List<MazeDim> dimensions() {
+        return List.of(MazeDim.of(130), MazeDim.of(7, 65), MazeDim.of(64, 3), MazeDim.of(5, 6, 7), MazeDim.of(1, 1));
+    }
+
+    @ParameterizedTest
+    @MethodSource("dimensions")
+    void sameAsHashSetMaze(MazeDim mazeDim) {
+        final CellularAutomataMaze expected = new CellularAutomataMazeImpl(mazeDim, new Random(42L)).initialize(0.45);
+        final CellularAutomataMaze actual = new BitSetCellularAutomataMaze(mazeDim, new Random(42L)).initialize(0.45);
+
+        assertEquals(expected.totalCells(), actual.totalCells());
+        for (Cell cell : expected) {
+            assertEquals(expected.isWall(cell), actual.isWall(cell), cell::toString);
+            assertEquals(expected.countWallNeighbors(cell), actual.countWallNeighbors(cell), cell::toString);
+        }
+
+        final BitSetCellularAutomataMaze bitSetMaze = (BitSetCellularAutomataMaze) actual;
+        final int[] counts = new int[bitSetMaze.rowLength()];
+        for (int rowStart = 0; rowStart < bitSetMaze.totalCells(); rowStart += bitSetMaze.rowLength()) {
+            bitSetMaze.countWallNeighborsInRow(rowStart, counts);
+            for (int column = 0; column < counts.length; column++) {
+                assertEquals(bitSetMaze.countWallNeighborsAt(rowStart + column), counts[column]);
+            }
+        }
+    }
+
+    @Test
+    void setWall() {
+        final BitSetCellularAutomataMaze maze = new BitSetCellularAutomataMaze(MazeDim.of(3, 3), new Random());
+
+        maze.setWall(true, 1, 1);
+        maze.setWall(true, Cell.of(0, 2));
+
+        assertTrue(maze.isWall(1, 1));
+        assertTrue(maze.isWallAt(maze.getIndexSpace().indexOf(0, 2)));
+        assertEquals(2, maze.countWallNeighbors(0, 1));
+        assertEquals(1, maze.countWallNeighbors(1, 1));
+        assertFalse(maze.isWall(3, 1));
+
+        maze.setWall(false, 1, 1);
+        assertFalse(maze.isWall(Cell.of(1, 1)));
+        assertThrows(IllegalArgumentException.class, () -> maze.setWall(true, 3, 1));
+    }
+}
@@ -0,0 +1,110 @@
+package com.temnenkov.mzctl.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CellIndexSpaceTest {
+
+    @Test
+    void indexOrderMatchesMazeIterator() {
+        final Maze maze = MazeFactory.createNotConnectedMaze(2, 3, 4);
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+
+        int expectedIndex = 0;
+        for (Cell cell : maze) {
+            assertEquals(expectedIndex, indexSpace.indexOf(cell));
+            assertEquals(expectedIndex, indexSpace.indexOf(cell.getCoordinates()));
+            assertEquals(cell, indexSpace.cellAt(expectedIndex));
+            expectedIndex++;
+        }
+        assertEquals(24, indexSpace.size());
+    }
+
+    @Test
+    void strides() {
+        final CellIndexSpace indexSpace = new CellIndexSpace(MazeDim.of(2, 3, 4));
+
+        assertEquals(12, indexSpace.stride(0));
+        assertEquals(4, indexSpace.stride(1));
+        assertEquals(1, indexSpace.stride(2));
+        assertEquals(6, indexSpace.directionCount());
+    }
+
+    @Test
+    void neighbor() {
+        final CellIndexSpace indexSpace = new CellIndexSpace(MazeDim.of(3, 3));
+        final int center = indexSpace.indexOf(1, 1);
+        final int corner = indexSpace.indexOf(0, 0);
+
+        assertEquals(indexSpace.indexOf(0, 1), indexSpace.neighbor(center, CellIndexSpace.direction(0, false)));
+        assertEquals(indexSpace.indexOf(2, 1), indexSpace.neighbor(center, CellIndexSpace.direction(0, true)));
+        assertEquals(indexSpace.indexOf(1, 0), indexSpace.neighbor(center, CellIndexSpace.direction(1, false)));
+        assertEquals(indexSpace.indexOf(1, 2), indexSpace.neighbor(center, CellIndexSpace.direction(1, true)));
+        assertEquals(-1, indexSpace.neighbor(corner, CellIndexSpace.direction(0, false)));
+        assertEquals(-1, indexSpace.neighbor(corner, CellIndexSpace.direction(1, false)));
+        // по последнему измерению нельзя перескочить на следующую строку
+        assertEquals(-1, indexSpace.neighbor(indexSpace.indexOf(0, 2), CellIndexSpace.direction(1, true)));
+    }
+
+    @Test
+    void adjacentMatchesGetAllNeighbors() {
+        final Maze maze = MazeFactory.createNotConnectedMaze(3, 1, 4);
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int[] buffer = new int[indexSpace.directionCount()];
+
+        for (Cell cell : maze) {
+            final int count = indexSpace.adjacent(indexSpace.indexOf(cell), buffer);
+            final List<Cell> expected = maze.getAllNeighbors(cell).toList();
+            assertEquals(expected.size(), count);
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected.get(i), indexSpace.cellAt(buffer[i]));
+            }
+        }
+    }
+
+    @Test
+    void directionBetween() {
+        final CellIndexSpace indexSpace = new CellIndexSpace(MazeDim.of(3, 3));
+
+        assertEquals(CellIndexSpace.direction(1, true),
+                indexSpace.directionBetween(indexSpace.indexOf(0, 0), indexSpace.indexOf(0, 1)));
+        assertEquals(CellIndexSpace.direction(0, false),
+                indexSpace.directionBetween(indexSpace.indexOf(1, 0), indexSpace.indexOf(0, 0)));
+        assertEquals(-1, indexSpace.directionBetween(indexSpace.indexOf(0, 2), indexSpace.indexOf(1, 0)));
+        assertEquals(-1, indexSpace.directionBetween(indexSpace.indexOf(0, 0), indexSpace.indexOf(1, 1)));
+        assertEquals(-1, CellIndexSpace.directionBetween(Cell.of(0, 0), Cell.of(0, 2)));
+        assertEquals(CellIndexSpace.opposite(CellIndexSpace.direction(1, true)), CellIndexSpace.direction(1, false));
+    }
+
+    @Test
+    void directionBetweenWithUnitDimension() {
+        final CellIndexSpace indexSpace = new CellIndexSpace(MazeDim.of(3, 1));
+
+        assertEquals(CellIndexSpace.direction(0, true), indexSpace.directionBetween(0, 1));
+        assertEquals(-1, indexSpace.directionBetween(2, 3));
+    }
+
+    @Test
+    void contains() {
+        final CellIndexSpace indexSpace = new CellIndexSpace(MazeDim.of(2, 2));
+
+        assertTrue(indexSpace.contains(Cell.of(1, 1)));
+        assertFalse(indexSpace.contains(Cell.of(2, 1)));
+        assertFalse(indexSpace.contains(Cell.of(1, 1, 1)));
+        assertTrue(indexSpace.contains(3));
+        assertFalse(indexSpace.contains(4));
+        assertFalse(indexSpace.contains(-1));
+    }
+
+    @Test
+    void overflow() {
+        final MazeDim mazeDim = MazeDim.of(100_000, 100_000);
+        assertThrows(ArithmeticException.class, () -> new CellIndexSpace(mazeDim));
+    }
+}
@@ -4,15 +4,20 @@ import com.temnenkov.mzctl.model.serialize.SerializationHelper;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class MazeTest {
@@ -49,6 +54,206 @@ class MazeTest {
         assertEquals(maze, loadedMaze);
     }
 
+    @ParameterizedTest
+    @EnumSource(PassageStorageType.class)
+    void testAddAndRemovePassWithStorage(PassageStorageType storageType) {
+        final Maze maze = MazeFactory.createNotConnectedMaze(MazeDim.of(3, 4, 5), storageType);
+        final Cell cell = Cell.of(1, 2, 3);
+
+        maze.addPass(cell, Set.of(cell.plusOne(0), cell.minusOne(1), cell.plusOne(2)));
+
+        assertTrue(maze.canPass(cell, Cell.of(2, 2, 3)));
+        assertTrue(maze.canPass(Cell.of(1, 1, 3), cell));
+        assertTrue(maze.canPass(Cell.of(1, 2, 4), cell));
+        assertFalse(maze.canPass(cell, cell.minusOne(0)));
+        assertEquals(Set.of(Cell.of(2, 2, 3), Cell.of(1, 1, 3), Cell.of(1, 2, 4)), maze.getAvailableNeighbors(cell));
+        assertEquals(Set.of(cell), maze.getAvailableNeighbors(Cell.of(1, 1, 3)));
+
+        maze.removePass(Cell.of(1, 1, 3), cell);
+
+        assertFalse(maze.canPass(cell, Cell.of(1, 1, 3)));
+        assertEquals(Set.of(), maze.getAvailableNeighbors(Cell.of(1, 1, 3)));
+        assertEquals(Set.of(Cell.of(2, 2, 3), Cell.of(1, 2, 4)), maze.getAvailableNeighbors(cell));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PassageStorageType.class)
+    void testCanPassOutsideMaze(PassageStorageType storageType) {
+        final Maze maze = MazeFactory.createNotConnectedMaze(MazeDim.of(2, 2), storageType);
+        maze.addPass(Cell.of(0, 0), Cell.of(0, 1));
+
+        assertFalse(maze.canPass(Cell.of(0, 0), Cell.of(-1, 0)));
+        assertFalse(maze.canPass(Cell.of(0, 0), Cell.of(1, 1)));
+        assertEquals(Set.of(), maze.getAvailableNeighbors(Cell.of(5, 5)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PassageStorageType.class)
+    void testAddPassRejectsNotAdjacentCells(PassageStorageType storageType) {
+        final Maze maze = MazeFactory.createNotConnectedMaze(MazeDim.of(3, 3), storageType);
+
+        assertThrows(IllegalArgumentException.class, () -> maze.addPass(Cell.of(0, 0), Cell.of(1, 1)));
+        assertThrows(IllegalArgumentException.class, () -> maze.addPass(Cell.of(0, 0), Cell.of(0, 2)));
+        assertThrows(IllegalArgumentException.class, () -> maze.addPass(Cell.of(2, 2), Cell.of(2, 3)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PassageStorageType.class)
+    void testIndexApi(PassageStorageType storageType) {
+        final Maze maze = MazeFactory.createNotConnectedMaze(MazeDim.of(3, 3), storageType);
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int center = indexSpace.indexOf(1, 1);
+
+        maze.addPass(center, indexSpace.indexOf(0, 1));
+        maze.addPass(indexSpace.indexOf(1, 2), center);
+
+        assertTrue(maze.canPass(center, indexSpace.indexOf(0, 1)));
+        assertTrue(maze.canPass(indexSpace.indexOf(0, 1), center));
+        assertTrue(maze.canPass(Cell.of(1, 1), Cell.of(1, 2)));
+        assertFalse(maze.canPass(center, indexSpace.indexOf(2, 1)));
+        assertFalse(maze.canPass(center, -1));
+        assertTrue(maze.hasPass(center, CellIndexSpace.direction(1, true)));
+
+        final List<Integer> neighbors = new ArrayList<>();
+        maze.forEachNeighbor(center, neighbors::add);
+        assertEquals(List.of(indexSpace.indexOf(0, 1), indexSpace.indexOf(1, 2)), neighbors);
+        assertEquals(2, maze.availableNeighborCount(center));
+        final int[] buffer = new int[indexSpace.directionCount()];
+        assertEquals(2, maze.getAvailableNeighbors(center, buffer));
+        assertEquals(indexSpace.indexOf(0, 1), buffer[0]);
+        assertEquals(indexSpace.indexOf(1, 2), buffer[1]);
+
+        maze.removePass(center, indexSpace.indexOf(0, 1));
+        assertFalse(maze.canPass(Cell.of(0, 1), Cell.of(1, 1)));
+        assertThrows(IllegalArgumentException.class, () -> maze.addPass(indexSpace.indexOf(0, 2), indexSpace.indexOf(1, 0)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PassageStorageType.class)
+    void testSetPassMasks(PassageStorageType storageType) {
+        final Maze source = MazeFactory.createFullConnectedMaze(MazeDim.of(5, 7, 3));
+        final int directionCount = source.getIndexSpace().directionCount();
+        // по одной части: с начала блока и с середины слова
+        final int[][] ranges = {{0, 64}, {64, 37}, {101, 4}};
+        final Maze target = MazeFactory.createNotConnectedMaze(MazeDim.of(5, 7, 3), storageType);
+        for (int[] range : ranges) {
+            final long[] packed = new long[(range[1] * directionCount + 63) / 64];
+            for (int i = 0; i < range[1]; i++) {
+                for (int direction = 0; direction < directionCount; direction++) {
+                    if (source.hasPass(range[0] + i, direction)) {
+                        final int bit = i * directionCount + direction;
+                        packed[bit >>> 6] |= 1L << bit;
+                    }
+                }
+            }
+            target.setPassMasks(range[0], range[1], packed);
+        }
+
+        assertEquals(source, target);
+        assertThrows(IllegalArgumentException.class, () -> target.setPassMasks(100, 6, new long[1]));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PassageStorageType.class)
+    void testSetPassMasksConcurrently(PassageStorageType storageType) {
+        final Maze source = MazeFactory.createFullConnectedMaze(MazeDim.of(30, 37));
+        final int directionCount = source.getIndexSpace().directionCount();
+        final Maze target = MazeFactory.createNotConnectedMaze(MazeDim.of(30, 37), storageType);
+        // ряды не кратны блоку: соседние ряды делят крайние слова хранилища
+        IntStream.range(0, 30).parallel().forEach(row -> {
+            final long[] packed = new long[(37 * directionCount + 63) / 64];
+            for (int i = 0; i < 37; i++) {
+                for (int direction = 0; direction < directionCount; direction++) {
+                    if (source.hasPass(row * 37 + i, direction)) {
+                        final int bit = i * directionCount + direction;
+                        packed[bit >>> 6] |= 1L << bit;
+                    }
+                }
+            }
+            target.setPassMasks(row * 37, 37, packed);
+        });
+
+        assertEquals(source, target);
+    }
+
+    @ParameterizedTest
+    @EnumSource(PassageStorageType.class)
+    void testRemovePassAtomic(PassageStorageType storageType) {
+        final Maze maze = MazeFactory.createNotConnectedMaze(MazeDim.of(40, 40), storageType);
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int right = CellIndexSpace.direction(1, true);
+        final int down = CellIndexSpace.direction(0, true);
+        for (int index = 0; index < indexSpace.size(); index++) {
+            for (int direction : new int[]{right, down}) {
+                if (indexSpace.neighbor(index, direction) >= 0) {
+                    maze.addPass(index, indexSpace.neighbor(index, direction));
+                }
+            }
+        }
+
+        // проходы соседних комнат лежат в одних словах хранилища
+        IntStream.range(0, indexSpace.size()).parallel()
+                .filter(index -> indexSpace.neighbor(index, right) >= 0)
+                .forEach(index -> maze.removePassAtomic(index, right));
+
+        for (int index = 0; index < indexSpace.size(); index++) {
+            assertFalse(maze.hasPass(index, right));
+            assertFalse(maze.hasPass(index, CellIndexSpace.opposite(right)));
+            assertEquals(indexSpace.neighbor(index, down) >= 0, maze.hasPass(index, down));
+        }
+        assertThrows(IllegalArgumentException.class, () -> maze.removePassAtomic(39, right));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PassageStorageType.class)
+    void testAddPassAtomic(PassageStorageType storageType) {
+        final Maze maze = MazeFactory.createNotConnectedMaze(MazeDim.of(40, 40), storageType);
+        final CellIndexSpace indexSpace = maze.getIndexSpace();
+        final int right = CellIndexSpace.direction(1, true);
+        final int down = CellIndexSpace.direction(0, true);
+
+        // проходы соседних комнат лежат в одних словах хранилища
+        IntStream.range(0, indexSpace.size()).parallel()
+                .filter(index -> indexSpace.neighbor(index, right) >= 0)
+                .forEach(index -> maze.addPassAtomic(index, right));
+
+        for (int index = 0; index < indexSpace.size(); index++) {
+            assertEquals(indexSpace.neighbor(index, right) >= 0, maze.hasPass(index, right));
+            assertEquals(indexSpace.neighbor(index, CellIndexSpace.opposite(right)) >= 0,
+                    maze.hasPass(index, CellIndexSpace.opposite(right)));
+            assertFalse(maze.hasPass(index, down));
+        }
+        assertThrows(IllegalArgumentException.class, () -> maze.addPassAtomic(39, right));
+    }
+
+    @Test
+    void testStoragesAreEqual() {
+        final Maze bitSetMaze = MazeFactory.createNotConnectedMaze(MazeDim.of(3, 3, 3), PassageStorageType.BIT_SET);
+        final Maze hashMapMaze = MazeFactory.createNotConnectedMaze(MazeDim.of(3, 3, 3), PassageStorageType.HASH_MAP);
+        for (Maze maze : List.of(bitSetMaze, hashMapMaze)) {
+            maze.addPass(Cell.of(0, 0, 0), Cell.of(0, 0, 1));
+            maze.addPass(Cell.of(2, 2, 2), Cell.of(2, 1, 2));
+        }
+
+        assertEquals(bitSetMaze, hashMapMaze);
+        assertEquals(bitSetMaze.hashCode(), hashMapMaze.hashCode());
+
+        hashMapMaze.removePass(Cell.of(2, 2, 2), Cell.of(2, 1, 2));
+
+        assertNotEquals(bitSetMaze, hashMapMaze);
+    }
+
+    @Test
+    void testFullConnectedMazeSaveAndLoad(@TempDir Path tempDir) {
+        final Maze maze = MazeFactory.createFullConnectedMaze(3, 5, 7);
+
+        final Path file = tempDir.resolve("full.mzpack");
+        SerializationHelper.saveMazeToFile(maze, file.toString());
+        final Maze loadedMaze = SerializationHelper.loadMazeFromFile(file.toString());
+
+        assertEquals(maze, loadedMaze);
+    }
+
     @Test
     void totalCellCount() {
         final Maze maze = MazeFactory.createNotConnectedMaze(1, 2, 3, 4);
@@ -67,6 +272,17 @@ class MazeTest {
         assertEquals(9, maze.totalCellCount());
     }
 
+    @Test
+    void parallelStreamKeepsOrder() {
+        final Maze maze = MazeFactory.createNotConnectedMaze(70, 3, 90);
+
+        final List<Cell> expected = new ArrayList<>();
+        maze.forEach(expected::add);
+
+        assertEquals(expected, maze.stream().parallel().toList());
+        assertEquals(expected.subList(5, 17), maze.stream().skip(5).limit(12).toList());
+    }
+
     @Test
     void testLoop() {
         final Maze maze = MazeFactory.createNotConnectedMaze(2, 3);
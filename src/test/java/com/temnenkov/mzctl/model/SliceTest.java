@@ -18,6 +18,17 @@ class SliceTest {
         assertEquals(27, new Slice(Cell.of(2, 3, 4), Cell.of(4, 5, 6)).getTotalCellCount());
     }
 
+    @Test
+    void parallelStreamKeepsOrder() {
+        final Slice slice = new Slice(Cell.of(2, 3, 4), Cell.of(40, 50, 60));
+
+        final List<Cell> expected = new ArrayList<>();
+        slice.forEach(expected::add);
+
+        assertEquals(expected, slice.stream().parallel().toList());
+        assertEquals(slice.getTotalCellCount(), slice.stream().count());
+    }
+
     @Test
     void test2DimensionsSimple() {
         final Slice slice = new Slice(Cell.of(0, 0), Cell.of(2, 2));
@@ -276,4 +276,19 @@ class IndexedHashSetTest {
         assertThrows(IllegalArgumentException.class, () -> new IndexedHashSet<>(dataWithNull),
                 "Конструктор должен бросать исключение при передаче коллекции с null-элементами");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSwapWithLastRemoval() {
+        final IndexedHashSet<String> set = new IndexedHashSet<>(List.of("A", "B", "C", "D"),
+                IndexedHashSet.RemovalMode.SWAP_WITH_LAST);
+
+        assertTrue(set.remove("B"));
+        assertEquals(List.of("A", "D", "C"), set.asList(), "На место удалённого встаёт последний элемент");
+        assertTrue(set.isInternallyConsistent());
+
+        assertTrue(set.remove("C"));
+        assertEquals(List.of("A", "D"), set.asList());
+        assertFalse(set.remove("C"));
+        assertTrue(set.isInternallyConsistent());
+    }
+}
@@ -0,0 +1,74 @@
+package com.temnenkov.mzctl.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntDisjointSetTest {
+
+    @Test
+    void initiallySingletons() {
+        final IntDisjointSet disjointSet = new IntDisjointSet(4);
+
+        assertEquals(4, disjointSet.componentCount());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, disjointSet.find(i));
+            assertEquals(1, disjointSet.setSize(i));
+        }
+        assertFalse(disjointSet.sameSet(0, 1));
+    }
+
+    @Test
+    void union() {
+        final IntDisjointSet disjointSet = new IntDisjointSet(5);
+
+        assertTrue(disjointSet.union(0, 1));
+        assertTrue(disjointSet.union(2, 3));
+        assertNotEquals(disjointSet.find(0), disjointSet.find(2));
+        assertEquals(3, disjointSet.componentCount());
+
+        assertTrue(disjointSet.union(1, 3));
+        assertFalse(disjointSet.union(0, 2)); // уже в одном множестве
+        assertTrue(disjointSet.sameSet(0, 3));
+        assertEquals(4, disjointSet.setSize(2));
+        assertEquals(1, disjointSet.setSize(4));
+        assertEquals(2, disjointSet.componentCount());
+    }
+
+    @Test
+    void longChainDoesNotOverflowStack() {
+        final int size = 2_000_000;
+        final IntDisjointSet disjointSet = new IntDisjointSet(size);
+        for (int i = 1; i < size; i++) {
+            disjointSet.union(i - 1, i);
+        }
+
+        assertEquals(1, disjointSet.componentCount());
+        assertEquals(size, disjointSet.setSize(0));
+        assertTrue(disjointSet.sameSet(0, size - 1));
+    }
+
+    @Test
+    void outOfRange() {
+        final IntDisjointSet disjointSet = new IntDisjointSet(2);
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> disjointSet.find(2));
+        assertThrows(IllegalArgumentException.class, () -> new IntDisjointSet(-1));
+    }
+
+    @Test
+    void reset() {
+        final IntDisjointSet disjointSet = new IntDisjointSet(3);
+        disjointSet.union(0, 1);
+        disjointSet.union(1, 2);
+
+        disjointSet.reset();
+
+        assertEquals(3, disjointSet.componentCount());
+        assertFalse(disjointSet.sameSet(0, 2));
+        assertEquals(1, disjointSet.setSize(1));
+    }
+}
@@ -0,0 +1,103 @@
+package com.temnenkov.mzctl.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntIndexedSetTest {
+
+    @ParameterizedTest
+    @EnumSource(IndexedHashSet.RemovalMode.class)
+    void addRemoveContains(IndexedHashSet.RemovalMode removalMode) {
+        final IntIndexedSet set = new IntIndexedSet(10, removalMode);
+
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(3));
+        assertTrue(set.add(7));
+        assertFalse(set.add(3));
+        assertEquals(2, set.size());
+        assertTrue(set.contains(7));
+
+        assertTrue(set.remove(3));
+        assertFalse(set.remove(3));
+        assertFalse(set.contains(3));
+        assertEquals(1, set.size());
+        assertEquals(7, set.getRandom(new Random()));
+
+        assertTrue(set.add(3)); // повторное добавление после удаления
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void orderedKeepsFirstAndLast() {
+        final IntIndexedSet set = new IntIndexedSet(100, IndexedHashSet.RemovalMode.ORDERED);
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(i);
+        }
+
+        final Random random = new Random(5L);
+        while (!set.isEmpty()) {
+            assertEquals(expected.get(0), set.getFirst());
+            assertEquals(expected.get(expected.size() - 1), set.getLast());
+            final int element = set.getRandom(random);
+            assertTrue(expected.remove((Integer) element));
+            set.remove(element);
+            assertEquals(expected.size(), set.size());
+        }
+    }
+
+    @Test
+    void orderedAddAfterCompaction() {
+        final IntIndexedSet set = new IntIndexedSet(4, IndexedHashSet.RemovalMode.ORDERED);
+        set.add(0);
+        set.add(1);
+        set.add(2);
+        set.add(3);
+        set.remove(1);
+        set.remove(2);
+
+        assertTrue(set.add(2)); // массив заполнен до конца, нужен сдвиг
+        assertEquals(0, set.getFirst());
+        assertEquals(2, set.getLast());
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    void getRandomCoversAllElements() {
+        final IntIndexedSet set = new IntIndexedSet(5, IndexedHashSet.RemovalMode.SWAP_WITH_LAST);
+        for (int i = 0; i < 5; i++) {
+            set.add(i);
+        }
+        set.remove(2);
+
+        final Set<Integer> seen = new HashSet<>();
+        final Random random = new Random(1L);
+        for (int i = 0; i < 200; i++) {
+            seen.add(set.getRandom(random));
+        }
+        assertEquals(Set.of(0, 1, 3, 4), seen);
+    }
+
+    @Test
+    void emptySetThrows() {
+        final IntIndexedSet set = new IntIndexedSet(3, IndexedHashSet.RemovalMode.ORDERED);
+        assertThrows(IllegalStateException.class, () -> set.getRandom(new Random()));
+        assertThrows(IllegalStateException.class, set::getFirst);
+        assertThrows(IllegalStateException.class, set::getLast);
+    }
+}
@@ -0,0 +1,52 @@
+package com.temnenkov.mzctl.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongMinHeapTest {
+
+    @Test
+    void pollReturnsValuesInAscendingOrder() {
+        final Random random = new Random(3);
+        final long[] values = new long[1000];
+        final LongMinHeap heap = new LongMinHeap(1);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong();
+            heap.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, heap.size());
+        for (long value : values) {
+            assertEquals(value, heap.peek());
+            assertEquals(value, heap.poll());
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    void keepsDuplicates() {
+        final LongMinHeap heap = new LongMinHeap();
+        heap.add(5);
+        heap.add(5);
+        heap.add(-1);
+
+        assertEquals(-1, heap.poll());
+        assertEquals(5, heap.poll());
+        assertEquals(5, heap.poll());
+    }
+
+    @Test
+    void emptyHeapThrows() {
+        final LongMinHeap heap = new LongMinHeap(0);
+        assertThrows(IllegalStateException.class, heap::peek);
+        assertThrows(IllegalStateException.class, heap::poll);
+        assertThrows(IllegalArgumentException.class, () -> new LongMinHeap(-1));
+    }
+}
@@ -0,0 +1,45 @@
+package com.temnenkov.mzctl.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SeededRandomProviderTest {
+
+    @Test
+    void sameSeedSameSequence() {
+        assertArrayEquals(longs(new SeededRandomProvider(42).getRandom()),
+                longs(new SeededRandomProvider(42).getRandom()));
+        assertEquals(42, new SeededRandomProvider(42).getSeed());
+    }
+
+    @Test
+    void splitIsDeterministic() {
+        final SeededRandomProvider first = new SeededRandomProvider(7);
+        final SeededRandomProvider second = new SeededRandomProvider(7);
+
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(longs(first.split()), longs(second.split()));
+        }
+        assertArrayEquals(longs(first.getRandom()), longs(second.getRandom()));
+    }
+
+    @Test
+    void randomSeedIsReproducible() {
+        final SeededRandomProvider provider = SeededRandomProvider.withRandomSeed();
+        final long[] expected = longs(new SeededRandomProvider(provider.getSeed()).getRandom());
+
+        assertArrayEquals(expected, longs(provider.getRandom()));
+    }
+
+    private static long[] longs(RandomGenerator random) {
+        final long[] result = new long[8];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = random.nextLong();
+        }
+        return result;
+    }
+}